@@ -0,0 +1,75 @@
+package ru.practicum.config.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import ru.practicum.dto.product.cache.ProductCacheDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Сравнение форматов значений кеша на списке товаров каталога: размер и скорость кодирования/декодирования.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    private CacheSerializationProperties.Format format;
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    private RedisSerializer<List<ProductCacheDto>> serializer;
+
+    private List<ProductCacheDto> catalog;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = new CacheSerializerFactory(new RedisBaseConfig().redisObjectMapper(),
+                new CacheSerializationProperties(format))
+                .createList(ProductCacheDto.class);
+        catalog = IntStream.range(0, catalogSize)
+                .mapToObj(i -> ProductCacheDto.builder()
+                        .uuid(UUID.randomUUID())
+                        .name("Товар " + i)
+                        .description("Подробное описание товара номер " + i + " для витрины магазина")
+                        .price(BigDecimal.valueOf(1000 + i * 37L, 2))
+                        .imageUrl("/images/products/" + i + ".png")
+                        .build())
+                .toList();
+        encoded = serializer.serialize(catalog);
+        System.out.printf("%n%s: %d товаров, %d байт%n", format, catalogSize, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(catalog);
+    }
+
+    @Benchmark
+    public List<ProductCacheDto> decode() {
+        return serializer.deserialize(encoded);
+    }
+}
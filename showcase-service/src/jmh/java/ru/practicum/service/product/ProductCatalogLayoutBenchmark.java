@@ -0,0 +1,153 @@
+package ru.practicum.service.product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductSort;
+
+import java.lang.ref.Reference;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение хранения каталога в памяти: список объектов Product и колонки ProductColumns.
+ * Объем занятой памяти печатается при подготовке, скорость сортировки и фильтрации по цене - замеры.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args=ProductCatalogLayoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductCatalogLayoutBenchmark {
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("100.00");
+
+    private static final BigDecimal MAX_PRICE = new BigDecimal("500.00");
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private List<Product> products;
+
+    private ProductColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long listBytes = retainedBytes(this::generate);
+        products = generate();
+        long columnsBytes = retainedBytes(() -> toColumns(products));
+        columns = toColumns(products);
+        System.out.printf("%n%d товаров: List<Product> %d байт, ProductColumns %d байт%n",
+                catalogSize, listBytes, columnsBytes);
+    }
+
+    @Benchmark
+    public List<Product> sortListByPrice() {
+        return sortList(ProductSort.PRICE_ASC);
+    }
+
+    @Benchmark
+    public int[] sortColumnsByPrice() {
+        return columns.sortedRows(ProductSort.PRICE_ASC);
+    }
+
+    @Benchmark
+    public List<Product> sortListByName() {
+        return sortList(ProductSort.NAME_ASC);
+    }
+
+    @Benchmark
+    public int[] sortColumnsByName() {
+        return columns.sortedRows(ProductSort.NAME_ASC);
+    }
+
+    @Benchmark
+    public int filterListByPrice() {
+        int count = 0;
+        for (Product product : products) {
+            if (product.getPrice().compareTo(MIN_PRICE) >= 0 && product.getPrice().compareTo(MAX_PRICE) <= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int filterColumnsByPrice() {
+        long min = ProductColumns.toMinorUnits(MIN_PRICE);
+        long max = ProductColumns.toMinorUnits(MAX_PRICE);
+        int count = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            long price = columns.priceMinorUnits(row);
+            if (price >= min && price <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<Product> sortList(ProductSort sort) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(sort.getComparator().thenComparing(Product::getUuid, Comparator.naturalOrder()));
+        return sorted;
+    }
+
+    private List<Product> generate() {
+        Random random = new Random(42);
+        List<Product> generated = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            generated.add(Product.builder()
+                    .uuid(new UUID(random.nextLong(), random.nextLong()))
+                    .name("Товар " + random.nextInt(catalogSize))
+                    .description(Product.summaryDescription("Подробное описание товара номер " + i + " для витрины магазина"))
+                    .price(BigDecimal.valueOf(random.nextInt(100_000), ProductColumns.PRICE_SCALE))
+                    .imageUrl("/images/products/" + i + ".png")
+                    .build());
+        }
+        return generated;
+    }
+
+    private static ProductColumns toColumns(List<Product> products) {
+        ProductColumns built = new ProductColumns(products.size());
+        products.forEach(built::add);
+        built.trimToSize();
+        return built;
+    }
+
+    /**
+     * Приблизительный объем памяти, удерживаемый построенной структурой
+     */
+    private static long retainedBytes(Supplier<?> builder) {
+        long before = usedHeap();
+        Object built = builder.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(built);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
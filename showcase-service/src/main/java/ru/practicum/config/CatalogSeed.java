@@ -0,0 +1,12 @@
+package ru.practicum.config;
+
+import java.util.UUID;
+
+/**
+ * Отметка заполнения каталога скриптами инициализации базы данных.
+ * Скрипты пересоздают товары с новыми идентификаторами и вместе с ними - новую отметку
+ *
+ * @param id Идентификатор заполнения (null, если он неизвестен)
+ */
+public record CatalogSeed(UUID id) {
+}
@@ -14,14 +14,18 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.connection.init.CompositeDatabasePopulator;
 import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
 import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.connection.init.ScriptUtils;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.UUID;
 
 @Configuration
 @Profile("prod")
@@ -118,7 +122,25 @@ public class R2dbcConfiguration {
         populator.addScript(new ClassPathResource("data.sql"));
         populator.setSeparator(";");
 
-        initializer.setDatabasePopulator(populator);
+        // Тело триггерной функции содержит ';', поэтому скрипт выполняется целиком
+        ResourceDatabasePopulator triggers = new ResourceDatabasePopulator(new ClassPathResource("product-changes.sql"));
+        triggers.setSqlScriptEncoding("UTF-8");
+        triggers.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+
+        initializer.setDatabasePopulator(new CompositeDatabasePopulator(populator, triggers));
         return initializer;
     }
+
+    /**
+     * Отметка заполнения каталога; читается после выполнения скриптов инициализации
+     */
+    @Bean
+    public CatalogSeed catalogSeed(ConnectionFactoryInitializer databaseInitializer, DatabaseClient databaseClient) {
+        UUID id = databaseClient.sql("SELECT seed_uuid FROM catalog_seed ORDER BY seeded_at DESC LIMIT 1")
+                .map(row -> row.get("seed_uuid", UUID.class))
+                .one()
+                .onErrorResume(e -> Mono.empty())
+                .block(Duration.ofSeconds(30));
+        return new CatalogSeed(id);
+    }
 }
\ No newline at end of file
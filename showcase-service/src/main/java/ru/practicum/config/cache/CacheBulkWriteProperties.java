@@ -0,0 +1,12 @@
+package ru.practicum.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Конфигурация пакетной записи в кеш
+ *
+ * @param batchSize Количество ключей, записываемых одним скриптом
+ */
+@ConfigurationProperties(prefix = "cache.bulk-write")
+public record CacheBulkWriteProperties(int batchSize) {
+}
@@ -0,0 +1,16 @@
+package ru.practicum.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация шины инвалидации локальных кешей узлов
+ *
+ * @param window           Окно, за которое изменения объединяются в одно сообщение
+ * @param maxBatchSize     Максимальное количество изменений в одном сообщении
+ * @param reconnectBackoff Начальная задержка повторной подписки после обрыва соединения
+ */
+@ConfigurationProperties(prefix = "cache.invalidation")
+public record CacheInvalidationProperties(Duration window, int maxBatchSize, Duration reconnectBackoff) {
+}
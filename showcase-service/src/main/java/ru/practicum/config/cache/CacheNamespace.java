@@ -0,0 +1,28 @@
+package ru.practicum.config.cache;
+
+/**
+ * Пространство имен ключей кеша. Ключи начинаются с номера поколения, поэтому несовместимое изменение
+ * кеша сводится к смене поколения: узлы нового поколения не видят старые записи, а те истекают по TTL.
+ * Перезапуск узла кеш не очищает, и остальные узлы продолжают работать с прогретым кешем.
+ */
+public class CacheNamespace {
+
+    /**
+     * Префикс ключей текущего поколения
+     */
+    private final String prefix;
+
+    public CacheNamespace(CacheNamespaceProperties properties) {
+        this.prefix = "v" + properties.generation() + ":";
+    }
+
+    /**
+     * Ключ кеша в текущем поколении
+     *
+     * @param key Ключ без поколения
+     * @return Ключ с префиксом поколения
+     */
+    public String key(String key) {
+        return prefix + key;
+    }
+}
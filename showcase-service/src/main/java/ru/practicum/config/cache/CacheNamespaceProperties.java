@@ -0,0 +1,12 @@
+package ru.practicum.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Конфигурация пространства имен ключей кеша
+ *
+ * @param generation Поколение кеша; увеличивается при несовместимом изменении ключей или значений кеша
+ */
+@ConfigurationProperties(prefix = "cache.namespace")
+public record CacheNamespaceProperties(int generation) {
+}
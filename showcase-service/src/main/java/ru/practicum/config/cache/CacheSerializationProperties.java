@@ -0,0 +1,32 @@
+package ru.practicum.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Конфигурация формата значений в кеше Redis
+ *
+ * @param format Формат записи значений; чтение поддерживает оба формата
+ */
+@ConfigurationProperties(prefix = "cache.serialization")
+public record CacheSerializationProperties(Format format) {
+
+    public CacheSerializationProperties {
+        if (format == null) {
+            format = Format.JSON;
+        }
+    }
+
+    /**
+     * Формат записи значений
+     */
+    public enum Format {
+        /**
+         * Текстовый JSON
+         */
+        JSON,
+        /**
+         * Бинарный Smile с байтом версии формата
+         */
+        SMILE
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.config.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+/**
+ * Фабрика сериализаторов значений кеша в выбранном формате
+ */
+public class CacheSerializerFactory {
+
+    /**
+     * Маппер текстового JSON
+     */
+    private final ObjectMapper jsonMapper;
+
+    /**
+     * Маппер бинарного Smile с теми же модулями, что и JSON
+     */
+    private final ObjectMapper smileMapper;
+
+    /**
+     * Формат записи значений
+     */
+    private final CacheSerializationProperties.Format format;
+
+    public CacheSerializerFactory(ObjectMapper jsonMapper, CacheSerializationProperties properties) {
+        // Повторяющиеся строки (например, ссылки на изображения) кодируются ссылкой на первое вхождение;
+        // флаг этой возможности хранится в заголовке Smile, поэтому заголовок не отключается
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = jsonMapper.copyWith(smileFactory);
+        this.format = properties.format();
+    }
+
+    /**
+     * Создать сериализатор значения
+     *
+     * @param type Класс значения
+     * @return Сериализатор
+     */
+    public <T> RedisSerializer<T> create(Class<T> type) {
+        return create(jsonMapper.getTypeFactory().constructType(type));
+    }
+
+    /**
+     * Создать сериализатор списка значений
+     *
+     * @param elementType Класс элемента списка
+     * @return Сериализатор
+     */
+    public <T> RedisSerializer<List<T>> createList(Class<T> elementType) {
+        return create(jsonMapper.getTypeFactory().constructCollectionType(List.class, elementType));
+    }
+
+    private <T> RedisSerializer<T> create(JavaType type) {
+        return new VersionedJacksonRedisSerializer<>(jsonMapper, smileMapper, type, format);
+    }
+}
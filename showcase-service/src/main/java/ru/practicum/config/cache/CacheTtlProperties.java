@@ -0,0 +1,31 @@
+package ru.practicum.config.cache;
+
+import java.time.Duration;
+
+/**
+ * Мягкий и жесткий TTL записи кеша.
+ * Запись хранится в Redis до жесткого TTL; после мягкого TTL она считается устаревшей:
+ * читатель сразу получает ее, а обновление выполняется в фоне
+ */
+public interface CacheTtlProperties {
+
+    /**
+     * Мягкий TTL: возраст записи, после которого она обновляется в фоне
+     */
+    Duration soft();
+
+    /**
+     * Жесткий TTL: время жизни записи в Redis
+     */
+    Duration hard();
+
+    /**
+     * Проверить, устарела ли запись, по оставшемуся времени жизни
+     *
+     * @param remainingTtl Оставшееся время жизни записи (PTTL), ноль - запись без срока жизни
+     * @return true, если запись старше мягкого TTL
+     */
+    default boolean isStale(Duration remainingTtl) {
+        return !remainingTtl.isZero() && remainingTtl.compareTo(hard().minus(soft())) <= 0;
+    }
+}
@@ -5,15 +5,23 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.util.StringUtils;
 
 @Configuration
+@EnableConfigurationProperties({
+        CacheSerializationProperties.class,
+        CacheNamespaceProperties.class,
+        CacheInvalidationProperties.class,
+        CacheBulkWriteProperties.class
+})
 public class RedisBaseConfig {
 
     @Bean
@@ -30,6 +38,11 @@ public class RedisBaseConfig {
         return new LettuceConnectionFactory(config);
     }
 
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate(ReactiveRedisConnectionFactory rConnectionFactory) {
+        return new ReactiveStringRedisTemplate(rConnectionFactory);
+    }
+
     @Bean
     public ObjectMapper redisObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -38,4 +51,15 @@ public class RedisBaseConfig {
         mapper.registerModule(new Jdk8Module());
         return mapper;
     }
+
+    @Bean
+    public CacheSerializerFactory cacheSerializerFactory(ObjectMapper redisObjectMapper,
+                                                         CacheSerializationProperties properties) {
+        return new CacheSerializerFactory(redisObjectMapper, properties);
+    }
+
+    @Bean
+    public CacheNamespace cacheNamespace(CacheNamespaceProperties properties) {
+        return new CacheNamespace(properties);
+    }
 }
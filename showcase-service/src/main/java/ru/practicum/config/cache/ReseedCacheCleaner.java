@@ -0,0 +1,111 @@
+package ru.practicum.config.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.CatalogSeed;
+import ru.practicum.service.cache.CacheInvalidationBus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Очистка кеша текущего поколения после пересоздания каталога.
+ * Скрипты инициализации создают товары с новыми идентификаторами и новую отметку заполнения ({@link CatalogSeed}).
+ * Кеш очищается один раз на отметку: первый узел, записавший ее в Redis; остальные запуски кеш не трогают.
+ * Выполняется раньше остальных слушателей старта, чтобы прогрев не прочитал устаревшие ключи
+ */
+@Component
+@Profile("prod")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ReseedCacheCleaner implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Шаблоны ключей данных без префикса поколения; отметка заполнения, счетчик шины инвалидации
+     * и блокировки не удаляются
+     */
+    private static final List<String> PATTERNS = List.of(
+            "product:*",
+            "all_products",
+            "all_products:stale",
+            "cart-hash:*",
+            "cart-summary:*"
+    );
+
+    /**
+     * Отметка заполнения каталога, для которой кеш уже очищен
+     */
+    private static final String SEED_KEY = "catalog-seed";
+
+    /**
+     * Размер страницы SCAN и пакета UNLINK
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Максимальное время очистки при старте
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final CacheNamespace cacheNamespace;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final CatalogSeed catalogSeed;
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (catalogSeed.id() == null) {
+            return;
+        }
+
+        boolean reseeded = Boolean.TRUE.equals(claim(catalogSeed.id()).onErrorReturn(false).block(TIMEOUT));
+        if (reseeded) {
+            purge().onErrorResume(e -> Mono.empty()).block(TIMEOUT);
+            cacheInvalidationBus.publishResync();
+        }
+    }
+
+    /**
+     * Записать отметку заполнения в Redis
+     *
+     * @param seedId Идентификатор заполнения
+     * @return true, если прежняя отметка другая и очищать кеш должен этот узел
+     */
+    Mono<Boolean> claim(UUID seedId) {
+        String value = seedId.toString();
+        return stringRedisTemplate.opsForValue().getAndSet(cacheNamespace.key(SEED_KEY), value)
+                .map(previous -> !previous.equals(value))
+                .defaultIfEmpty(true);
+    }
+
+    /**
+     * Удалить ключи данных текущего поколения
+     *
+     * @return Количество удаленных ключей
+     */
+    Mono<Long> purge() {
+        return Flux.fromIterable(PATTERNS)
+                .map(cacheNamespace::key)
+                .concatMap(pattern -> stringRedisTemplate.scan(ScanOptions.scanOptions()
+                        .match(pattern)
+                        .count(BATCH_SIZE)
+                        .build()))
+                .buffer(BATCH_SIZE)
+                .concatMap(keys -> stringRedisTemplate.unlink(keys.toArray(String[]::new)))
+                .reduce(0L, Long::sum);
+    }
+}
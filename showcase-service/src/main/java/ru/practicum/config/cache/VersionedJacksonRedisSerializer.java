@@ -0,0 +1,88 @@
+package ru.practicum.config.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * Сериализатор значений кеша с поддержкой нескольких форматов.
+ * Бинарные значения начинаются с байта версии формата, значения без него читаются как JSON,
+ * поэтому узлы с новым форматом читают записи старых узлов и формат меняется без сброса кеша.
+ *
+ * @param <T> Тип значения
+ */
+public class VersionedJacksonRedisSerializer<T> implements RedisSerializer<T> {
+
+    /**
+     * Версия формата Smile. JSON-документ не может начинаться с этого байта
+     */
+    static final byte SMILE_VERSION = 0x01;
+
+    /**
+     * Маппер текстового JSON
+     */
+    private final ObjectMapper jsonMapper;
+
+    /**
+     * Маппер бинарного Smile
+     */
+    private final ObjectMapper smileMapper;
+
+    /**
+     * Тип значения
+     */
+    private final JavaType type;
+
+    /**
+     * Формат записи значений
+     */
+    private final CacheSerializationProperties.Format format;
+
+    public VersionedJacksonRedisSerializer(ObjectMapper jsonMapper, ObjectMapper smileMapper, JavaType type,
+                                           CacheSerializationProperties.Format format) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = smileMapper;
+        this.type = type;
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        try {
+            if (format == CacheSerializationProperties.Format.JSON) {
+                return jsonMapper.writeValueAsBytes(value);
+            }
+
+            byte[] payload = smileMapper.writeValueAsBytes(value);
+            byte[] bytes = new byte[payload.length + 1];
+            bytes[0] = SMILE_VERSION;
+            System.arraycopy(payload, 0, bytes, 1, payload.length);
+            return bytes;
+        } catch (IOException e) {
+            throw new SerializationException("Не удалось сериализовать значение кеша", e);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            if (bytes[0] == SMILE_VERSION) {
+                return smileMapper.readValue(bytes, 1, bytes.length - 1, type);
+            }
+            return jsonMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new SerializationException("Не удалось десериализовать значение кеша", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.config.cache.cart;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.config.cache.CacheTtlProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация времени жизни корзин в Redis
+ *
+ * @param soft Возраст записи, после которого она обновляется в фоне
+ * @param hard Время жизни записи в Redis
+ */
+@ConfigurationProperties(prefix = "cache.cart.ttl")
+public record CartCacheTtlProperties(Duration soft, Duration hard) implements CacheTtlProperties {
+}
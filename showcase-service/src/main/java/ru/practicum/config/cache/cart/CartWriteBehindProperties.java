@@ -0,0 +1,20 @@
+package ru.practicum.config.cache.cart;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация отложенной записи корзин в базу данных
+ *
+ * @param enabled       Записывать ли изменения корзин в базу данных в фоне вместо записи в запросе
+ * @param flushInterval Период чтения журнала изменений корзин
+ * @param batchSize     Максимальное количество записей журнала, читаемых за один раз
+ * @param claimIdle     Время, после которого необработанные записи журнала другого узла забираются на этот узел
+ */
+@ConfigurationProperties(prefix = "cache.cart.write-behind")
+public record CartWriteBehindProperties(boolean enabled,
+                                        Duration flushInterval,
+                                        int batchSize,
+                                        Duration claimIdle) {
+}
@@ -0,0 +1,20 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация перестроения кеша каталога товаров в Redis
+ *
+ * @param lockLease    Срок аренды блокировки перестроения
+ * @param waitTimeout  Сколько узел без блокировки ждет, пока другой узел перестроит кеш
+ * @param pollInterval Интервал проверки кеша во время ожидания
+ * @param staleTtl     Время жизни устаревшей копии каталога, которая отдается, если ожидание не дождалось
+ */
+@ConfigurationProperties(prefix = "cache.product.rebuild")
+public record ProductCacheRebuildProperties(Duration lockLease,
+                                            Duration waitTimeout,
+                                            Duration pollInterval,
+                                            Duration staleTtl) {
+}
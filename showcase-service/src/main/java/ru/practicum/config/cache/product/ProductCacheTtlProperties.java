@@ -0,0 +1,16 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.config.cache.CacheTtlProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация времени жизни товаров и каталога в Redis
+ *
+ * @param soft Возраст записи, после которого она обновляется в фоне
+ * @param hard Время жизни записи в Redis
+ */
+@ConfigurationProperties(prefix = "cache.product.ttl")
+public record ProductCacheTtlProperties(Duration soft, Duration hard) implements CacheTtlProperties {
+}
@@ -0,0 +1,12 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Конфигурация хранения каталога товаров в Redis
+ *
+ * @param batchSize Количество товаров в одной команде записи или чтения каталога
+ */
+@ConfigurationProperties(prefix = "cache.product.catalog")
+public record ProductCatalogCacheProperties(int batchSize) {
+}
@@ -0,0 +1,22 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация захвата изменений таблицы товаров через LISTEN/NOTIFY
+ *
+ * @param enabled          Слушать ли уведомления об изменениях товаров
+ * @param window           Окно, за которое изменения объединяются в один пакет
+ * @param maxBatchSize     Максимальное количество изменений в пакете
+ * @param reconnectBackoff Начальная задержка переподключения после обрыва соединения
+ * @param writerLease      Срок аренды узла, записывающего изменения в общий кеш
+ */
+@ConfigurationProperties(prefix = "cache.product.change-capture")
+public record ProductChangeCaptureProperties(boolean enabled,
+                                             Duration window,
+                                             int maxBatchSize,
+                                             Duration reconnectBackoff,
+                                             Duration writerLease) {
+}
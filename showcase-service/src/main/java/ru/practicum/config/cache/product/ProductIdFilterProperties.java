@@ -0,0 +1,22 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация фильтра известных идентификаторов товаров
+ *
+ * @param expectedInsertions Минимальная емкость фильтра Блума в товарах
+ * @param falsePositiveRate  Допустимая доля ложноположительных ответов фильтра
+ * @param rebuildInterval    Интервал перестроения фильтра по таблице товаров
+ * @param negativeTtl        Время жизни записи о ненайденном товаре
+ * @param negativeMaxSize    Максимальное количество записей о ненайденных товарах
+ */
+@ConfigurationProperties(prefix = "cache.product.id-filter")
+public record ProductIdFilterProperties(int expectedInsertions,
+                                        double falsePositiveRate,
+                                        Duration rebuildInterval,
+                                        Duration negativeTtl,
+                                        long negativeMaxSize) {
+}
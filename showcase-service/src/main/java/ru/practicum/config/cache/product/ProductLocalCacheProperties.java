@@ -0,0 +1,16 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация локального (in-process) кеша товаров
+ *
+ * @param maxWeight         Максимальный вес кеша (в товарах)
+ * @param expireAfterWrite  Время жизни записи после загрузки
+ * @param refreshAfterWrite Время, после которого запись обновляется в фоне при обращении
+ */
+@ConfigurationProperties(prefix = "cache.product.local")
+public record ProductLocalCacheProperties(long maxWeight, Duration expireAfterWrite, Duration refreshAfterWrite) {
+}
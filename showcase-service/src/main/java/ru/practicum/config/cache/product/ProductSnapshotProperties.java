@@ -0,0 +1,19 @@
+package ru.practicum.config.cache.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Конфигурация снимка каталога товаров на локальном диске узла
+ *
+ * @param enabled       Сохранять снимок и читать из него каталог при старте и при недоступности Redis и базы данных
+ * @param path          Файл снимка
+ * @param writeInterval Интервал перезаписи снимка по таблице товаров
+ */
+@ConfigurationProperties(prefix = "cache.product.snapshot")
+public record ProductSnapshotProperties(boolean enabled,
+                                        Path path,
+                                        Duration writeInterval) {
+}
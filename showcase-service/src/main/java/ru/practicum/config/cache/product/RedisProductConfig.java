@@ -1,30 +1,36 @@
 package ru.practicum.config.cache.product;
 
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import ru.practicum.config.cache.CacheSerializerFactory;
 import ru.practicum.dto.product.cache.ProductCacheDto;
 
-import java.util.List;
-
 @Configuration
 @RequiredArgsConstructor
+@EnableConfigurationProperties({
+        ProductLocalCacheProperties.class,
+        ProductCacheRebuildProperties.class,
+        ProductCacheTtlProperties.class,
+        ProductCatalogCacheProperties.class,
+        ProductChangeCaptureProperties.class,
+        ProductIdFilterProperties.class,
+        ProductSnapshotProperties.class
+})
 public class RedisProductConfig {
 
     private final ReactiveRedisConnectionFactory rConnectionFactory;
-    private final ObjectMapper redisObjectMapper;
+    private final CacheSerializerFactory cacheSerializerFactory;
 
     @Bean
     public ReactiveRedisTemplate<String, ProductCacheDto> productCacheTemplate() {
-        Jackson2JsonRedisSerializer<ProductCacheDto> serializer =
-                new Jackson2JsonRedisSerializer<>(redisObjectMapper, ProductCacheDto.class);
+        RedisSerializer<ProductCacheDto> serializer = cacheSerializerFactory.create(ProductCacheDto.class);
 
         RedisSerializationContext<String, ProductCacheDto> context = RedisSerializationContext
                 .<String, ProductCacheDto>newSerializationContext(new StringRedisSerializer())
@@ -34,15 +40,11 @@ public class RedisProductConfig {
     }
 
     @Bean
-    public ReactiveRedisTemplate<String, List<ProductCacheDto>> productListCacheTemplate() {
-        JavaType type = redisObjectMapper.getTypeFactory()
-                .constructCollectionType(List.class, ProductCacheDto.class);
-        Jackson2JsonRedisSerializer<List<ProductCacheDto>> serializer =
-                new Jackson2JsonRedisSerializer<>(redisObjectMapper, type);
-
-        RedisSerializationContext<String, List<ProductCacheDto>> context = RedisSerializationContext
-                .<String, List<ProductCacheDto>>newSerializationContext(new StringRedisSerializer())
-                .value(serializer)
+    public ReactiveRedisTemplate<String, byte[]> productCatalogCacheTemplate() {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                .value(RedisSerializer.byteArray())
+                .hashValue(RedisSerializer.byteArray())
                 .build();
 
         return new ReactiveRedisTemplate<>(rConnectionFactory, context);
@@ -0,0 +1,15 @@
+package ru.practicum.config.cart;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация параллельных изменений корзины
+ *
+ * @param maxRetries   Число повторов изменения после конфликта версий
+ * @param retryBackoff Начальная задержка повтора: растет экспоненциально со случайным разбросом
+ */
+@ConfigurationProperties(prefix = "cart.concurrency")
+public record CartConcurrencyProperties(int maxRetries, Duration retryBackoff) {
+}
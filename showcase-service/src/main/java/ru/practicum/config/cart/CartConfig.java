@@ -0,0 +1,9 @@
+package ru.practicum.config.cart;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CartConcurrencyProperties.class)
+public class CartConfig {
+}
@@ -0,0 +1,9 @@
+package ru.practicum.config.search;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CatalogSearchProperties.class)
+public class CatalogSearchConfig {
+}
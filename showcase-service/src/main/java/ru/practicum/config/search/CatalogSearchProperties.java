@@ -0,0 +1,27 @@
+package ru.practicum.config.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Конфигурация поиска по каталогу товаров
+ *
+ * @param engine Движок полнотекстового поиска
+ */
+@ConfigurationProperties(prefix = "catalog.search")
+public record CatalogSearchProperties(Engine engine) {
+
+    /**
+     * Движок поиска
+     */
+    public enum Engine {
+        /**
+         * Полнотекстовый и триграммный поиск в Postgres
+         */
+        DATABASE,
+
+        /**
+         * Инвертированный индекс в памяти приложения
+         */
+        MEMORY
+    }
+}
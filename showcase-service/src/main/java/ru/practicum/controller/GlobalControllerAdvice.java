@@ -39,9 +39,9 @@ public class GlobalControllerAdvice {
             return Mono.empty();
         }
 
-        return cartService.get(user.getUuid())
-                .map(cartMapper::cartToCartDto)
-                .doOnNext(cartDto -> model.addAttribute("cart", cartDto))
+        return cartService.getSummary(user.getUuid())
+                .map(cartMapper::cartSummaryToCartSummaryDto)
+                .doOnNext(cartSummaryDto -> model.addAttribute("cartSummary", cartSummaryDto))
                 .then();
     }
 }
@@ -40,13 +40,15 @@ public class ProductViewController {
                                         @RequestParam(defaultValue = "10") int size,
                                         @RequestParam(required = false) String search,
                                         @RequestParam(required = false) String sort,
+                                        @RequestParam(required = false) String cursor,
                                         Model model) {
 
-      return productService.getProducts(search, sort, PageRequest.of(page, size))
+      return productService.getProducts(search, sort, cursor, PageRequest.of(page, size))
                 .map(productPage -> {
                     model.addAttribute("products", productPage.map(productMapper::productToProductOutDto));
                     model.addAttribute("search", search);
                     model.addAttribute("sort", sort);
+                    model.addAttribute("nextCursor", productPage.getNextCursor());
 
                     model.addAttribute("totalPages", productPage.getTotalPages());
                     model.addAttribute("currentPage", productPage.getNumber());
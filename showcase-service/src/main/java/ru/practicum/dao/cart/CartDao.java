@@ -38,6 +38,12 @@ public class CartDao {
     @Column("total_price")
     private BigDecimal totalPrice;
 
+    /**
+     * Версия корзины
+     */
+    @Column("version")
+    private long version;
+
     /**
      * Дата создания
      */
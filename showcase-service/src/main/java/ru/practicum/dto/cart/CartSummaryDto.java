@@ -0,0 +1,24 @@
+package ru.practicum.dto.cart;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO сводки корзины
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSummaryDto {
+    /**
+     * Количество товаров в корзине
+     */
+    private int itemCount;
+
+    /**
+     * Стоимость корзины
+     */
+    private BigDecimal totalPrice;
+}
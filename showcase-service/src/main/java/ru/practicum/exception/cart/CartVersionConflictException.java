@@ -0,0 +1,13 @@
+package ru.practicum.exception.cart;
+
+import org.springframework.http.HttpStatus;
+import ru.practicum.exception.BaseException;
+
+/**
+ * Исключение для изменения корзины, которую успел изменить параллельный запрос
+ */
+public class CartVersionConflictException extends BaseException {
+    public CartVersionConflictException(String message) {
+        super(message, HttpStatus.CONFLICT, "Корзина изменена параллельным запросом.");
+    }
+}
@@ -3,7 +3,6 @@ package ru.practicum.mapper.cart;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.dao.cart.CartItemDao;
-import ru.practicum.dto.cart.cache.CartItemCacheDto;
 import ru.practicum.dto.cart.CartItemDto;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.cart.CartItem;
@@ -44,23 +43,4 @@ public interface CartItemMapper {
     @Mapping(target = "createdAt", source = "cartItemDao.createdAt")
     @Mapping(target = "product", expression = "java(cartItemDao.getProductUuid() != null ? Product.builder().uuid(cartItemDao.getProductUuid()).build() : null)")
     CartItem cartItemDaoToCartItem(CartItemDao cartItemDao);
-
-    /**
-     * Смаппить товар корзины в DTO товара корзины для кеша
-     *
-     * @param cartItem Товар корзины
-     * @return DTO товара корзины для кеша
-     */
-    @Mapping(target = "productUuid", expression = "java(cartItem.getProduct() != null ? cartItem.getProduct().getUuid() : null)")
-    CartItemCacheDto cartItemToCartItemCacheDto(CartItem cartItem);
-
-    /**
-     * Смаппить DTO товара корзины для кеша в товар корзины
-     *
-     * @param cartItemCacheDto DTO товара корзины для кеша
-     * @return Товар корзины
-     */
-    @Mapping(target = "product", expression = "java(cartItemCacheDto.getProductUuid() != null ? Product.builder().uuid(cartItemCacheDto.getProductUuid()).build() : null)")
-    @Mapping(target = "createdAt", ignore = true)
-    CartItem cartItemCacheDtoToCartItem(CartItemCacheDto cartItemCacheDto);
 }
@@ -3,9 +3,10 @@ package ru.practicum.mapper.cart;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.dao.cart.CartDao;
-import ru.practicum.dto.cart.cache.CartCacheDto;
 import ru.practicum.dto.cart.CartDto;
+import ru.practicum.dto.cart.CartSummaryDto;
 import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartSummary;
 
 /**
  * Маппер корзины товаров
@@ -21,6 +22,14 @@ public interface CartMapper {
      */
     CartDto cartToCartDto(Cart cartDto);
 
+    /**
+     * Смаппить сводку корзины в DTO сводки корзины
+     *
+     * @param cartSummary Сводка корзины
+     * @return DTO сводки корзины
+     */
+    CartSummaryDto cartSummaryToCartSummaryDto(CartSummary cartSummary);
+
     /**
      * Смаппить корзину в DAO корзины
      *
@@ -37,22 +46,4 @@ public interface CartMapper {
      */
     @Mapping(target = "items", ignore = true)
     Cart cartDaoToCart(CartDao cartDao);
-
-    /**
-     * Смаппить корзину в DTO корзины для кеша
-     *
-     * @param cart Корзина
-     * @return DTO корзины для кеша
-     */
-    CartCacheDto toCacheDto(Cart cart);
-
-    /**
-     * Смаппить DTO корзины для кеша в корзину
-     *
-     * @param cartCacheDto DTO корзины для кеша
-     * @return Корзина
-     */
-    @Mapping(target = "createdAt", ignore = true)
-    @Mapping(target = "updatedAt", ignore = true)
-    Cart fromCacheDto(CartCacheDto cartCacheDto);
 }
@@ -57,6 +57,24 @@ public interface ProductMapper {
      */
     ProductCacheDto productToCacheDto(Product product);
 
+    /**
+     * Смаппить товар в краткое DTO кеша товаров для списков каталога: описание сокращается
+     *
+     * @param product Товар
+     * @return Краткое DTO кеша товаров
+     */
+    @Mapping(target = "description", expression = "java(Product.summaryDescription(product.getDescription()))")
+    ProductCacheDto productToSummaryCacheDto(Product product);
+
+    /**
+     * Получить краткое представление товара для списков каталога
+     *
+     * @param product Товар
+     * @return Товар с сокращенным описанием
+     */
+    @Mapping(target = "description", expression = "java(Product.summaryDescription(product.getDescription()))")
+    Product productToSummary(Product product);
+
     /**
      * Смаппить DTO кеша товаров в товар
      *
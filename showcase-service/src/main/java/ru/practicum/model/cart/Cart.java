@@ -38,6 +38,11 @@ public class Cart {
      */
     private BigDecimal totalPrice;
 
+    /**
+     * Версия корзины: увеличивается при каждом изменении, изменение применяется только к ожидаемой версии
+     */
+    private long version;
+
     /**
      * Дата создания
      */
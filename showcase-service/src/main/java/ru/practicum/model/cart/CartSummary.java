@@ -0,0 +1,25 @@
+package ru.practicum.model.cart;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Сводка корзины товаров для шапки страниц
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSummary {
+    /**
+     * Количество товаров в корзине
+     */
+    private int itemCount;
+
+    /**
+     * Стоимость корзины товаров
+     */
+    private BigDecimal totalPrice;
+}
@@ -17,6 +17,11 @@ import java.util.UUID;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Product {
 
+    /**
+     * Длина описания в кратком представлении товара для списков каталога
+     */
+    public static final int SUMMARY_DESCRIPTION_LENGTH = 160;
+
     /**
      * Идентификатор
      */
@@ -51,4 +56,16 @@ public class Product {
      * Ссылка на изображение
      */
     private String imageUrl;
+
+    /**
+     * Описание для краткого представления товара: начало полного описания
+     *
+     * @param description Полное описание
+     * @return Описание не длиннее {@link #SUMMARY_DESCRIPTION_LENGTH}
+     */
+    public static String summaryDescription(String description) {
+        return description == null || description.length() <= SUMMARY_DESCRIPTION_LENGTH
+                ? description
+                : description.substring(0, SUMMARY_DESCRIPTION_LENGTH);
+    }
 }
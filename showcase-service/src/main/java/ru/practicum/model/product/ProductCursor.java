@@ -0,0 +1,78 @@
+package ru.practicum.model.product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Курсор постраничной навигации по каталогу товаров (keyset-пагинация).
+ * Хранит значение ключа сортировки и идентификатор последнего товара на странице.
+ *
+ * @param sort Сортировка, для которой выдан курсор (null - порядок по идентификатору)
+ * @param key  Значение ключа сортировки последнего товара
+ * @param uuid Идентификатор последнего товара
+ */
+public record ProductCursor(ProductSort sort, String key, UUID uuid) {
+
+    private static final String SEPARATOR = "|";
+    private static final String NO_SORT = "-";
+
+    /**
+     * Создать курсор, указывающий на товар
+     *
+     * @param sort    Сортировка
+     * @param product Последний товар страницы
+     * @return Курсор
+     */
+    public static ProductCursor of(ProductSort sort, Product product) {
+        if (sort == null) {
+            return new ProductCursor(null, null, product.getUuid());
+        }
+
+        String key = switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> product.getPrice().toPlainString();
+            case NAME_ASC, NAME_DESC -> product.getName();
+        };
+        return new ProductCursor(sort, key, product.getUuid());
+    }
+
+    /**
+     * Закодировать курсор в непрозрачный токен для передачи в URL
+     *
+     * @return Токен курсора
+     */
+    public String encode() {
+        String raw = (sort == null ? NO_SORT : sort.getValue()) + SEPARATOR + uuid + SEPARATOR + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Раскодировать токен курсора
+     *
+     * @param token Токен курсора
+     * @return Курсор или пустое значение, если токен некорректен
+     */
+    public static Optional<ProductCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+
+            ProductSort sort = NO_SORT.equals(parts[0]) ? null : ProductSort.fromString(parts[0]).orElseThrow();
+            String key = sort == null ? null : parts[2];
+            if (sort != null && key.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ProductCursor(sort, key, UUID.fromString(parts[1])));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.model.product;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Страница каталога товаров с курсором на следующую страницу
+ */
+@Getter
+public class ProductPage extends PageImpl<Product> {
+
+    /**
+     * Токен курсора следующей страницы (null, если страница последняя)
+     */
+    private final String nextCursor;
+
+    public ProductPage(List<Product> content, Pageable pageable, long total, String nextCursor) {
+        super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+}
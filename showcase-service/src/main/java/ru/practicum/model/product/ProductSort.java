@@ -8,25 +8,25 @@ import java.util.Optional;
  * Сортировки товаров
  */
 public enum ProductSort {
-    PRICE_ASC("price-asc") {
+    PRICE_ASC("price-asc", false) {
         @Override
         public Comparator<Product> getComparator() {
             return Comparator.comparing(Product::getPrice);
         }
     },
-    PRICE_DESC("price-desc") {
+    PRICE_DESC("price-desc", true) {
         @Override
         public Comparator<Product> getComparator() {
             return Comparator.comparing(Product::getPrice).reversed();
         }
     },
-    NAME_ASC("name-asc") {
+    NAME_ASC("name-asc", false) {
         @Override
         public Comparator<Product> getComparator() {
             return Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER);
         }
     },
-    NAME_DESC("name-desc") {
+    NAME_DESC("name-desc", true) {
         @Override
         public Comparator<Product> getComparator() {
             return Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER).reversed();
@@ -35,12 +35,36 @@ public enum ProductSort {
 
     private final String value;
 
-    ProductSort(String value) {
+    /**
+     * Сортировка по убыванию
+     */
+    private final boolean descending;
+
+    ProductSort(String value, boolean descending) {
         this.value = value;
+        this.descending = descending;
     }
 
     public abstract Comparator<Product> getComparator();
 
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Сортировка по возрастанию по тому же ключу
+     */
+    public ProductSort ascending() {
+        return switch (this) {
+            case PRICE_ASC, PRICE_DESC -> PRICE_ASC;
+            case NAME_ASC, NAME_DESC -> NAME_ASC;
+        };
+    }
+
     public static Optional<ProductSort> fromString(String value) {
         return Arrays.stream(values())
                 .filter(opt -> opt.value.equalsIgnoreCase(value))
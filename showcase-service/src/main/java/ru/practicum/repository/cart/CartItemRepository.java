@@ -16,6 +16,29 @@ import java.util.UUID;
 @Repository
 public interface CartItemRepository extends ReactiveCrudRepository<CartItemDao, UUID> {
 
+    /**
+     * Стоимость остальных товаров корзины :cartUuid, кроме товара :productUuid.
+     * Все части запроса видят товары корзины до его начала, поэтому измененный товар учитывается отдельно
+     */
+    String OTHER_ITEMS_TOTAL = """
+            SELECT coalesce(sum(p.price * i.quantity), 0)
+            FROM cart_items i JOIN products p ON p.product_uuid = i.product_uuid
+            WHERE i.cart_uuid = :cartUuid AND i.product_uuid <> :productUuid""";
+
+    /**
+     * Изменение корзины :cartUuid, если ее версия равна :version: новая версия, время обновления и стоимость -
+     * остальные товары и товар :productUuid в количестве из saved_quantity.
+     * Если корзину успели изменить, saved_cart пуст и запрос не меняет ни корзину, ни ее товары
+     */
+    String SAVE_CART = """
+            saved_cart AS (
+                UPDATE carts SET version = version + 1, updated_at = CURRENT_TIMESTAMP, total_price = (""" + OTHER_ITEMS_TOTAL + """
+            ) + coalesce((SELECT p.price * q.quantity FROM saved_quantity q JOIN products p ON p.product_uuid = :productUuid), 0)
+                WHERE cart_uuid = :cartUuid AND version = :version
+                RETURNING cart_uuid
+            )
+            """;
+
     /**
      * Получить товары корзины по идентификатору корзины
      *
@@ -25,6 +48,67 @@ public interface CartItemRepository extends ReactiveCrudRepository<CartItemDao,
     @Query("SELECT * FROM cart_items WHERE cart_uuid = :cartUuid")
     Flux<CartItemDao> findByCartUuid(UUID cartUuid);
 
+    /**
+     * Добавить товар в корзину версии version или увеличить его количество и пересчитать стоимость корзины
+     * одним запросом
+     *
+     * @param cartUuid    Идентификатор корзины
+     * @param productUuid Идентификатор товара
+     * @param quantity    Прирост количества
+     * @param version     Ожидаемая версия корзины
+     * @return DAO сохраненного товара корзины или пустой результат, если версия корзины изменилась
+     */
+    @Query("""
+            WITH saved_quantity (quantity) AS (
+                SELECT coalesce((SELECT quantity FROM cart_items
+                                 WHERE cart_uuid = :cartUuid AND product_uuid = :productUuid), 0) + :quantity
+            ),
+            """ + SAVE_CART + """
+            INSERT INTO cart_items (cart_uuid, product_uuid, quantity)
+            SELECT cart_uuid, :productUuid, :quantity FROM saved_cart
+            ON CONFLICT (cart_uuid, product_uuid) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity
+            RETURNING *""")
+    Mono<CartItemDao> addItem(UUID cartUuid, UUID productUuid, int quantity, long version);
+
+    /**
+     * Установить количество товара в корзине версии version и пересчитать стоимость корзины одним запросом
+     *
+     * @param cartUuid    Идентификатор корзины
+     * @param productUuid Идентификатор товара
+     * @param quantity    Количество
+     * @param version     Ожидаемая версия корзины
+     * @return DAO сохраненного товара корзины или пустой результат, если версия корзины изменилась
+     */
+    @Query("""
+            WITH saved_quantity (quantity) AS (
+                SELECT :quantity
+            ),
+            """ + SAVE_CART + """
+            INSERT INTO cart_items (cart_uuid, product_uuid, quantity)
+            SELECT cart_uuid, :productUuid, :quantity FROM saved_cart
+            ON CONFLICT (cart_uuid, product_uuid) DO UPDATE SET quantity = EXCLUDED.quantity
+            RETURNING *""")
+    Mono<CartItemDao> setItemQuantity(UUID cartUuid, UUID productUuid, int quantity, long version);
+
+    /**
+     * Удалить товар из корзины версии version и пересчитать стоимость корзины одним запросом
+     *
+     * @param cartUuid    Идентификатор корзины
+     * @param productUuid Идентификатор товара
+     * @param version     Ожидаемая версия корзины
+     * @return 1, если корзина изменена, 0 - если версия корзины изменилась
+     */
+    @Query("""
+            WITH saved_quantity (quantity) AS (
+                SELECT 0
+            ),
+            """ + SAVE_CART + ", " + """
+            deleted_item AS (
+                DELETE FROM cart_items WHERE cart_uuid IN (SELECT cart_uuid FROM saved_cart) AND product_uuid = :productUuid
+            )
+            SELECT count(*) FROM saved_cart""")
+    Mono<Long> removeItem(UUID cartUuid, UUID productUuid, long version);
+
     /**
      * Удалить товары корзины по идентификатору корзины
      *
@@ -12,7 +12,7 @@ import java.util.UUID;
  * Репозиторий корзины товаров
  */
 @Repository
-public interface CartRepository extends ReactiveCrudRepository<CartDao, UUID> {
+public interface CartRepository extends ReactiveCrudRepository<CartDao, UUID>, CartRepositoryCustom {
 
     /**
      * Получить корзину по идентификатору пользователя
@@ -21,4 +21,23 @@ public interface CartRepository extends ReactiveCrudRepository<CartDao, UUID> {
      */
     @Query("SELECT * FROM carts WHERE user_uuid = :userUuid")
     Mono<CartDao> findByUserUuid(UUID userUuid);
+
+    /**
+     * Удалить все товары из корзины версии version одним запросом
+     *
+     * @param cartUuid Идентификатор корзины
+     * @param version  Ожидаемая версия корзины
+     * @return 1, если корзина очищена, 0 - если версия корзины изменилась
+     */
+    @Query("""
+            WITH saved_cart AS (
+                UPDATE carts SET version = version + 1, updated_at = CURRENT_TIMESTAMP, total_price = 0
+                WHERE cart_uuid = :cartUuid AND version = :version
+                RETURNING cart_uuid
+            ),
+            deleted_items AS (
+                DELETE FROM cart_items WHERE cart_uuid IN (SELECT cart_uuid FROM saved_cart)
+            )
+            SELECT count(*) FROM saved_cart""")
+    Mono<Long> clearCart(UUID cartUuid, long version);
 }
@@ -0,0 +1,20 @@
+package ru.practicum.repository.cart;
+
+import reactor.core.publisher.Mono;
+import ru.practicum.model.cart.Cart;
+
+import java.util.List;
+
+/**
+ * Пакетная запись корзин товаров
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Записать состояние корзин одним запросом: стоимость корзин, количество товаров,
+     * добавленные и удаленные товары. Корзины, которых нет в базе данных, пропускаются
+     *
+     * @param carts Корзины с товарами
+     */
+    Mono<Void> saveCarts(List<Cart> carts);
+}
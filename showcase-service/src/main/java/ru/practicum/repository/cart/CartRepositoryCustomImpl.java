@@ -0,0 +1,94 @@
+package ru.practicum.repository.cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    /**
+     * Пустой набор товаров корзин: VALUES не может быть пустым
+     */
+    private static final String NO_ITEMS = "SELECT NULL::uuid, NULL::uuid, NULL::int WHERE false";
+
+    /**
+     * Запись корзин одним запросом. Все части запроса видят данные до его начала и затрагивают
+     * непересекающиеся строки: товары корзины сохраняются upsert по (cart_uuid, product_uuid),
+     * удаляются товары, которых больше нет в корзине. Корзина записывается, только если ее версия новее
+     * версии в базе данных, поэтому запоздавшая запись не затирает более новое состояние
+     */
+    private static final String SAVE_CARTS_SQL = """
+            WITH input_carts (cart_uuid, total_price, version) AS (VALUES %s),
+            input_items (cart_uuid, product_uuid, quantity) AS (%s),
+            saved_carts AS (
+                UPDATE carts c SET total_price = i.total_price, version = i.version, updated_at = CURRENT_TIMESTAMP
+                FROM input_carts i
+                WHERE c.cart_uuid = i.cart_uuid AND c.version < i.version
+                RETURNING c.cart_uuid
+            ),
+            deleted_items AS (
+                DELETE FROM cart_items ci
+                WHERE ci.cart_uuid IN (SELECT cart_uuid FROM saved_carts)
+                  AND NOT EXISTS (SELECT 1 FROM input_items i
+                                  WHERE i.cart_uuid = ci.cart_uuid AND i.product_uuid = ci.product_uuid)
+            )
+            INSERT INTO cart_items (cart_uuid, product_uuid, quantity)
+            SELECT i.cart_uuid, i.product_uuid, i.quantity
+            FROM input_items i
+            WHERE i.cart_uuid IN (SELECT cart_uuid FROM saved_carts)
+            ON CONFLICT (cart_uuid, product_uuid) DO UPDATE SET quantity = EXCLUDED.quantity
+            """;
+
+    /**
+     * Шаблон R2DBC
+     */
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Mono<Void> saveCarts(List<Cart> carts) {
+        if (carts == null || carts.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        List<String> cartRows = new ArrayList<>(carts.size());
+        List<String> itemRows = new ArrayList<>();
+        for (Cart cart : carts) {
+            int cartIndex = cartRows.size();
+            cartRows.add("(:cart" + cartIndex + ", :total" + cartIndex + ", :version" + cartIndex + ")");
+            params.put("cart" + cartIndex, cart.getUuid());
+            params.put("total" + cartIndex, cart.getTotalPrice() == null ? BigDecimal.ZERO : cart.getTotalPrice());
+            params.put("version" + cartIndex, cart.getVersion());
+
+            List<CartItem> items = cart.getItems() == null ? List.of() : cart.getItems();
+            for (CartItem item : items) {
+                int itemIndex = itemRows.size();
+                itemRows.add("(:cart" + cartIndex + ", :product" + itemIndex + ", :quantity" + itemIndex + ")");
+                params.put("product" + itemIndex, item.getProduct().getUuid());
+                params.put("quantity" + itemIndex, item.getQuantity());
+            }
+        }
+
+        String sql = SAVE_CARTS_SQL.formatted(String.join(", ", cartRows),
+                itemRows.isEmpty() ? NO_ITEMS : "VALUES " + String.join(", ", itemRows));
+        return bindAll(template.getDatabaseClient().sql(sql), params)
+                .then();
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, Map<String, Object> params) {
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+}
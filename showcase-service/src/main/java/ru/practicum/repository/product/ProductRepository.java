@@ -1,7 +1,9 @@
 package ru.practicum.repository.product;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import ru.practicum.dao.product.ProductDao;
 
 import java.util.UUID;
@@ -10,5 +12,13 @@ import java.util.UUID;
  * Репозиторий товаров
  */
 @Repository
-public interface ProductRepository extends ReactiveCrudRepository<ProductDao, UUID> {
+public interface ProductRepository extends ReactiveCrudRepository<ProductDao, UUID>, ProductRepositoryCustom {
+
+    /**
+     * Получить идентификаторы всех товаров
+     *
+     * @return Идентификаторы товаров
+     */
+    @Query("SELECT product_uuid FROM products")
+    Flux<UUID> findAllIds();
 }
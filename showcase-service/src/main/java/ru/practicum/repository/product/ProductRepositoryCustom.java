@@ -0,0 +1,37 @@
+package ru.practicum.repository.product;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.dao.product.ProductDao;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductSort;
+
+/**
+ * Запросы каталога товаров с фильтрацией, сортировкой и пагинацией на стороне базы данных
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Получить страницу каталога товаров.
+     * Если передан курсор, страница начинается сразу после него (keyset-пагинация) и смещение не применяется.
+     * Поиск выполняется по названию и описанию: полнотекстово с учетом морфологии и префиксов слов,
+     * а также по триграммам для запросов с опечатками. Поиск без сортировки упорядочен по релевантности,
+     * курсор в этом случае не применяется.
+     *
+     * @param search Поисковый запрос (может быть пустым)
+     * @param sort   Сортировка (null - порядок по идентификатору)
+     * @param cursor Курсор последнего товара предыдущей страницы (может быть null)
+     * @param limit  Количество товаров
+     * @param offset Смещение (используется только без курсора)
+     * @return DAO товаров в кратком представлении (описание сокращено)
+     */
+    Flux<ProductDao> findCatalogPage(String search, ProductSort sort, ProductCursor cursor, int limit, long offset);
+
+    /**
+     * Получить количество товаров, подходящих под поисковый запрос
+     *
+     * @param search Поисковый запрос (может быть пустым)
+     * @return Количество товаров
+     */
+    Mono<Long> countCatalog(String search);
+}
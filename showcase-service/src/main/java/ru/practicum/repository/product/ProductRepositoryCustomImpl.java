@@ -0,0 +1,171 @@
+package ru.practicum.repository.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.dao.product.ProductDao;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    /**
+     * Колонки краткого представления товара для списков каталога: описание сокращается,
+     * служебный поисковый вектор не читается
+     */
+    private static final String PRODUCT_COLUMNS = "product_uuid, name, left(description, "
+            + Product.SUMMARY_DESCRIPTION_LENGTH + ") AS description, price, image_url, created_at, updated_at";
+
+    /**
+     * Текст для триграммного поиска, совпадающий с выражением индекса idx_products_search_trgm
+     */
+    private static final String SEARCH_TEXT_EXPRESSION = "lower(name || ' ' || coalesce(description, ''))";
+
+    /**
+     * Полнотекстовый запрос по префиксам слов
+     */
+    private static final String TS_QUERY_EXPRESSION = "to_tsquery('russian', :tsQuery)";
+
+    /**
+     * Релевантность: ранг полнотекстового совпадения плюс сходство по словам для запросов с опечатками
+     */
+    private static final String RANK_EXPRESSION = "ts_rank_cd(search_vector, " + TS_QUERY_EXPRESSION + ")"
+            + " + word_similarity(:query, " + SEARCH_TEXT_EXPRESSION + ")";
+
+    /**
+     * Шаблон R2DBC
+     */
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<ProductDao> findCatalogPage(String search, ProductSort sort, ProductCursor cursor, int limit, long offset) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        addSearchCondition(search, conditions, params);
+
+        String keyExpression = sortKeyExpression(sort);
+        String direction = sort != null && sort.isDescending() ? "DESC" : "ASC";
+        boolean ranked = sort == null && StringUtils.hasText(search);
+        ProductCursor keyset = ranked ? null : cursor;
+
+        if (keyset != null) {
+            String operator = sort != null && sort.isDescending() ? "<" : ">";
+            if (keyExpression == null) {
+                conditions.add("product_uuid " + operator + " :cursorUuid");
+            } else {
+                conditions.add("(" + keyExpression + ", product_uuid) " + operator
+                        + " (" + cursorKeyExpression(sort) + ", :cursorUuid)");
+                params.put("cursorKey", cursorKeyValue(sort, keyset.key()));
+            }
+            params.put("cursorUuid", keyset.uuid());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT " + PRODUCT_COLUMNS + " FROM products");
+        appendWhere(sql, conditions);
+        sql.append(" ORDER BY ");
+        if (ranked) {
+            sql.append(RANK_EXPRESSION).append(" DESC, ");
+        } else if (keyExpression != null) {
+            sql.append(keyExpression).append(' ').append(direction).append(", ");
+        }
+        sql.append("product_uuid ").append(direction).append(" LIMIT :limit");
+        params.put("limit", limit);
+        if (keyset == null && offset > 0) {
+            sql.append(" OFFSET :offset");
+            params.put("offset", offset);
+        }
+
+        return bindAll(template.getDatabaseClient().sql(sql.toString()), params)
+                .map((row, metadata) -> template.getConverter().read(ProductDao.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Mono<Long> countCatalog(String search) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        addSearchCondition(search, conditions, params);
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM products");
+        appendWhere(sql, conditions);
+
+        return bindAll(template.getDatabaseClient().sql(sql.toString()), params)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    private void addSearchCondition(String search, List<String> conditions, Map<String, Object> params) {
+        if (StringUtils.hasText(search)) {
+            conditions.add("(search_vector @@ " + TS_QUERY_EXPRESSION
+                    + " OR :query <% " + SEARCH_TEXT_EXPRESSION + ")");
+            params.put("tsQuery", toPrefixTsQuery(search));
+            params.put("query", search.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Преобразует пользовательский ввод в tsquery, где каждое слово ищется по префиксу
+     */
+    static String toPrefixTsQuery(String search) {
+        return Arrays.stream(search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private void appendWhere(StringBuilder sql, List<String> conditions) {
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, Map<String, Object> params) {
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+
+    /**
+     * Выражение ключа сортировки, совпадающее с выражением индекса
+     */
+    private String sortKeyExpression(ProductSort sort) {
+        if (sort == null) {
+            return null;
+        }
+
+        return switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> "price";
+            case NAME_ASC, NAME_DESC -> "lower(name)";
+        };
+    }
+
+    private String cursorKeyExpression(ProductSort sort) {
+        return switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> ":cursorKey";
+            case NAME_ASC, NAME_DESC -> "lower(:cursorKey)";
+        };
+    }
+
+    private Object cursorKeyValue(ProductSort sort, String key) {
+        return switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> new BigDecimal(key);
+            case NAME_ASC, NAME_DESC -> key;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.service.cache;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Пакетная запись значений в кеш
+ */
+public interface CacheBulkWriter {
+
+    /**
+     * Записать значения с общим временем жизни.
+     * Ключи записываются пачками, каждая пачка - один скрипт, пачки отправляются без ожидания ответа на предыдущую
+     *
+     * @param template Шаблон, сериализующий ключи и значения
+     * @param values   Значения по ключу
+     * @param ttl      Время жизни
+     */
+    <V> Mono<Void> setAll(ReactiveRedisTemplate<String, V> template, Map<String, V> values, Duration ttl);
+}
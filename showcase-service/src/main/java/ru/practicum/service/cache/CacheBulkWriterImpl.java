@@ -0,0 +1,75 @@
+package ru.practicum.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.CacheBulkWriteProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись одним Lua-скриптом на пачку ключей. SET с PX записывает значение и время жизни
+ * одной командой, поэтому отдельный PEXPIRE на каждый ключ после MSET не нужен
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheBulkWriterImpl implements CacheBulkWriter {
+
+    /**
+     * Запись пачки значений. KEYS - ключи, ARGV[1] - время жизни, далее значения в порядке ключей
+     */
+    private static final RedisScript<Long> SET_ALL_SCRIPT = RedisScript.of("""
+            for i = 1, #KEYS do
+                redis.call('set', KEYS[i], ARGV[i + 1], 'PX', ARGV[1])
+            end
+            return #KEYS
+            """, Long.class);
+
+    private static final RedisElementWriter<byte[]> ARGS_WRITER = RedisElementWriter.from(RedisSerializer.byteArray());
+
+    private static final RedisElementReader<Long> RESULT_READER =
+            RedisElementReader.from(new GenericToStringSerializer<>(Long.class));
+
+    /**
+     * Конфигурация пакетной записи
+     */
+    private final CacheBulkWriteProperties properties;
+
+    @Override
+    public <V> Mono<Void> setAll(ReactiveRedisTemplate<String, V> template, Map<String, V> values, Duration ttl) {
+        if (values == null || values.isEmpty()) {
+            return Mono.empty();
+        }
+
+        RedisSerializationContext.SerializationPair<V> valuePair =
+                template.getSerializationContext().getValueSerializationPair();
+        byte[] ttlArg = String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8);
+
+        return Flux.fromIterable(values.entrySet())
+                .buffer(properties.batchSize())
+                .flatMap(batch -> {
+                    List<String> keys = new ArrayList<>(batch.size());
+                    List<byte[]> args = new ArrayList<>(batch.size() + 1);
+                    args.add(ttlArg);
+                    for (Map.Entry<String, V> entry : batch) {
+                        keys.add(entry.getKey());
+                        args.add(ByteUtils.getBytes(valuePair.write(entry.getValue())));
+                    }
+                    return template.execute(SET_ALL_SCRIPT, keys, args, ARGS_WRITER, RESULT_READER);
+                })
+                .then();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.service.cache;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Шина инвалидации локальных (in-process) кешей узлов витрины.
+ * Изменения объединяются в пакеты и рассылаются остальным узлам с монотонно растущей версией
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Сообщить остальным узлам об изменении товаров
+     *
+     * @param productIds Идентификаторы измененных товаров
+     */
+    void publishProductsChanged(Collection<UUID> productIds);
+
+    /**
+     * Сообщить остальным узлам, что все локальные копии данных устарели
+     */
+    void publishResync();
+}
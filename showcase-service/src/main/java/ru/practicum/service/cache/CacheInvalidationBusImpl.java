@@ -0,0 +1,235 @@
+package ru.practicum.service.cache;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+import ru.practicum.config.cache.CacheInvalidationProperties;
+import ru.practicum.config.cache.CacheNamespace;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Шина инвалидации на Redis pub/sub. Сообщение имеет вид {@code <версия>|<узел>|<товары через запятую или *>}.
+ * Версия выдается счетчиком в Redis в том же скрипте, что и публикация, поэтому узел,
+ * получивший версию больше ожидаемой, знает о пропущенных сообщениях и сбрасывает локальные кеши целиком.
+ * После переподключения узел сверяет свою версию со счетчиком по той же причине.
+ */
+@Service
+public class CacheInvalidationBusImpl implements CacheInvalidationBus,
+        ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final String CHANNEL = "cache-invalidation";
+    private static final String VERSION_KEY = "cache-invalidation:version";
+
+    /**
+     * Признак полной синхронизации вместо списка товаров
+     */
+    private static final String RESYNC = "*";
+
+    /**
+     * Максимальная задержка повторной подписки
+     */
+    private static final Duration MAX_RECONNECT_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Сколько ждать, если изменения одновременно публикуются из нескольких потоков
+     */
+    private static final Duration EMIT_TIMEOUT = Duration.ofMillis(100);
+
+    /**
+     * Публикация сообщения со следующей версией.
+     * Версия и публикация выполняются атомарно, поэтому порядок сообщений совпадает с порядком версий
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of("""
+            local version = redis.call('incr', KEYS[1])
+            redis.call('publish', ARGV[1], version .. '|' .. ARGV[2])
+            return version
+            """, Long.class);
+
+    /**
+     * Шаблон Redis для строковых значений
+     */
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Обработчики сообщений локальных кешей
+     */
+    private final List<CacheInvalidationHandler> handlers;
+
+    /**
+     * Конфигурация шины
+     */
+    private final CacheInvalidationProperties properties;
+
+    /**
+     * Канал сообщений текущего поколения кеша
+     */
+    private final String channel;
+
+    /**
+     * Счетчик версий текущего поколения кеша
+     */
+    private final String versionKey;
+
+    /**
+     * Идентификатор узла: собственные изменения узел уже применил и повторно не обрабатывает
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Последняя полученная версия (0 - узел еще не сверился со счетчиком)
+     */
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    /**
+     * Изменения, ожидающие публикации; пустое множество означает полную синхронизацию
+     */
+    private final Sinks.Many<Set<UUID>> changes = Sinks.many().unicast().onBackpressureBuffer();
+
+    /**
+     * Публикация пакетов изменений
+     */
+    private Disposable publishing;
+
+    /**
+     * Подписка на канал
+     */
+    private Disposable subscription;
+
+    public CacheInvalidationBusImpl(ReactiveStringRedisTemplate stringRedisTemplate,
+                                    List<CacheInvalidationHandler> handlers,
+                                    CacheNamespace cacheNamespace,
+                                    CacheInvalidationProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.handlers = handlers;
+        this.properties = properties;
+        this.channel = cacheNamespace.key(CHANNEL);
+        this.versionKey = cacheNamespace.key(VERSION_KEY);
+    }
+
+    @Override
+    public void publishProductsChanged(Collection<UUID> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        changes.emitNext(Set.copyOf(productIds), Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+    }
+
+    @Override
+    public void publishResync() {
+        changes.emitNext(Set.of(), Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        publishing = changes.asFlux()
+                .bufferTimeout(properties.maxBatchSize(), properties.window())
+                .concatMap(batch -> publish(coalesce(batch)).onErrorResume(e -> Mono.empty()))
+                .subscribe();
+
+        subscription = stringRedisTemplate.listenToChannelLater(channel)
+                .flatMapMany(messages -> synchronize().thenMany(messages))
+                .concatMap(message -> Mono.defer(() -> receive(message.getMessage()))
+                        .onErrorResume(e -> Mono.empty()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.reconnectBackoff())
+                        .maxBackoff(MAX_RECONNECT_BACKOFF))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (publishing != null) {
+            publishing.dispose();
+        }
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Обработать сообщение шины
+     */
+    Mono<Void> receive(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3) {
+            return Mono.empty();
+        }
+
+        long version = Long.parseLong(parts[0]);
+        long previous = lastVersion.getAndAccumulate(version, Math::max);
+        if (version <= previous) {
+            return Mono.empty();
+        }
+        if (previous != 0 && version > previous + 1 || RESYNC.equals(parts[2])) {
+            return resync();
+        }
+        if (nodeId.equals(parts[1])) {
+            return Mono.empty();
+        }
+
+        Set<UUID> productIds = Arrays.stream(parts[2].split(","))
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+        return Flux.fromIterable(handlers)
+                .concatMap(handler -> handler.onProductsChanged(productIds))
+                .then();
+    }
+
+    /**
+     * Сверить версию узла со счетчиком после подписки на канал.
+     * Если за время отсутствия подписки вышли новые версии, локальные кеши сбрасываются
+     */
+    Mono<Void> synchronize() {
+        return stringRedisTemplate.opsForValue().get(versionKey)
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .flatMap(current -> {
+                    long previous = lastVersion.getAndAccumulate(current, Math::max);
+                    return previous != 0 && current > previous ? resync() : Mono.empty();
+                });
+    }
+
+    private Mono<Void> resync() {
+        return Flux.fromIterable(handlers)
+                .concatMap(CacheInvalidationHandler::onResync)
+                .then();
+    }
+
+    private Mono<Void> publish(String changed) {
+        return stringRedisTemplate.execute(PUBLISH_SCRIPT, List.of(versionKey), List.of(channel, nodeId + "|" + changed))
+                .then();
+    }
+
+    /**
+     * Объединить изменения пакета в одно сообщение
+     */
+    private static String coalesce(List<Set<UUID>> batch) {
+        Set<UUID> productIds = new HashSet<>();
+        for (Set<UUID> changed : batch) {
+            if (changed.isEmpty()) {
+                return RESYNC;
+            }
+            productIds.addAll(changed);
+        }
+        return productIds.stream()
+                .map(UUID::toString)
+                .collect(Collectors.joining(","));
+    }
+}
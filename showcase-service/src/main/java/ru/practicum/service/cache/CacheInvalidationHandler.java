@@ -0,0 +1,24 @@
+package ru.practicum.service.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Обработчик сообщений шины инвалидации для локальных кешей узла
+ */
+public interface CacheInvalidationHandler {
+
+    /**
+     * Обновить локальные копии измененных товаров
+     *
+     * @param productIds Идентификаторы измененных товаров
+     */
+    Mono<Void> onProductsChanged(Set<UUID> productIds);
+
+    /**
+     * Сбросить все локальные копии: узел пропустил сообщения или получил запрос полной синхронизации
+     */
+    Mono<Void> onResync();
+}
@@ -0,0 +1,39 @@
+package ru.practicum.service.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Сервис распределенных блокировок на время перестроения кеша
+ */
+public interface CacheLockService {
+
+    /**
+     * Попытаться захватить блокировку.
+     * Блокировка выдается в аренду и снимается автоматически по истечении срока, если владелец не освободил ее
+     *
+     * @param name  Название блокировки
+     * @param lease Срок аренды
+     * @return Токен владельца, если блокировка захвачена, иначе пустой результат
+     */
+    Mono<String> tryAcquire(String name, Duration lease);
+
+    /**
+     * Продлить аренду блокировки, если она все еще принадлежит владельцу токена
+     *
+     * @param name  Название блокировки
+     * @param token Токен владельца
+     * @param lease Новый срок аренды
+     * @return Продлена ли аренда
+     */
+    Mono<Boolean> extend(String name, String token, Duration lease);
+
+    /**
+     * Освободить блокировку, если она все еще принадлежит владельцу токена
+     *
+     * @param name  Название блокировки
+     * @param token Токен владельца
+     */
+    Mono<Void> release(String name, String token);
+}
@@ -0,0 +1,67 @@
+package ru.practicum.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class CacheLockServiceImpl implements CacheLockService {
+
+    private static final String LOCK_KEY_PREFIX = "lock:";
+
+    /**
+     * Снятие блокировки только владельцем: чужая (перехваченная после истечения аренды) блокировка не удаляется
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Продление аренды только владельцем
+     */
+    private static final RedisScript<Long> EXTEND_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Шаблон Redis для строковых значений
+     */
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public Mono<String> tryAcquire(String name, Duration lease) {
+        String token = UUID.randomUUID().toString();
+        return stringRedisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY_PREFIX + name, token, lease)
+                .filter(Boolean.TRUE::equals)
+                .map(acquired -> token);
+    }
+
+    @Override
+    public Mono<Boolean> extend(String name, String token, Duration lease) {
+        return stringRedisTemplate.execute(EXTEND_SCRIPT, List.of(LOCK_KEY_PREFIX + name),
+                        List.of(token, String.valueOf(lease.toMillis())))
+                .next()
+                .map(extended -> extended == 1L)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> release(String name, String token) {
+        return stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY_PREFIX + name), List.of(token))
+                .then();
+    }
+}
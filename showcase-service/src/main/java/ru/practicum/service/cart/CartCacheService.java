@@ -2,6 +2,8 @@ package ru.practicum.service.cart;
 
 import reactor.core.publisher.Mono;
 import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.cart.CartSummary;
 
 import java.util.UUID;
 
@@ -18,6 +20,22 @@ public interface CartCacheService {
      */
     Mono<Cart> getCart(UUID userUuid);
 
+    /**
+     * Получить сводку корзины пользователя. Если сводки нет в кеше, она строится по корзине
+     *
+     * @param userUuid Идентификатор пользователя
+     * @return Сводка корзины
+     */
+    Mono<CartSummary> getSummary(UUID userUuid);
+
+    /**
+     * Получить корзину пользователя только из кеша
+     *
+     * @param userUuid Идентификатор пользователя
+     * @return Корзина или пустой результат, если корзины нет в кеше
+     */
+    Mono<Cart> findCached(UUID userUuid);
+
     /**
      * Удалить корзину пользователя
      *
@@ -26,9 +44,64 @@ public interface CartCacheService {
     Mono<Void> evict(UUID userUuid);
 
     /**
-     * Добавить корзину в кеш
+     * Добавить корзину в кеш, если в кеше нет более новой версии корзины
      *
      * @param cart Корзина
      */
     Mono<Void> cacheCart(Cart cart);
+
+    /**
+     * Заменить корзину в кеше, только если в кеше ожидаемая версия корзины.
+     * Замененная корзина ожидает отложенной записи в базу данных и хранится без TTL
+     *
+     * @param cart            Корзина с новой версией
+     * @param expectedVersion Ожидаемая версия корзины в кеше
+     * @return Заменена ли корзина
+     */
+    Mono<Boolean> replaceCart(Cart cart, long expectedVersion);
+
+    /**
+     * Вернуть TTL корзине, записанной в базу данных, если в кеше записанная версия корзины
+     *
+     * @param userUuid Идентификатор пользователя
+     * @param version  Записанная версия корзины
+     */
+    Mono<Void> expireSaved(UUID userUuid, long version);
+
+    /**
+     * Увеличить количество товара в закешированной корзине, добавив товар при необходимости.
+     * Незакешированная корзина не изменяется
+     *
+     * @param userUuid Идентификатор пользователя
+     * @param item     Сохраненный товар корзины с ценой товара
+     * @param quantity Прирост количества
+     * @param version  Версия корзины до изменения
+     */
+    Mono<Void> addItem(UUID userUuid, CartItem item, int quantity, long version);
+
+    /**
+     * Установить количество товара в закешированной корзине
+     *
+     * @param userUuid Идентификатор пользователя
+     * @param item     Товар корзины с новым количеством и ценой товара
+     * @param version  Версия корзины до изменения
+     */
+    Mono<Void> updateItem(UUID userUuid, CartItem item, long version);
+
+    /**
+     * Удалить товар из закешированной корзины
+     *
+     * @param userUuid    Идентификатор пользователя
+     * @param productUuid Идентификатор товара
+     * @param version     Версия корзины до изменения
+     */
+    Mono<Void> removeItem(UUID userUuid, UUID productUuid, long version);
+
+    /**
+     * Удалить все товары из закешированной корзины
+     *
+     * @param userUuid Идентификатор пользователя
+     * @param version  Версия корзины до изменения
+     */
+    Mono<Void> clearItems(UUID userUuid, long version);
 }
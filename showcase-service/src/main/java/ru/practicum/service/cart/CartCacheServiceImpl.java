@@ -1,25 +1,227 @@
 package ru.practicum.service.cart;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import ru.practicum.dto.cart.cache.CartCacheDto;
+import ru.practicum.config.cache.CacheNamespace;
+import ru.practicum.config.cache.cart.CartCacheTtlProperties;
+import ru.practicum.config.cache.cart.CartWriteBehindProperties;
 import ru.practicum.exception.cart.CartNotFoundException;
 import ru.practicum.mapper.cart.CartItemMapper;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.model.cart.Cart;
-import ru.practicum.repository.cart.CartRepository;
+import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.cart.CartSummary;
+import ru.practicum.model.product.Product;
 import ru.practicum.repository.cart.CartItemRepository;
+import ru.practicum.repository.cart.CartRepository;
+import ru.practicum.service.product.ProductCacheService;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Кеш корзин в Redis. Корзина хранится хешем: идентификатор корзины, стоимость в копейках и по три поля
+ * на товар - количество, цена на момент добавления и идентификатор товара корзины.
+ * Изменения корзины применяются к хешу на месте скриптами, которые пересчитывают стоимость на сервере,
+ * поэтому кеш остается заполненным после изменений; незакешированная корзина скриптами не создается.
+ * Хеш хранит версию корзины: изменение применяется, только если в кеше та версия, к которой оно применено
+ * в базе данных, иначе корзина удаляется из кеша.
+ * Рядом с хешем хранится сводка корзины (количество товаров и стоимость) для шапки страниц: ее пишут
+ * те же скрипты, поэтому она не расходится с хешем и читается одной командой GET.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartCacheServiceImpl implements CartCacheService {
 
+    private static final String CART_KEY_PREFIX = "cart-hash:";
+
+    private static final String SUMMARY_KEY_PREFIX = "cart-summary:";
+
+    /**
+     * Разделитель количества товаров и стоимости в сводке корзины
+     */
+    private static final String SUMMARY_SEPARATOR = ":";
+
+    /**
+     * TTL скриптов для корзины, которая хранится без TTL
+     */
+    private static final String NO_TTL = "0";
+
+    private static final String UUID_FIELD = "uuid";
+
+    private static final String VERSION_FIELD = "version";
+
+    private static final String TOTAL_FIELD = "total";
+
+    private static final String QUANTITY_PREFIX = "q:";
+
+    private static final String PRICE_PREFIX = "p:";
+
+    private static final String ITEM_PREFIX = "i:";
+
+    /**
+     * Число знаков после запятой в ценах (DECIMAL(10, 2))
+     */
+    private static final int PRICE_SCALE = 2;
+
+    /**
+     * Пересчет стоимости корзины по количествам и ценам товаров в хеше
+     */
+    private static final String RECOMPUTE_TOTAL = """
+            local function recompute(key)
+                local fields = redis.call('HGETALL', key)
+                local quantities, prices = {}, {}
+                for i = 1, #fields, 2 do
+                    local prefix, product = string.sub(fields[i], 1, 2), string.sub(fields[i], 3)
+                    if prefix == 'q:' then
+                        quantities[product] = tonumber(fields[i + 1])
+                    elseif prefix == 'p:' then
+                        prices[product] = tonumber(fields[i + 1])
+                    end
+                end
+                local total = 0
+                for product, quantity in pairs(quantities) do
+                    total = total + quantity * (prices[product] or 0)
+                end
+                redis.call('HSET', key, 'total', string.format('%.0f', total))
+            end
+            """;
+
+    /**
+     * Запись сводки корзины KEYS[2] по хешу KEYS[1] и продление TTL обоих ключей; TTL 0 - хранить без TTL
+     */
+    private static final String WRITE_SUMMARY = """
+            local function summarize(key, summaryKey, ttl)
+                local fields = redis.call('HGETALL', key)
+                local count, total = 0, '0'
+                for i = 1, #fields, 2 do
+                    if string.sub(fields[i], 1, 2) == 'q:' then
+                        count = count + tonumber(fields[i + 1])
+                    elseif fields[i] == 'total' then
+                        total = fields[i + 1]
+                    end
+                end
+                if tonumber(ttl) > 0 then
+                    redis.call('PEXPIRE', key, ttl)
+                    redis.call('SET', summaryKey, count .. ':' .. total, 'PX', ttl)
+                else
+                    redis.call('PERSIST', key)
+                    redis.call('SET', summaryKey, count .. ':' .. total)
+                end
+            end
+            """;
+
+    /**
+     * Проверка версии корзины перед изменением: ARGV[1] - ожидаемая версия.
+     * Незакешированная корзина не изменяется (0), корзина другой версии - конфликт (-1)
+     */
+    private static final String CHECK_VERSION = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            if redis.call('HGET', KEYS[1], 'version') ~= ARGV[1] then
+                return -1
+            end
+            redis.call('HINCRBY', KEYS[1], 'version', 1)
+            """;
+
+    /**
+     * Заменить корзину целиком, если в кеше нет более новой версии: ARGV[1] - TTL в мс, ARGV[2] - версия,
+     * далее пары поле-значение
+     */
+    private static final RedisScript<Long> REPLACE_SCRIPT = RedisScript.of(WRITE_SUMMARY + """
+            local current = redis.call('HGET', KEYS[1], 'version')
+            if current and tonumber(current) > tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            summarize(KEYS[1], KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * Заменить корзину целиком, только если в кеше ожидаемая версия: ARGV[1] - TTL в мс (0 - без TTL),
+     * ARGV[2] - ожидаемая версия, далее пары поле-значение
+     */
+    private static final RedisScript<Long> COMPARE_AND_REPLACE_SCRIPT = RedisScript.of(WRITE_SUMMARY + """
+            if redis.call('HGET', KEYS[1], 'version') ~= ARGV[2] then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            summarize(KEYS[1], KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * Вернуть TTL хешу и сводке корзины, если в кеше ожидаемая версия: ARGV - версия, TTL в мс
+     */
+    private static final RedisScript<Long> EXPIRE_SAVED_SCRIPT = RedisScript.of("""
+            if redis.call('HGET', KEYS[1], 'version') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * Увеличить количество товара: ARGV - версия, товар, прирост, цена, идентификатор товара корзины, TTL в мс
+     */
+    private static final RedisScript<Long> ADD_ITEM_SCRIPT = RedisScript.of(RECOMPUTE_TOTAL + WRITE_SUMMARY + CHECK_VERSION + """
+            redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[2], ARGV[3])
+            redis.call('HSET', KEYS[1], 'p:' .. ARGV[2], ARGV[4], 'i:' .. ARGV[2], ARGV[5])
+            recompute(KEYS[1])
+            summarize(KEYS[1], KEYS[2], ARGV[6])
+            return 1
+            """, Long.class);
+
+    /**
+     * Установить количество товара: ARGV - версия, товар, количество, цена, TTL в мс
+     */
+    private static final RedisScript<Long> UPDATE_ITEM_SCRIPT = RedisScript.of(RECOMPUTE_TOTAL + WRITE_SUMMARY + CHECK_VERSION + """
+            redis.call('HSET', KEYS[1], 'q:' .. ARGV[2], ARGV[3], 'p:' .. ARGV[2], ARGV[4])
+            recompute(KEYS[1])
+            summarize(KEYS[1], KEYS[2], ARGV[5])
+            return 1
+            """, Long.class);
+
+    /**
+     * Удалить товар из корзины: ARGV - версия, товар, TTL в мс
+     */
+    private static final RedisScript<Long> REMOVE_ITEM_SCRIPT = RedisScript.of(RECOMPUTE_TOTAL + WRITE_SUMMARY + CHECK_VERSION + """
+            redis.call('HDEL', KEYS[1], 'q:' .. ARGV[2], 'p:' .. ARGV[2], 'i:' .. ARGV[2])
+            recompute(KEYS[1])
+            summarize(KEYS[1], KEYS[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * Удалить все товары корзины: ARGV - версия, TTL в мс
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = RedisScript.of(WRITE_SUMMARY + CHECK_VERSION + """
+            local cart = redis.call('HGET', KEYS[1], 'uuid')
+            local version = redis.call('HGET', KEYS[1], 'version')
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'uuid', cart, 'version', version, 'total', '0')
+            summarize(KEYS[1], KEYS[2], ARGV[2])
+            return 1
+            """, Long.class);
+
     /**
      * Репозиторий корзины товаров
      */
@@ -30,6 +232,11 @@ public class CartCacheServiceImpl implements CartCacheService {
      */
     private final CartItemRepository cartItemRepository;
 
+    /**
+     * Кеш сервис товаров: цены товаров корзины при загрузке из базы данных
+     */
+    private final ProductCacheService productCacheService;
+
     /**
      * Маппер корзины товаров
      */
@@ -41,23 +248,60 @@ public class CartCacheServiceImpl implements CartCacheService {
     private final CartItemMapper cartItemMapper;
 
     /**
-     * Кеш корзины
+     * Шаблон Redis для строковых значений
+     */
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Мягкий и жесткий TTL корзин
+     */
+    private final CartCacheTtlProperties ttlProperties;
+
+    /**
+     * Пространство имен ключей кеша
+     */
+    private final CacheNamespace cacheNamespace;
+
+    /**
+     * Конфигурация отложенной записи корзин: при ней корзина в Redis новее базы данных
+     * и не перечитывается из базы данных по мягкому TTL
      */
-    private final ReactiveRedisTemplate<String, CartCacheDto> cartCacheTemplate;
+    private final CartWriteBehindProperties writeBehindProperties;
 
-    private static final String CART_KEY_PREFIX = "cart:";
-    private static final Duration CACHE_TTL = Duration.ofHours(1);
+    /**
+     * Корзины, которые сейчас обновляются в фоне на этом узле
+     */
+    private final Set<UUID> refreshingCarts = ConcurrentHashMap.newKeySet();
 
     @Override
     public Mono<Cart> getCart(UUID userUuid) {
-        return cartCacheTemplate.opsForValue().get(CART_KEY_PREFIX + userUuid)
-                .flatMap(dto -> Mono.justOrEmpty(cartMapper.fromCacheDto(dto)))
-                .switchIfEmpty(fetchAndCacheCart(userUuid));
+        String key = cartKey(userUuid);
+        return Mono.zip(readHash(key), stringRedisTemplate.getExpire(key).defaultIfEmpty(Duration.ZERO))
+                .map(cached -> {
+                    if (!writeBehindProperties.enabled() && ttlProperties.isStale(cached.getT2())) {
+                        refreshInBackground(userUuid);
+                    }
+                    return fromHash(userUuid, cached.getT1());
+                })
+                .switchIfEmpty(Mono.defer(() -> fetchAndCacheCart(userUuid)));
+    }
+
+    @Override
+    public Mono<CartSummary> getSummary(UUID userUuid) {
+        return stringRedisTemplate.opsForValue().get(summaryKey(userUuid))
+                .map(CartCacheServiceImpl::parseSummary)
+                .switchIfEmpty(Mono.defer(() -> getCart(userUuid).map(CartCacheServiceImpl::summarize)));
+    }
+
+    @Override
+    public Mono<Cart> findCached(UUID userUuid) {
+        return readHash(cartKey(userUuid))
+                .map(fields -> fromHash(userUuid, fields));
     }
 
     @Override
     public Mono<Void> evict(UUID userUuid) {
-        return cartCacheTemplate.delete(CART_KEY_PREFIX + userUuid).then();
+        return stringRedisTemplate.delete(cartKey(userUuid), summaryKey(userUuid)).then();
     }
 
     @Override
@@ -66,10 +310,109 @@ public class CartCacheServiceImpl implements CartCacheService {
             return Mono.empty();
         }
 
-        CartCacheDto dto = cartMapper.toCacheDto(cart);
-        return cartCacheTemplate.opsForValue()
-                .set(CART_KEY_PREFIX + cart.getUserUuid(), dto, CACHE_TTL)
-                .then();
+        return stringRedisTemplate.execute(REPLACE_SCRIPT, cartKeys(cart.getUserUuid()),
+                replaceArgs(cart, cart.getVersion(), ttlMillis())).then();
+    }
+
+    @Override
+    public Mono<Boolean> replaceCart(Cart cart, long expectedVersion) {
+        return stringRedisTemplate.execute(COMPARE_AND_REPLACE_SCRIPT, cartKeys(cart.getUserUuid()),
+                        replaceArgs(cart, expectedVersion, NO_TTL))
+                .next()
+                .map(result -> result > 0)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> expireSaved(UUID userUuid, long version) {
+        return stringRedisTemplate.execute(EXPIRE_SAVED_SCRIPT, cartKeys(userUuid),
+                List.of(String.valueOf(version), ttlMillis())).then();
+    }
+
+    @Override
+    public Mono<Void> addItem(UUID userUuid, CartItem item, int quantity, long version) {
+        return apply(userUuid, ADD_ITEM_SCRIPT, List.of(String.valueOf(version),
+                item.getProduct().getUuid().toString(), String.valueOf(quantity),
+                toMinorUnits(item.getProduct().getPrice()), String.valueOf(item.getUuid()), ttlMillis()));
+    }
+
+    @Override
+    public Mono<Void> updateItem(UUID userUuid, CartItem item, long version) {
+        return apply(userUuid, UPDATE_ITEM_SCRIPT, List.of(String.valueOf(version),
+                item.getProduct().getUuid().toString(), String.valueOf(item.getQuantity()),
+                toMinorUnits(item.getProduct().getPrice()), ttlMillis()));
+    }
+
+    @Override
+    public Mono<Void> removeItem(UUID userUuid, UUID productUuid, long version) {
+        return apply(userUuid, REMOVE_ITEM_SCRIPT,
+                List.of(String.valueOf(version), productUuid.toString(), ttlMillis()));
+    }
+
+    @Override
+    public Mono<Void> clearItems(UUID userUuid, long version) {
+        return apply(userUuid, CLEAR_SCRIPT, List.of(String.valueOf(version), ttlMillis()));
+    }
+
+    /**
+     * Выполнить изменение корзины в Redis. Если изменение не удалось применить или в кеше другая версия корзины,
+     * корзина удаляется из кеша, чтобы следующее чтение загрузило ее из базы данных
+     */
+    private Mono<Void> apply(UUID userUuid, RedisScript<Long> script, List<String> args) {
+        return stringRedisTemplate.execute(script, cartKeys(userUuid), args)
+                .next()
+                .flatMap(result -> result < 0 ? evict(userUuid) : Mono.<Void>empty())
+                .onErrorResume(e -> evict(userUuid));
+    }
+
+    private List<String> replaceArgs(Cart cart, long version, String ttl) {
+        List<String> args = new ArrayList<>();
+        args.add(ttl);
+        args.add(String.valueOf(version));
+        toHash(cart).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return args;
+    }
+
+    /**
+     * Перечитать устаревшую корзину в фоне, если она еще не обновляется на этом узле.
+     * Ошибка обновления не затрагивает читателей: запись остается в кеше до жесткого TTL
+     */
+    private void refreshInBackground(UUID userUuid) {
+        if (refreshingCarts.add(userUuid)) {
+            Mono.defer(() -> fetchAndCacheCart(userUuid))
+                    .doFinally(signal -> refreshingCarts.remove(userUuid))
+                    .subscribe(ignored -> {
+                    }, error -> {
+                    });
+        }
+    }
+
+    private Mono<Map<String, String>> readHash(String key) {
+        return stringRedisTemplate.<String, String>opsForHash().entries(key)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .filter(fields -> fields.containsKey(UUID_FIELD));
+    }
+
+    private String cartKey(UUID userUuid) {
+        return cacheNamespace.key(CART_KEY_PREFIX + userUuid);
+    }
+
+    private String summaryKey(UUID userUuid) {
+        return cacheNamespace.key(SUMMARY_KEY_PREFIX + userUuid);
+    }
+
+    /**
+     * Ключи скриптов изменения корзины: хеш корзины и сводка корзины
+     */
+    private List<String> cartKeys(UUID userUuid) {
+        return List.of(cartKey(userUuid), summaryKey(userUuid));
+    }
+
+    private String ttlMillis() {
+        return String.valueOf(ttlProperties.hard().toMillis());
     }
 
     private Mono<Cart> fetchAndCacheCart(UUID userUuid) {
@@ -80,19 +423,108 @@ public class CartCacheServiceImpl implements CartCacheService {
                     Cart cart = cartMapper.cartDaoToCart(cartDao);
 
                     return cartItemRepository.findByCartUuid(cartDao.getUuid())
+                            .map(cartItemMapper::cartItemDaoToCartItem)
                             .collectList()
-                            .map(cartItemDaos -> {
-                                cart.setItems(cartItemDaos.stream()
-                                        .map(cartItemMapper::cartItemDaoToCartItem)
-                                        .collect(Collectors.toList()));
+                            .flatMap(this::fillPrices)
+                            .map(items -> {
+                                cart.setItems(items);
                                 return cart;
                             });
                 })
-                .flatMap(cart -> {
-                    CartCacheDto dto = cartMapper.toCacheDto(cart);
-                    return cartCacheTemplate.opsForValue()
-                            .set(CART_KEY_PREFIX + userUuid, dto, CACHE_TTL)
-                            .thenReturn(cart);
+                .flatMap(cart -> cacheCart(cart).thenReturn(cart));
+    }
+
+    /**
+     * Дополнить товары корзины ценами одним запросом: цены сохраняются в кеше для пересчета стоимости
+     */
+    private Mono<List<CartItem>> fillPrices(List<CartItem> items) {
+        if (items.isEmpty()) {
+            return Mono.just(items);
+        }
+
+        Set<UUID> productUuids = items.stream()
+                .map(item -> item.getProduct().getUuid())
+                .collect(Collectors.toSet());
+        return productCacheService.getProductsByIds(productUuids)
+                .map(products -> {
+                    items.forEach(item -> {
+                        Product product = products.get(item.getProduct().getUuid());
+                        item.getProduct().setPrice(product == null ? null : product.getPrice());
+                    });
+                    return items;
                 });
     }
-}
\ No newline at end of file
+
+    private static Map<String, String> toHash(Cart cart) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(UUID_FIELD, String.valueOf(cart.getUuid()));
+        fields.put(VERSION_FIELD, String.valueOf(cart.getVersion()));
+        fields.put(TOTAL_FIELD, toMinorUnits(cart.getTotalPrice()));
+        List<CartItem> items = cart.getItems() == null ? List.of() : cart.getItems();
+        for (CartItem item : items) {
+            String product = item.getProduct().getUuid().toString();
+            fields.put(QUANTITY_PREFIX + product, String.valueOf(item.getQuantity()));
+            fields.put(PRICE_PREFIX + product, toMinorUnits(item.getProduct().getPrice()));
+            fields.put(ITEM_PREFIX + product, String.valueOf(item.getUuid()));
+        }
+        return fields;
+    }
+
+    private static Cart fromHash(UUID userUuid, Map<String, String> fields) {
+        UUID cartUuid = parseUuid(fields.get(UUID_FIELD));
+        List<CartItem> items = fields.entrySet().stream()
+                .filter(field -> field.getKey().startsWith(QUANTITY_PREFIX))
+                .map(field -> {
+                    String product = field.getKey().substring(QUANTITY_PREFIX.length());
+                    return CartItem.builder()
+                            .uuid(parseUuid(fields.get(ITEM_PREFIX + product)))
+                            .cartUuid(cartUuid)
+                            .quantity(Integer.parseInt(field.getValue()))
+                            .product(Product.builder()
+                                    .uuid(UUID.fromString(product))
+                                    .price(fromMinorUnits(fields.get(PRICE_PREFIX + product)))
+                                    .build())
+                            .build();
+                })
+                .sorted(Comparator.comparing(item -> item.getProduct().getUuid()))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        return Cart.builder()
+                .uuid(cartUuid)
+                .userUuid(userUuid)
+                .version(fields.containsKey(VERSION_FIELD) ? Long.parseLong(fields.get(VERSION_FIELD)) : 0)
+                .items(items)
+                .totalPrice(fromMinorUnits(fields.get(TOTAL_FIELD)))
+                .build();
+    }
+
+    private static CartSummary summarize(Cart cart) {
+        List<CartItem> items = cart.getItems() == null ? List.of() : cart.getItems();
+        return CartSummary.builder()
+                .itemCount(items.stream().mapToInt(CartItem::getQuantity).sum())
+                .totalPrice(cart.getTotalPrice() == null ? BigDecimal.ZERO : cart.getTotalPrice())
+                .build();
+    }
+
+    private static CartSummary parseSummary(String value) {
+        int separator = value.indexOf(SUMMARY_SEPARATOR);
+        return CartSummary.builder()
+                .itemCount(Integer.parseInt(value.substring(0, separator)))
+                .totalPrice(fromMinorUnits(value.substring(separator + 1)))
+                .build();
+    }
+
+    private static String toMinorUnits(BigDecimal value) {
+        return value == null
+                ? "0"
+                : value.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().toString();
+    }
+
+    private static BigDecimal fromMinorUnits(String value) {
+        return value == null ? null : BigDecimal.valueOf(Long.parseLong(value), PRICE_SCALE);
+    }
+
+    private static UUID parseUuid(String value) {
+        return value == null || "null".equals(value) ? null : UUID.fromString(value);
+    }
+}
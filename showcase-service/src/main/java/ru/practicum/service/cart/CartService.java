@@ -2,6 +2,7 @@ package ru.practicum.service.cart;
 
 import reactor.core.publisher.Mono;
 import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartSummary;
 
 import java.util.UUID;
 
@@ -50,6 +51,14 @@ public interface CartService {
      */
     Mono<Cart> get(UUID userUuid);
 
+    /**
+     * Получить сводку корзины пользователя (количество товаров и стоимость) без загрузки товаров
+     *
+     * @param userUuid Идентификатор пользователя
+     * @return Сводка корзины
+     */
+    Mono<CartSummary> getSummary(UUID userUuid);
+
     /**
      * Обновить количество товара в корзине
      *
@@ -58,4 +67,11 @@ public interface CartService {
      * @param quantity    Количество товара
      */
     Mono<Cart> updateQuantity(UUID userUuid, UUID productUuid, int quantity);
+
+    /**
+     * Записать в базу данных изменения корзины, ожидающие отложенной записи
+     *
+     * @param userUuid Идентификатор пользователя
+     */
+    Mono<Void> flush(UUID userUuid);
 }
@@ -4,14 +4,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import ru.practicum.dao.cart.CartDao;
+import reactor.util.retry.Retry;
+import ru.practicum.config.cart.CartConcurrencyProperties;
+import ru.practicum.exception.cart.CartVersionConflictException;
 import ru.practicum.exception.cart.IllegalCartStateException;
-import ru.practicum.mapper.cart.CartItemMapper;
+import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.model.cart.Cart;
 import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.cart.CartSummary;
 import ru.practicum.model.product.Product;
 import ru.practicum.repository.cart.CartItemRepository;
 import ru.practicum.repository.cart.CartRepository;
@@ -21,10 +25,15 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
- * Сервис управления корзиной товаров
+ * Сервис управления корзиной товаров.
+ * Изменение корзины применяется только к той версии, по которой оно вычислено; если корзину успел изменить
+ * параллельный запрос, изменение повторяется по свежей корзине с нарастающей задержкой и случайным разбросом.
+ * Запись в базу данных выполняется в отдельной транзакции, кеш изменяется только после ее фиксации
  */
 @Service
 @RequiredArgsConstructor
@@ -56,10 +65,19 @@ public class CartServiceImpl implements CartService {
     private final CartMapper cartMapper;
 
     /**
-     * Маппер товаров корзины
+     * Отложенная запись корзин в базу данных
      */
-    private final CartItemMapper cartItemMapper;
+    private final CartWriteBehind cartWriteBehind;
 
+    /**
+     * Конфигурация повторов изменения корзины после конфликта версий
+     */
+    private final CartConcurrencyProperties concurrencyProperties;
+
+    /**
+     * Транзакции записи корзины в базу данных
+     */
+    private final TransactionalOperator transactionalOperator;
 
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
@@ -81,25 +99,40 @@ public class CartServiceImpl implements CartService {
                 .flatMap(this::fillProductsInCartItems);
     }
 
+    @Override
+    public Mono<CartSummary> getSummary(UUID userUuid) {
+        return cartCacheService.getSummary(userUuid);
+    }
+
     private Mono<Cart> fillProductsInCartItems(Cart cart) {
-        return Flux.fromIterable(cart.getItems())
-                .flatMap(item -> productService.getByUuid(item.getProduct().getUuid())
-                        .map(product -> {
-                            item.setProduct(product);
-                            return item;
-                        }))
-                .then()
-                .thenReturn(cart);
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            return Mono.just(cart);
+        }
+
+        Set<UUID> productUuids = cart.getItems().stream()
+                .map(item -> item.getProduct().getUuid())
+                .collect(Collectors.toSet());
+
+        return productService.getProductsByUuids(productUuids)
+                .flatMap(products -> {
+                    for (CartItem item : cart.getItems()) {
+                        Product product = products.get(item.getProduct().getUuid());
+                        if (product == null) {
+                            return Mono.error(new ProductNotFoundException("Товар не найден"));
+                        }
+                        item.setProduct(product);
+                    }
+                    return Mono.just(cart);
+                });
     }
 
     @Override
-    @Transactional
     public Mono<Cart> addToCart(UUID userUuid, UUID productUuid, int quantity) {
         if (quantity <= 0) {
             return Mono.error(new IllegalCartStateException("Количество товара должно быть больше нуля"));
         }
 
-        return get(userUuid).zipWith(productService.getByUuid(productUuid))
+        return Mono.defer(() -> get(userUuid).zipWith(productService.getByUuid(productUuid)))
                 .flatMap(tuple -> {
                     Cart cart = tuple.getT1();
                     Product product = tuple.getT2();
@@ -110,13 +143,25 @@ public class CartServiceImpl implements CartService {
                     return updateCartTotal(cart);
                 })
                 .flatMap(updatedCart -> {
-                    CartDao cartDao = cartMapper.cartToCartDao(updatedCart);
-                    return cartRepository.save(cartDao)
-                            .then(saveCartItems(updatedCart.getItems()))
+                    if (cartWriteBehind.isEnabled()) {
+                        return stage(updatedCart);
+                    }
+
+                    long version = updatedCart.getVersion();
+                    CartItem item = findItem(updatedCart, productUuid);
+                    return transactionalOperator.transactional(
+                                    cartItemRepository.addItem(updatedCart.getUuid(), productUuid, quantity, version)
+                                            .switchIfEmpty(Mono.defer(() -> conflict(userUuid))))
+                            .doOnNext(saved -> {
+                                item.setUuid(saved.getUuid());
+                                updatedCart.setVersion(version + 1);
+                            })
+                            .then(Mono.defer(() -> cartCacheService.addItem(userUuid, item, quantity, version)))
                             .thenReturn(updatedCart);
                 })
-                .flatMap(updatedCart -> cartCacheService.evict(userUuid).thenReturn(updatedCart))
-                .onErrorResume(e -> Mono.error(new IllegalCartStateException("Не удалось добавить товар в корзину")));
+                .retryWhen(retryOnConflict())
+                .onErrorResume(e -> !(e instanceof CartVersionConflictException),
+                        e -> Mono.error(new IllegalCartStateException("Не удалось добавить товар в корзину")));
     }
 
     private List<CartItem> updateCartItems(Cart cart, Product product, int quantity) {
@@ -138,9 +183,8 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    @Transactional
     public Mono<Cart> removeFromCart(UUID userUuid, UUID productUuid) {
-        return get(userUuid)
+        return Mono.defer(() -> get(userUuid))
                 .flatMap(cart -> {
                     List<CartItem> updatedItems = cart.getItems().stream()
                             .filter(item -> !item.getProduct().getUuid().equals(productUuid))
@@ -150,45 +194,54 @@ public class CartServiceImpl implements CartService {
 
                     return updateCartTotal(cart)
                             .flatMap(updatedCart -> {
-                                CartDao cartDao = cartMapper.cartToCartDao(updatedCart);
-                                cartDao.setUpdatedAt(LocalDateTime.now());
-                                return cartRepository.save(cartDao)
-                                        .then(cartItemRepository.deleteByCartUuidAndProductUuid(cart.getUuid(), productUuid))
+                                if (cartWriteBehind.isEnabled()) {
+                                    return stage(updatedCart);
+                                }
+
+                                long version = updatedCart.getVersion();
+                                return transactionalOperator.transactional(
+                                                cartItemRepository.removeItem(cart.getUuid(), productUuid, version)
+                                                        .filter(count -> count > 0)
+                                                        .switchIfEmpty(Mono.defer(() -> conflict(userUuid))))
+                                        .doOnNext(count -> updatedCart.setVersion(version + 1))
+                                        .then(Mono.defer(() -> cartCacheService.removeItem(userUuid, productUuid, version)))
                                         .thenReturn(updatedCart);
                             });
                 })
-                .flatMap(updatedCart -> cartCacheService.evict(userUuid).thenReturn(updatedCart))
-                .onErrorResume(e -> Mono.error(new IllegalCartStateException("Не удалось удалить товар из корзины")));
+                .retryWhen(retryOnConflict())
+                .onErrorResume(e -> !(e instanceof CartVersionConflictException),
+                        e -> Mono.error(new IllegalCartStateException("Не удалось удалить товар из корзины")));
     }
 
     @Override
-    @Transactional
     public Mono<Void> clear(UUID userUuid) {
-        return get(userUuid)
-                .flatMap(cart ->
-                        cartItemRepository.deleteByCartUuid(cart.getUuid())
-                                .then(cartRepository.save(
-                                        CartDao.builder()
-                                                .uuid(cart.getUuid())
-                                                .userUuid(cart.getUserUuid())
-                                                .totalPrice(BigDecimal.ZERO)
-                                                .updatedAt(LocalDateTime.now())
-                                                .build()
-                                ))
-                )
-                .flatMap(cart -> cartCacheService.evict(userUuid))
-                .then()
-                .onErrorResume(e -> Mono.error(new IllegalCartStateException("Не удалось очистить корзину")));
+        return Mono.defer(() -> get(userUuid))
+                .flatMap(cart -> {
+                    if (cartWriteBehind.isEnabled()) {
+                        cart.setItems(new ArrayList<>());
+                        cart.setTotalPrice(BigDecimal.ZERO);
+                        return stage(cart).then();
+                    }
+
+                    long version = cart.getVersion();
+                    return transactionalOperator.transactional(
+                                    cartRepository.clearCart(cart.getUuid(), version)
+                                            .filter(count -> count > 0)
+                                            .switchIfEmpty(Mono.defer(() -> conflict(userUuid))))
+                            .then(Mono.defer(() -> cartCacheService.clearItems(userUuid, version)));
+                })
+                .retryWhen(retryOnConflict())
+                .onErrorResume(e -> !(e instanceof CartVersionConflictException),
+                        e -> Mono.error(new IllegalCartStateException("Не удалось очистить корзину")));
     }
 
     @Override
-    @Transactional
     public Mono<Cart> updateQuantity(UUID userUuid, UUID productUuid, int quantity) {
         if (quantity <= 0) {
             return Mono.error(new IllegalCartStateException("Количество товара не может быть меньше или равно нулю"));
         }
 
-        return get(userUuid)
+        return Mono.defer(() -> get(userUuid))
                 .flatMap(cart -> {
                     List<CartItem> items = new ArrayList<>(cart.getItems());
 
@@ -201,22 +254,79 @@ public class CartServiceImpl implements CartService {
 
                     return updateCartTotal(cart)
                             .flatMap(updatedCart -> {
-                                CartDao cartDao = cartMapper.cartToCartDao(updatedCart);
-                                cartDao.setUpdatedAt(LocalDateTime.now());
-                                return cartRepository.save(cartDao)
-                                        .then(saveCartItems(updatedCart.getItems()))
+                                if (cartWriteBehind.isEnabled()) {
+                                    return stage(updatedCart);
+                                }
+
+                                CartItem item = findItem(updatedCart, productUuid);
+                                if (item == null) {
+                                    return Mono.just(updatedCart);
+                                }
+
+                                long version = updatedCart.getVersion();
+                                return transactionalOperator.transactional(
+                                                cartItemRepository.setItemQuantity(cart.getUuid(), productUuid, quantity, version)
+                                                        .switchIfEmpty(Mono.defer(() -> conflict(userUuid))))
+                                        .doOnNext(saved -> updatedCart.setVersion(version + 1))
+                                        .then(Mono.defer(() -> cartCacheService.updateItem(userUuid, item, version)))
                                         .thenReturn(updatedCart);
                             });
                 })
-                .flatMap(updatedCart -> cartCacheService.evict(userUuid).thenReturn(updatedCart))
-                .onErrorResume(e -> Mono.error(new IllegalCartStateException("Не удалось обновить товар в корзине")));
+                .retryWhen(retryOnConflict())
+                .onErrorResume(e -> !(e instanceof CartVersionConflictException),
+                        e -> Mono.error(new IllegalCartStateException("Не удалось обновить товар в корзине")));
     }
 
-    private Mono<Void> saveCartItems(List<CartItem> items) {
-        return Flux.fromIterable(items)
-                .map(cartItemMapper::cartItemToCartItemDao)
-                .flatMap(cartItemRepository::save)
-                .then();
+    @Override
+    public Mono<Void> flush(UUID userUuid) {
+        return cartWriteBehind.flush(userUuid);
+    }
+
+    /**
+     * Записать корзину целиком в кеш, если в кеше прочитанная версия корзины, и отметить ее изменение
+     * в журнале отложенной записи. Ошибка записи в кеш возвращается вызывающему: кеш здесь единственная копия изменения.
+     * Если изменение не попало в журнал, корзина удаляется из кеша: иначе хеш без TTL остался бы в кеше навсегда
+     */
+    private Mono<Cart> stage(Cart cart) {
+        long version = cart.getVersion();
+        cart.setVersion(version + 1);
+        return cartCacheService.replaceCart(cart, version)
+                .flatMap(replaced -> replaced
+                        ? cartWriteBehind.enqueue(cart)
+                                .onErrorResume(e -> cartCacheService.evict(cart.getUserUuid()).then(Mono.error(e)))
+                                .thenReturn(cart)
+                        : Mono.error(conflictException(cart.getUserUuid())));
+    }
+
+    /**
+     * Удалить корзину из кеша и сообщить о конфликте версий: повтор прочитает корзину из базы данных
+     */
+    private <T> Mono<T> conflict(UUID userUuid) {
+        return cartCacheService.evict(userUuid)
+                .then(Mono.error(conflictException(userUuid)));
+    }
+
+    private static CartVersionConflictException conflictException(UUID userUuid) {
+        return new CartVersionConflictException("Корзина пользователя с UUID = " + userUuid
+                + " изменена параллельным запросом");
+    }
+
+    /**
+     * Повторять изменение корзины после конфликта версий с экспоненциальной задержкой и случайным разбросом,
+     * чтобы параллельные запросы не повторялись одновременно
+     */
+    private Retry retryOnConflict() {
+        return Retry.backoff(concurrencyProperties.maxRetries(), concurrencyProperties.retryBackoff())
+                .jitter(0.5)
+                .filter(CartVersionConflictException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static CartItem findItem(Cart cart, UUID productUuid) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProduct().getUuid().equals(productUuid))
+                .findFirst()
+                .orElse(null);
     }
 
     /**
@@ -0,0 +1,31 @@
+package ru.practicum.service.cart;
+
+import reactor.core.publisher.Mono;
+import ru.practicum.model.cart.Cart;
+
+import java.util.UUID;
+
+/**
+ * Отложенная запись корзин в базу данных
+ */
+public interface CartWriteBehind {
+
+    /**
+     * Включена ли отложенная запись
+     */
+    boolean isEnabled();
+
+    /**
+     * Записать в журнал состояние корзины после изменения, уже записанного в кеш
+     *
+     * @param cart Корзина с новой версией
+     */
+    Mono<Void> enqueue(Cart cart);
+
+    /**
+     * Записать корзину пользователя из кеша в базу данных, не дожидаясь фоновой записи
+     *
+     * @param userUuid Идентификатор пользователя
+     */
+    Mono<Void> flush(UUID userUuid);
+}
@@ -0,0 +1,270 @@
+package ru.practicum.service.cart;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.cart.CartWriteBehindProperties;
+import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.cart.CartRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись корзин через журнал в Redis Stream.
+ * Запись журнала хранит состояние корзины после изменения: версию, стоимость и количества товаров,
+ * поэтому запись не зависит от хеша корзины в кеше, который может истечь или уйти со сменой поколения.
+ * Из записей одной корзины в пачке записывается только последняя версия, а повторная обработка записи
+ * журнала безопасна. Запись журнала подтверждается и удаляется только после записи в базу данных;
+ * записи, не подтвержденные остановленным узлом, забирает другой узел.
+ * Корзина записывается в базу данных, только если ее версия новее сохраненной, поэтому запоздавшая
+ * запись устаревшего состояния не затирает более новое. Хеш ожидающей записи корзины хранится в кеше
+ * без TTL, после записи в базу данных ему возвращается обычный TTL.
+ * Нераспознанная запись журнала не задерживает пачку: она переносится в журнал ошибок и подтверждается вместе с остальными.
+ * Ключ журнала не входит в поколение кеша: смена поколения не должна терять незаписанные изменения.
+ */
+@Service
+public class CartWriteBehindImpl implements CartWriteBehind,
+        ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final String STREAM_KEY = "cart-write-behind";
+
+    /**
+     * Журнал нераспознанных записей для разбора
+     */
+    private static final String DEAD_LETTER_KEY = "cart-write-behind:dead";
+
+    private static final String GROUP = "cart-flushers";
+
+    private static final String USER_FIELD = "user";
+
+    private static final String CART_FIELD = "cart";
+
+    private static final String VERSION_FIELD = "version";
+
+    private static final String TOTAL_FIELD = "total";
+
+    /**
+     * Товары корзины: пары "товар=количество" через запятую
+     */
+    private static final String ITEMS_FIELD = "items";
+
+    /**
+     * Шаблон Redis для строковых значений
+     */
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Кеш сервис корзины
+     */
+    private final CartCacheService cartCacheService;
+
+    /**
+     * Репозиторий корзины товаров
+     */
+    private final CartRepository cartRepository;
+
+    /**
+     * Конфигурация отложенной записи
+     */
+    private final CartWriteBehindProperties properties;
+
+    /**
+     * Потребитель группы: у каждого узла свой
+     */
+    private final Consumer consumer = Consumer.from(GROUP, UUID.randomUUID().toString());
+
+    /**
+     * Периодическая запись корзин
+     */
+    private Disposable flushing;
+
+    public CartWriteBehindImpl(ReactiveStringRedisTemplate stringRedisTemplate,
+                               CartCacheService cartCacheService,
+                               CartRepository cartRepository,
+                               CartWriteBehindProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cartCacheService = cartCacheService;
+        this.cartRepository = cartRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        flushing = stringRedisTemplate.opsForStream().createGroup(STREAM_KEY, ReadOffset.from("0"), GROUP)
+                .onErrorResume(e -> Mono.empty())
+                .thenMany(Flux.interval(properties.flushInterval()))
+                .concatMap(tick -> flushAll().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (flushing != null) {
+            flushing.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Void> enqueue(Cart cart) {
+        return stringRedisTemplate.opsForStream()
+                .add(STREAM_KEY, toEntry(cart))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> flush(UUID userUuid) {
+        if (!properties.enabled()) {
+            return Mono.empty();
+        }
+
+        return cartCacheService.findCached(userUuid)
+                .flatMap(cart -> cartRepository.saveCarts(List.of(cart)));
+    }
+
+    /**
+     * Обработать журнал пачками, пока пачки заполняются целиком
+     */
+    Mono<Void> flushAll() {
+        return claimAbandoned()
+                .then(Mono.defer(() -> flushBatch(ReadOffset.lastConsumed()))
+                        .repeat()
+                        .takeUntil(count -> count < properties.batchSize())
+                        .then());
+    }
+
+    /**
+     * Обработать пачку записей журнала, начиная с заданного смещения
+     *
+     * @return Количество прочитанных записей
+     */
+    @SuppressWarnings("unchecked") // read(...) принимает StreamOffset<String>... - generic varargs
+    Mono<Integer> flushBatch(ReadOffset offset) {
+        return stringRedisTemplate.opsForStream()
+                .read(consumer, StreamReadOptions.empty().count(properties.batchSize()),
+                        StreamOffset.create(STREAM_KEY, offset))
+                .collectList()
+                .flatMap(records -> process(records).thenReturn(records.size()));
+    }
+
+    /**
+     * Забрать записи журнала, не подтвержденные дольше claim-idle: их узел остановлен или не смог записать корзины.
+     * Забранные записи обрабатываются как собственные неподтвержденные
+     */
+    private Mono<Void> claimAbandoned() {
+        return stringRedisTemplate.opsForStream()
+                .pending(STREAM_KEY, GROUP, Range.unbounded(), properties.batchSize())
+                .flatMapMany(Flux::fromIterable)
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(properties.claimIdle()) >= 0)
+                .map(PendingMessage::getId)
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .flatMapMany(ids -> stringRedisTemplate.opsForStream().claim(STREAM_KEY, GROUP,
+                        consumer.getName(), properties.claimIdle(), ids.toArray(RecordId[]::new)))
+                .then(Mono.defer(() -> flushBatch(ReadOffset.from("0"))))
+                .then();
+    }
+
+    private Mono<Void> process(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Map<UUID, Cart> latest = new LinkedHashMap<>();
+        List<MapRecord<String, Object, Object>> malformed = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Cart cart;
+            try {
+                cart = fromEntry(record.getValue());
+            } catch (RuntimeException e) {
+                malformed.add(record);
+                continue;
+            }
+            latest.merge(cart.getUuid(), cart,
+                    (previous, next) -> next.getVersion() > previous.getVersion() ? next : previous);
+        }
+        List<Cart> carts = List.copyOf(latest.values());
+        RecordId[] ids = records.stream()
+                .map(MapRecord::getId)
+                .toArray(RecordId[]::new);
+
+        return save(carts)
+                .thenMany(Flux.fromIterable(malformed))
+                .concatMap(record -> stringRedisTemplate.opsForStream().add(DEAD_LETTER_KEY, record.getValue()))
+                .then(Mono.defer(() -> stringRedisTemplate.opsForStream().acknowledge(STREAM_KEY, GROUP, ids)))
+                .then(Mono.defer(() -> stringRedisTemplate.opsForStream().delete(STREAM_KEY, ids)))
+                .thenMany(Flux.fromIterable(carts))
+                .concatMap(cart -> cartCacheService.expireSaved(cart.getUserUuid(), cart.getVersion())
+                        .onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    private Mono<Void> save(List<Cart> carts) {
+        return carts.isEmpty() ? Mono.empty() : cartRepository.saveCarts(carts);
+    }
+
+    private static Map<String, String> toEntry(Cart cart) {
+        List<CartItem> items = cart.getItems() == null ? List.of() : cart.getItems();
+        Map<String, String> entry = new LinkedHashMap<>();
+        entry.put(USER_FIELD, cart.getUserUuid().toString());
+        entry.put(CART_FIELD, cart.getUuid().toString());
+        entry.put(VERSION_FIELD, String.valueOf(cart.getVersion()));
+        entry.put(TOTAL_FIELD, (cart.getTotalPrice() == null ? BigDecimal.ZERO : cart.getTotalPrice()).toPlainString());
+        entry.put(ITEMS_FIELD, items.stream()
+                .map(item -> item.getProduct().getUuid() + "=" + item.getQuantity())
+                .collect(Collectors.joining(",")));
+        return entry;
+    }
+
+    private static Cart fromEntry(Map<Object, Object> entry) {
+        UUID cartUuid = UUID.fromString(entry.get(CART_FIELD).toString());
+        String items = entry.get(ITEMS_FIELD).toString();
+        return Cart.builder()
+                .uuid(cartUuid)
+                .userUuid(UUID.fromString(entry.get(USER_FIELD).toString()))
+                .version(Long.parseLong(entry.get(VERSION_FIELD).toString()))
+                .totalPrice(new BigDecimal(entry.get(TOTAL_FIELD).toString()))
+                .items(items.isEmpty() ? new ArrayList<>() : Arrays.stream(items.split(","))
+                        .map(item -> {
+                            int separator = item.indexOf('=');
+                            return CartItem.builder()
+                                    .cartUuid(cartUuid)
+                                    .product(Product.builder().uuid(UUID.fromString(item.substring(0, separator))).build())
+                                    .quantity(Integer.parseInt(item.substring(separator + 1)))
+                                    .build();
+                        })
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+}
@@ -6,9 +6,11 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.practicum.dao.order.OrderDao;
+import ru.practicum.dao.order.OrderItemDao;
 import ru.practicum.exception.cart.IllegalCartStateException;
 import ru.practicum.exception.order.IllegalOrderStateException;
 import ru.practicum.exception.order.OrderNotFoundException;
+import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.order.OrderItemMapper;
 import ru.practicum.mapper.order.OrderMapper;
 import ru.practicum.model.cart.CartItem;
@@ -62,7 +64,8 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public Mono<Order> create(UUID userUuid) {
-        return cartService.get(userUuid)
+        return cartService.flush(userUuid)
+                .then(cartService.get(userUuid))
                 .filter(cart -> !cart.getItems().isEmpty())
                 .switchIfEmpty(Mono.error(new IllegalCartStateException("Нельзя создать заказ из пустой корзины")))
                 .flatMap(cart -> {
@@ -154,16 +157,32 @@ public class OrderServiceImpl implements OrderService {
      */
     private Mono<Order> enrichOrderWithItems(OrderDao orderDao) {
         return orderItemRepository.findByOrderUuid(orderDao.getUuid())
-                .flatMap(orderItemDao ->
-                        productService.getByUuid(orderItemDao.getProductUuid())
-                                .map(productDao -> OrderItem.builder()
-                                        .uuid(orderItemDao.getUuid())
-                                        .productUuid(productDao.getUuid())
-                                        .quantity(orderItemDao.getQuantity())
-                                        .priceAtOrder(orderItemDao.getPriceAtOrder())
-                                        .build())
-                )
                 .collectList()
+                .flatMap(orderItemDaos -> {
+                    if (orderItemDaos.isEmpty()) {
+                        return Mono.just(List.<OrderItem>of());
+                    }
+
+                    Set<UUID> productUuids = orderItemDaos.stream()
+                            .map(OrderItemDao::getProductUuid)
+                            .collect(Collectors.toSet());
+
+                    return productService.getProductsByUuids(productUuids)
+                            .flatMap(products -> {
+                                if (!products.keySet().containsAll(productUuids)) {
+                                    return Mono.error(new ProductNotFoundException("Товар не найден"));
+                                }
+
+                                return Mono.just(orderItemDaos.stream()
+                                        .map(orderItemDao -> OrderItem.builder()
+                                                .uuid(orderItemDao.getUuid())
+                                                .productUuid(orderItemDao.getProductUuid())
+                                                .quantity(orderItemDao.getQuantity())
+                                                .priceAtOrder(orderItemDao.getPriceAtOrder())
+                                                .build())
+                                        .toList());
+                            });
+                })
                 .map(items -> {
                     Order order = orderMapper.orderDaoToOrder(orderDao);
                     order.setItems(items);
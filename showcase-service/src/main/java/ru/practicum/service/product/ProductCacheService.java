@@ -1,10 +1,14 @@
 package ru.practicum.service.product;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.practicum.model.product.Product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -19,6 +23,14 @@ public interface ProductCacheService {
      */
     Flux<Product> getAllProducts();
 
+    /**
+     * Получить страницу каталога, не загружая каталог целиком, если он уже есть в кеше
+     *
+     * @param pageable Страница
+     * @return Страница товаров
+     */
+    Mono<Page<Product>> getProductPage(Pageable pageable);
+
     /**
      * Получить товар по идентификатору
      *
@@ -28,12 +40,28 @@ public interface ProductCacheService {
     Mono<Product> getProductById(UUID uuid);
 
     /**
-     * Добавить товары
+     * Получить товары по идентификаторам одним пакетным запросом к кешу,
+     * отсутствующие в кеше товары загружаются из базы данных одним запросом и добавляются в кеш
+     *
+     * @param uuids Идентификаторы товаров
+     * @return Товары по идентификатору (без ненайденных)
+     */
+    Mono<Map<UUID, Product>> getProductsByIds(Collection<UUID> uuids);
+
+    /**
+     * Добавить товары. Если каталог уже в кеше, товары добавляются в него без перезаписи каталога
      *
      * @param products Список товаров
      */
     Mono<Void> cacheProducts(List<Product> products);
 
+    /**
+     * Удалить товары из кеша: записи товаров и их позиции в каталоге
+     *
+     * @param uuids Идентификаторы товаров
+     */
+    Mono<Void> evictProducts(Collection<UUID> uuids);
+
     /**
      * Очистить кеш списка товаров
      */
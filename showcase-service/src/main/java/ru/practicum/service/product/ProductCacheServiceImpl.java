@@ -1,22 +1,36 @@
 package ru.practicum.service.product;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import ru.practicum.config.cache.CacheNamespace;
+import ru.practicum.config.cache.product.ProductCacheRebuildProperties;
+import ru.practicum.config.cache.product.ProductCacheTtlProperties;
 import ru.practicum.dto.product.cache.ProductCacheDto;
 import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.product.Product;
 import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheBulkWriter;
+import ru.practicum.service.cache.CacheLockService;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,27 +55,138 @@ public class ProductCacheServiceImpl implements ProductCacheService {
     /**
      * Кеш всех товаров
      */
-    private final ReactiveRedisTemplate<String, List<ProductCacheDto>> listCacheTemplate;
+    private final ProductCatalogCacheStore catalogCacheStore;
+
+    /**
+     * Пакетная запись в кеш
+     */
+    private final CacheBulkWriter cacheBulkWriter;
+
+    /**
+     * Фильтр известных идентификаторов товаров
+     */
+    private final ProductIdFilter productIdFilter;
+
+    /**
+     * Сервис распределенных блокировок
+     */
+    private final CacheLockService cacheLockService;
+
+    /**
+     * Конфигурация перестроения кеша каталога
+     */
+    private final ProductCacheRebuildProperties rebuildProperties;
+
+    /**
+     * Мягкий и жесткий TTL записей
+     */
+    private final ProductCacheTtlProperties ttlProperties;
+
+    /**
+     * Пространство имен ключей кеша
+     */
+    private final CacheNamespace cacheNamespace;
+
+    /**
+     * Выполняющиеся на этом узле перестроения кеша: все промахи по ключу ждут одну загрузку
+     */
+    private final Map<String, Mono<List<Product>>> inFlightRebuilds = new ConcurrentHashMap<>();
+
+    /**
+     * Ключи, которые сейчас обновляются в фоне на этом узле
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
 
     private static final String ALL_PRODUCTS_KEY = "all_products";
+    private static final String STALE_ALL_PRODUCTS_KEY = ALL_PRODUCTS_KEY + ":stale";
     private static final String PRODUCT_KEY_PREFIX = "product:";
-    private static final Duration CACHE_TTL = Duration.ofMinutes(2);
 
     @Override
     public Flux<Product> getAllProducts() {
-        return listCacheTemplate.opsForValue().get(ALL_PRODUCTS_KEY)
-                .defaultIfEmpty(Collections.emptyList())
-                .flatMapMany(list -> list.isEmpty()
-                        ? fetchAndCacheAllProducts()
-                        : Flux.fromIterable(list).map(productMapper::productCacheDtoToProduct));
+        return Mono.zip(getCachedProductList(allProductsKey()), catalogCacheStore.getRemainingTtl(allProductsKey()))
+                .map(cached -> {
+                    refreshCatalogIfStale(cached.getT2());
+                    return cached.getT1();
+                })
+                .switchIfEmpty(Mono.defer(this::rebuildAllProducts))
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Mono<Page<Product>> getProductPage(Pageable pageable) {
+        return Mono.zip(catalogCacheStore.getPage(allProductsKey(), null, pageable),
+                        catalogCacheStore.getRemainingTtl(allProductsKey()))
+                .<Page<Product>>map(cached -> {
+                    refreshCatalogIfStale(cached.getT2());
+                    return cached.getT1().map(productMapper::productCacheDtoToProduct);
+                })
+                .switchIfEmpty(Mono.defer(() -> getAllProducts()
+                        .collectList()
+                        .map(products -> toPage(products, pageable))));
     }
 
     @Override
     public Mono<Product> getProductById(UUID uuid) {
-        return productCacheTemplate.opsForValue().get(PRODUCT_KEY_PREFIX + uuid)
-                .flatMap(dto -> Mono.justOrEmpty(productMapper.productCacheDtoToProduct(dto)))
+        if (!productIdFilter.mightExist(uuid)) {
+            return Mono.error(new ProductNotFoundException("Product not found"));
+        }
+
+        String key = productKey(uuid);
+        return Mono.zip(productCacheTemplate.opsForValue().get(key), getRemainingTtl(productCacheTemplate, key))
+                .flatMap(cached -> {
+                    if (ttlProperties.isStale(cached.getT2())) {
+                        refreshInBackground(key, () -> refreshProduct(uuid));
+                    }
+                    return Mono.justOrEmpty(productMapper.productCacheDtoToProduct(cached.getT1()));
+                })
                 .switchIfEmpty(fetchAndCacheProduct(uuid))
-                .onErrorResume(e -> fetchAndCacheProduct(uuid));
+                .onErrorResume(e -> !(e instanceof ProductNotFoundException), e -> fetchAndCacheProduct(uuid));
+    }
+
+    @Override
+    public Mono<Map<UUID, Product>> getProductsByIds(Collection<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<UUID> ids = uuids.stream()
+                .distinct()
+                .filter(productIdFilter::mightExist)
+                .toList();
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<String> keys = ids.stream()
+                .map(this::productKey)
+                .toList();
+
+        return productCacheTemplate.opsForValue().multiGet(keys)
+                .onErrorResume(e -> Mono.just(Collections.nCopies(ids.size(), null)))
+                .flatMap(cached -> {
+                    Map<UUID, Product> found = new HashMap<>();
+                    List<UUID> missingIds = new ArrayList<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        ProductCacheDto dto = i < cached.size() ? cached.get(i) : null;
+                        if (dto != null) {
+                            found.put(ids.get(i), productMapper.productCacheDtoToProduct(dto));
+                        } else {
+                            missingIds.add(ids.get(i));
+                        }
+                    }
+
+                    if (missingIds.isEmpty()) {
+                        return Mono.just(found);
+                    }
+
+                    return productRepository.findAllById(missingIds)
+                            .map(productMapper::productDaoToProduct)
+                            .collectList()
+                            .flatMap(loaded -> {
+                                loaded.forEach(product -> found.put(product.getUuid(), product));
+                                return backfillProducts(loaded).thenReturn(found);
+                            });
+                });
     }
 
     @Override
@@ -73,63 +198,188 @@ public class ProductCacheServiceImpl implements ProductCacheService {
         List<ProductCacheDto> dtos = products.stream()
                 .map(productMapper::productToCacheDto)
                 .collect(Collectors.toList());
+        List<ProductCacheDto> summaries = products.stream()
+                .map(productMapper::productToSummaryCacheDto)
+                .toList();
+        productIdFilter.add(dtos.stream().map(ProductCacheDto::getUuid).toList());
 
-        Mono<Void> cacheIndividualProducts = Flux.fromIterable(dtos)
-                .parallel()
-                .runOn(Schedulers.boundedElastic())
-                .flatMap(dto -> productCacheTemplate.opsForValue()
-                        .set(PRODUCT_KEY_PREFIX + dto.getUuid(), dto, CACHE_TTL))
-                .sequential()
-                .then();
+        Mono<Void> cacheIndividualProducts = cacheBulkWriter.setAll(productCacheTemplate, byKey(dtos), ttlProperties.hard());
+
+        Mono<Void> updateProductList = catalogCacheStore.upsert(allProductsKey(), summaries);
+        Mono<Void> updateStaleProductList = catalogCacheStore.upsert(staleAllProductsKey(), summaries);
+
+        return Mono.when(cacheIndividualProducts, updateProductList, updateStaleProductList);
+    }
+
+    @Override
+    public Mono<Void> evictProducts(Collection<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return Mono.empty();
+        }
 
-        Mono<Void> updateProductList = listCacheTemplate.opsForValue()
-                .set(ALL_PRODUCTS_KEY, dtos, CACHE_TTL)
+        Mono<Void> evictIndividualProducts = productCacheTemplate.delete(Flux.fromIterable(uuids).map(this::productKey))
                 .then();
+        Mono<Void> removeFromProductList = catalogCacheStore.remove(allProductsKey(), uuids);
+        Mono<Void> removeFromStaleProductList = catalogCacheStore.remove(staleAllProductsKey(), uuids);
 
-        return Mono.when(cacheIndividualProducts, updateProductList);
+        return Mono.when(evictIndividualProducts, removeFromProductList, removeFromStaleProductList);
     }
 
     @Override
     public Mono<Void> evictListCache() {
-        return listCacheTemplate.delete(ALL_PRODUCTS_KEY).then();
+        return catalogCacheStore.delete(allProductsKey());
+    }
+
+    /**
+     * Страница из полного списка товаров
+     */
+    static Page<Product> toPage(List<Product> products, Pageable pageable) {
+        int start = (int) Math.min(pageable.getOffset(), products.size());
+        int end = Math.min(start + pageable.getPageSize(), products.size());
+        return new PageImpl<>(products.subList(start, end), pageable, products.size());
     }
 
-    private Flux<Product> fetchAndCacheAllProducts() {
+    /**
+     * Добавить в кеш товары, загруженные из базы данных, ошибки кеша не прерывают чтение
+     */
+    private Mono<Void> backfillProducts(List<Product> products) {
+        List<ProductCacheDto> dtos = products.stream()
+                .map(productMapper::productToCacheDto)
+                .toList();
+
+        return cacheBulkWriter.setAll(productCacheTemplate, byKey(dtos), ttlProperties.hard())
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Записи товаров по ключу кеша
+     */
+    private Map<String, ProductCacheDto> byKey(List<ProductCacheDto> dtos) {
+        Map<String, ProductCacheDto> values = new LinkedHashMap<>();
+        dtos.forEach(dto -> values.put(productKey(dto.getUuid()), dto));
+        return values;
+    }
+
+    /**
+     * Запустить фоновое перестроение каталога, если он старше мягкого TTL.
+     * Перестраивает только узел, получивший блокировку
+     */
+    private void refreshCatalogIfStale(Duration remainingTtl) {
+        if (ttlProperties.isStale(remainingTtl)) {
+            String key = allProductsKey();
+            refreshInBackground(key, () -> Mono.usingWhen(
+                    cacheLockService.tryAcquire(key, rebuildProperties.lockLease()),
+                    token -> fetchAndCacheAllProducts(),
+                    token -> cacheLockService.release(key, token)));
+        }
+    }
+
+    private Mono<Duration> getRemainingTtl(ReactiveRedisTemplate<String, ?> template, String key) {
+        return template.getExpire(key).defaultIfEmpty(Duration.ZERO);
+    }
+
+    /**
+     * Запустить фоновое обновление устаревшей записи, если оно еще не выполняется на этом узле.
+     * Ошибка обновления не затрагивает читателей: запись остается в кеше до жесткого TTL
+     */
+    private void refreshInBackground(String key, Supplier<Mono<?>> refresh) {
+        if (refreshingKeys.add(key)) {
+            Mono.defer(refresh)
+                    .doFinally(signal -> refreshingKeys.remove(key))
+                    .subscribe(ignored -> {
+                    }, error -> {
+                    });
+        }
+    }
+
+    private Mono<Void> refreshProduct(UUID uuid) {
+        String key = productKey(uuid);
+        return productRepository.findById(uuid)
+                .map(productMapper::productDaoToProduct)
+                .map(productMapper::productToCacheDto)
+                .flatMap(dto -> productCacheTemplate.opsForValue().set(key, dto, ttlProperties.hard()))
+                .switchIfEmpty(Mono.defer(() -> productCacheTemplate.delete(key).thenReturn(true)))
+                .then();
+    }
+
+    private Mono<List<Product>> getCachedProductList(String key) {
+        return catalogCacheStore.getAll(key)
+                .filter(list -> !list.isEmpty())
+                .map(list -> list.stream()
+                        .map(productMapper::productCacheDtoToProduct)
+                        .toList());
+    }
+
+    /**
+     * Перестроить кеш каталога. На узле выполняется не более одного перестроения одновременно,
+     * в кластере - только владельцем блокировки; остальные узлы ждут его результата,
+     * а не дождавшись, отдают устаревшую копию каталога
+     */
+    private Mono<List<Product>> rebuildAllProducts() {
+        return inFlightRebuilds.computeIfAbsent(allProductsKey(), key -> Mono.usingWhen(
+                        cacheLockService.tryAcquire(key, rebuildProperties.lockLease()),
+                        token -> fetchAndCacheAllProducts(),
+                        token -> cacheLockService.release(key, token))
+                .switchIfEmpty(Mono.defer(this::awaitRebuildOrServeStale))
+                .doFinally(signal -> inFlightRebuilds.remove(key))
+                .cache());
+    }
+
+    private Mono<List<Product>> awaitRebuildOrServeStale() {
+        long polls = Math.max(1, rebuildProperties.waitTimeout().toMillis() / rebuildProperties.pollInterval().toMillis());
+
+        return getCachedProductList(allProductsKey())
+                .repeatWhenEmpty(repeats -> repeats.take(polls).delayElements(rebuildProperties.pollInterval()))
+                .switchIfEmpty(Mono.defer(() -> getCachedProductList(staleAllProductsKey())))
+                .switchIfEmpty(Mono.defer(this::fetchAndCacheAllProducts));
+    }
+
+    /**
+     * Загрузить каталог из базы данных и сохранить его в кеш в кратком представлении
+     */
+    private Mono<List<Product>> fetchAndCacheAllProducts() {
         return productRepository.findAll()
                 .map(productMapper::productDaoToProduct)
+                .map(productMapper::productToSummaryCacheDto)
                 .collectList()
-                .flatMapMany(products -> {
-                    List<ProductCacheDto> dtos = products.stream()
-                            .map(productMapper::productToCacheDto)
-                            .collect(Collectors.toList());
-
-                    return listCacheTemplate.opsForValue()
-                            .set(ALL_PRODUCTS_KEY, dtos, CACHE_TTL)
-                            .thenMany(Flux.fromIterable(products));
-                });
+                .flatMap(summaries -> Mono.when(
+                        catalogCacheStore.put(allProductsKey(), summaries, ttlProperties.hard()),
+                        catalogCacheStore.put(staleAllProductsKey(), summaries, rebuildProperties.staleTtl())
+                ).thenReturn(summaries.stream()
+                        .map(productMapper::productCacheDtoToProduct)
+                        .toList()));
     }
 
     private Mono<Product> fetchAndCacheProduct(UUID id) {
         return Mono.defer(() -> productRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ProductNotFoundException("Product not found")))
+                .switchIfEmpty(Mono.defer(() -> {
+                    productIdFilter.markMissing(id);
+                    return Mono.error(new ProductNotFoundException("Product not found"));
+                }))
                 .flatMap(dao -> {
                     Product product = productMapper.productDaoToProduct(dao);
                     ProductCacheDto dto = productMapper.productToCacheDto(product);
 
                     return Mono.zip(
                             productCacheTemplate.opsForValue()
-                                    .set(PRODUCT_KEY_PREFIX + id, dto, CACHE_TTL)
+                                    .set(productKey(id), dto, ttlProperties.hard())
                                     .onErrorResume(e -> Mono.empty()),
-                            listCacheTemplate.opsForValue().get(ALL_PRODUCTS_KEY)
-                                    .defaultIfEmpty(new ArrayList<>())
-                                    .flatMap(list -> {
-                                        list.removeIf(item -> item.getUuid().equals(id));
-                                        list.add(dto);
-                                        return listCacheTemplate.opsForValue()
-                                                .set(ALL_PRODUCTS_KEY, list, CACHE_TTL)
-                                                .onErrorResume(e -> Mono.empty());
-                                    })
+                            catalogCacheStore.upsert(allProductsKey(), List.of(productMapper.productToSummaryCacheDto(product)))
+                                    .thenReturn(true)
+                                    .onErrorResume(e -> Mono.just(false))
                     ).thenReturn(product);
                 }));
     }
-}
\ No newline at end of file
+
+    private String allProductsKey() {
+        return cacheNamespace.key(ALL_PRODUCTS_KEY);
+    }
+
+    private String staleAllProductsKey() {
+        return cacheNamespace.key(STALE_ALL_PRODUCTS_KEY);
+    }
+
+    private String productKey(UUID uuid) {
+        return cacheNamespace.key(PRODUCT_KEY_PREFIX + uuid);
+    }
+}
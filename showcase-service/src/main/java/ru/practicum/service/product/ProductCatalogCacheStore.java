@@ -0,0 +1,79 @@
+package ru.practicum.service.product;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+import ru.practicum.dto.product.cache.ProductCacheDto;
+import ru.practicum.model.product.ProductSort;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Хранилище каталога товаров в Redis: хеш товаров по идентификатору
+ * и упорядоченные множества для порядка каталога, цены и названия
+ */
+public interface ProductCatalogCacheStore {
+
+    /**
+     * Получить весь каталог
+     *
+     * @param key Ключ каталога
+     * @return Товары в порядке каталога или пустой результат, если каталога нет в кеше
+     */
+    Mono<List<ProductCacheDto>> getAll(String key);
+
+    /**
+     * Получить страницу каталога, читая только товары этой страницы
+     *
+     * @param key      Ключ каталога
+     * @param sort     Сортировка (null - порядок каталога)
+     * @param pageable Страница
+     * @return Страница товаров или пустой результат, если каталога нет в кеше
+     */
+    Mono<Page<ProductCacheDto>> getPage(String key, ProductSort sort, Pageable pageable);
+
+    /**
+     * Сохранить каталог целиком. Читатели видят либо прежнюю, либо новую версию каталога
+     *
+     * @param key      Ключ каталога
+     * @param products Товары каталога
+     * @param ttl      Время жизни
+     */
+    Mono<Void> put(String key, List<ProductCacheDto> products, Duration ttl);
+
+    /**
+     * Добавить товары в каталог или обновить их одной атомарной операцией на стороне Redis.
+     * Если каталога нет в кеше, вызов игнорируется
+     *
+     * @param key      Ключ каталога
+     * @param products Товары
+     */
+    Mono<Void> upsert(String key, List<ProductCacheDto> products);
+
+    /**
+     * Удалить товары из каталога одной атомарной операцией на стороне Redis.
+     * Если каталога нет в кеше, вызов игнорируется
+     *
+     * @param key        Ключ каталога
+     * @param productIds Идентификаторы товаров
+     */
+    Mono<Void> remove(String key, Collection<UUID> productIds);
+
+    /**
+     * Получить оставшееся время жизни каталога
+     *
+     * @param key Ключ каталога
+     * @return Оставшееся время жизни (ноль, если каталога нет в кеше)
+     */
+    Mono<Duration> getRemainingTtl(String key);
+
+    /**
+     * Удалить каталог
+     *
+     * @param key Ключ каталога
+     */
+    Mono<Void> delete(String key);
+}
@@ -0,0 +1,374 @@
+package ru.practicum.service.product;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.config.cache.CacheSerializerFactory;
+import ru.practicum.config.cache.product.ProductCatalogCacheProperties;
+import ru.practicum.dto.product.cache.ProductCacheDto;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Каталог хранится под ключом-манифестом с номером версии и набором ключей этой версии:
+ * хешем товаров по идентификатору и упорядоченными множествами порядка каталога, цены и названия.
+ * Полная запись загружает новую версию пачками и переключает манифест последней командой,
+ * точечные изменения выполняются Lua-скриптами и не переписывают каталог целиком.
+ */
+@Service
+public class ProductCatalogCacheStoreImpl implements ProductCatalogCacheStore {
+
+    /**
+     * Ключи версии живут дольше манифеста, чтобы манифест не ссылался на истекшие ключи
+     */
+    private static final Duration VERSION_TTL_MARGIN = Duration.ofMinutes(1);
+
+    /**
+     * Время жизни ключей замененной или удаленной версии каталога
+     */
+    private static final Duration RETIRED_VERSION_TTL = Duration.ofSeconds(10);
+
+    /**
+     * Разделитель названия и идентификатора в элементах индекса названий
+     */
+    private static final char NAME_SEPARATOR = '\0';
+
+    /**
+     * Загрузка пачки товаров в еще не опубликованную версию каталога.
+     * KEYS - ключи версии, ARGV[1] - время жизни, далее по пять значений на товар:
+     * идентификатор, значение, позиция в каталоге, цена, элемент индекса названий
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of("""
+            for i = 2, #ARGV, 5 do
+                redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1])
+                redis.call('zadd', KEYS[2], ARGV[i + 2], ARGV[i])
+                redis.call('zadd', KEYS[3], ARGV[i + 3], ARGV[i])
+                redis.call('zadd', KEYS[4], 0, ARGV[i + 4])
+                redis.call('hset', KEYS[5], ARGV[i], ARGV[i + 4])
+            end
+            for i = 1, #KEYS do
+                redis.call('pexpire', KEYS[i], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Переключение манифеста на новую версию (ARGV[1]) или удаление манифеста (ARGV[1] пустой).
+     * Возвращает прежнюю версию или пустую строку
+     */
+    private static final RedisScript<byte[]> SWITCH_SCRIPT = RedisScript.of("""
+            local previous = redis.call('get', KEYS[1])
+            if ARGV[1] == '' then
+                redis.call('del', KEYS[1])
+            else
+                redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            end
+            return previous or ''
+            """, byte[].class);
+
+    /**
+     * Добавление или обновление товаров в опубликованной версии каталога.
+     * KEYS[1] - манифест, далее ключи версии; ARGV[1] - ожидаемая версия, далее по четыре значения на товар:
+     * идентификатор, значение, цена, элемент индекса названий. Если версия сменилась, ничего не меняется
+     */
+    private static final RedisScript<Long> UPSERT_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            for i = 2, #ARGV, 4 do
+                local id = ARGV[i]
+                redis.call('hset', KEYS[2], id, ARGV[i + 1])
+                if not redis.call('zscore', KEYS[3], id) then
+                    local last = redis.call('zrange', KEYS[3], -1, -1, 'WITHSCORES')
+                    redis.call('zadd', KEYS[3], (tonumber(last[2]) or -1) + 1, id)
+                end
+                redis.call('zadd', KEYS[4], ARGV[i + 2], id)
+                local previousName = redis.call('hget', KEYS[6], id)
+                if previousName then
+                    redis.call('zrem', KEYS[5], previousName)
+                end
+                redis.call('zadd', KEYS[5], 0, ARGV[i + 3])
+                redis.call('hset', KEYS[6], id, ARGV[i + 3])
+            end
+            local ttl = redis.call('pttl', KEYS[1])
+            for i = 2, #KEYS do
+                if ttl > 0 and redis.call('pttl', KEYS[i]) == -1 then
+                    redis.call('pexpire', KEYS[i], ttl)
+                end
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Удаление товаров из опубликованной версии каталога.
+     * KEYS[1] - манифест, далее ключи версии; ARGV[1] - ожидаемая версия, далее идентификаторы товаров
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            for i = 2, #ARGV do
+                local id = ARGV[i]
+                redis.call('hdel', KEYS[2], id)
+                redis.call('zrem', KEYS[3], id)
+                redis.call('zrem', KEYS[4], id)
+                local name = redis.call('hget', KEYS[6], id)
+                if name then
+                    redis.call('zrem', KEYS[5], name)
+                    redis.call('hdel', KEYS[6], id)
+                end
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Шаблон Redis для манифестов и индексов
+     */
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Шаблон Redis для хеша товаров и скриптов
+     */
+    private final ReactiveRedisTemplate<String, byte[]> catalogTemplate;
+
+    /**
+     * Сериализатор товара
+     */
+    private final RedisSerializer<ProductCacheDto> productSerializer;
+
+    /**
+     * Конфигурация хранения каталога
+     */
+    private final ProductCatalogCacheProperties properties;
+
+    public ProductCatalogCacheStoreImpl(ReactiveStringRedisTemplate stringRedisTemplate,
+                                        ReactiveRedisTemplate<String, byte[]> productCatalogCacheTemplate,
+                                        CacheSerializerFactory cacheSerializerFactory,
+                                        ProductCatalogCacheProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.catalogTemplate = productCatalogCacheTemplate;
+        this.productSerializer = cacheSerializerFactory.create(ProductCacheDto.class);
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<List<ProductCacheDto>> getAll(String key) {
+        return getVersion(key).flatMap(version -> {
+            VersionKeys keys = new VersionKeys(key, version);
+            return stringRedisTemplate.opsForZSet().range(keys.order(), Range.unbounded())
+                    .buffer(properties.batchSize())
+                    .flatMapSequential(ids -> readProducts(keys, ids))
+                    .flatMapIterable(products -> products)
+                    .collectList();
+        });
+    }
+
+    @Override
+    public Mono<Page<ProductCacheDto>> getPage(String key, ProductSort sort, Pageable pageable) {
+        return getVersion(key).flatMap(version -> {
+            VersionKeys keys = new VersionKeys(key, version);
+            String index = sort == null ? keys.order()
+                    : sort.ascending() == ProductSort.PRICE_ASC ? keys.price() : keys.name();
+            Range<Long> range = Range.closed(pageable.getOffset(), pageable.getOffset() + pageable.getPageSize() - 1);
+            Flux<String> members = sort != null && sort.isDescending()
+                    ? stringRedisTemplate.opsForZSet().reverseRange(index, range)
+                    : stringRedisTemplate.opsForZSet().range(index, range);
+
+            return members
+                    .map(member -> member.substring(member.lastIndexOf(NAME_SEPARATOR) + 1))
+                    .collectList()
+                    .zipWith(stringRedisTemplate.opsForZSet().size(index))
+                    .flatMap(found -> readProducts(keys, found.getT1())
+                            .map(content -> new PageImpl<>(content, pageable, found.getT2())));
+        });
+    }
+
+    @Override
+    public Mono<Void> put(String key, List<ProductCacheDto> products, Duration ttl) {
+        VersionKeys keys = new VersionKeys(key, UUID.randomUUID().toString());
+        byte[] versionTtl = bytes(String.valueOf(ttl.plus(VERSION_TTL_MARGIN).toMillis()));
+
+        Mono<Void> load = Flux.range(0, (products.size() + properties.batchSize() - 1) / properties.batchSize())
+                .flatMap(batch -> Mono.fromCallable(() -> {
+                            List<Object> args = new ArrayList<>();
+                            args.add(versionTtl);
+                            int from = batch * properties.batchSize();
+                            int to = Math.min(from + properties.batchSize(), products.size());
+                            for (int position = from; position < to; position++) {
+                                ProductCacheDto product = products.get(position);
+                                args.add(bytes(product.getUuid().toString()));
+                                args.add(productSerializer.serialize(product));
+                                args.add(bytes(String.valueOf(position)));
+                                args.add(bytes(priceScore(product)));
+                                args.add(bytes(nameMember(product)));
+                            }
+                            return args;
+                        })
+                        .subscribeOn(Schedulers.parallel())
+                        .flatMapMany(args -> catalogTemplate.execute(LOAD_SCRIPT, keys.data(), args)))
+                .then();
+
+        return load.then(Mono.defer(() -> switchVersion(key, keys.version(), ttl)));
+    }
+
+    @Override
+    public Mono<Void> upsert(String key, List<ProductCacheDto> products) {
+        if (products == null || products.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return getVersion(key).flatMap(version -> {
+            List<Object> args = new ArrayList<>();
+            args.add(bytes(version));
+            for (ProductCacheDto product : products) {
+                args.add(bytes(product.getUuid().toString()));
+                args.add(productSerializer.serialize(product));
+                args.add(bytes(priceScore(product)));
+                args.add(bytes(nameMember(product)));
+            }
+
+            return catalogTemplate.execute(UPSERT_SCRIPT, scriptKeys(key, version), args).then();
+        });
+    }
+
+    @Override
+    public Mono<Void> remove(String key, Collection<UUID> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return getVersion(key).flatMap(version -> {
+            List<Object> args = new ArrayList<>();
+            args.add(bytes(version));
+            productIds.forEach(id -> args.add(bytes(id.toString())));
+
+            return catalogTemplate.execute(REMOVE_SCRIPT, scriptKeys(key, version), args).then();
+        });
+    }
+
+    @Override
+    public Mono<Duration> getRemainingTtl(String key) {
+        return stringRedisTemplate.getExpire(key).defaultIfEmpty(Duration.ZERO);
+    }
+
+    @Override
+    public Mono<Void> delete(String key) {
+        return switchVersion(key, "", Duration.ZERO);
+    }
+
+    /**
+     * Переключить манифест и сократить время жизни ключей прежней версии каталога
+     */
+    private Mono<Void> switchVersion(String key, String version, Duration ttl) {
+        return catalogTemplate.execute(SWITCH_SCRIPT, List.of(key),
+                        List.of(bytes(version), bytes(String.valueOf(ttl.toMillis()))))
+                .next()
+                .map(previous -> new String(previous, StandardCharsets.UTF_8))
+                .filter(previous -> !previous.isEmpty())
+                .flatMapMany(previous -> Flux.fromIterable(new VersionKeys(key, previous).data()))
+                .flatMap(retired -> catalogTemplate.expire(retired, RETIRED_VERSION_TTL))
+                .then();
+    }
+
+    /**
+     * Ключи точечных скриптов: манифест и ключи опубликованной версии
+     */
+    private static List<String> scriptKeys(String key, String version) {
+        List<String> scriptKeys = new ArrayList<>();
+        scriptKeys.add(key);
+        scriptKeys.addAll(new VersionKeys(key, version).data());
+        return scriptKeys;
+    }
+
+    private Mono<String> getVersion(String key) {
+        return stringRedisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * Прочитать товары одной командой HMGET и распаковать их вне потока ввода-вывода
+     */
+    private Mono<List<ProductCacheDto>> readProducts(VersionKeys keys, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return catalogTemplate.<String, byte[]>opsForHash().multiGet(keys.items(), ids)
+                .publishOn(Schedulers.parallel())
+                .map(values -> values.stream()
+                        .filter(Objects::nonNull)
+                        .map(productSerializer::deserialize)
+                        .toList());
+    }
+
+    private static String priceScore(ProductCacheDto product) {
+        BigDecimal price = product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+        return String.valueOf(price.doubleValue());
+    }
+
+    /**
+     * Элемент индекса названий: при равной оценке Redis упорядочивает элементы по байтам,
+     * поэтому название приводится к нижнему регистру, а идентификатор делает элемент уникальным
+     */
+    private static String nameMember(ProductCacheDto product) {
+        String name = product.getName() != null ? product.getName().toLowerCase(Locale.ROOT) : "";
+        return name + NAME_SEPARATOR + product.getUuid();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ключи одной версии каталога
+     *
+     * @param key     Ключ каталога
+     * @param version Версия
+     */
+    private record VersionKeys(String key, String version) {
+
+        String items() {
+            return key + ":" + version + ":items";
+        }
+
+        String order() {
+            return key + ":" + version + ":order";
+        }
+
+        String price() {
+            return key + ":" + version + ":price";
+        }
+
+        String name() {
+            return key + ":" + version + ":name";
+        }
+
+        String names() {
+            return key + ":" + version + ":names";
+        }
+
+        /**
+         * Ключи данных версии в порядке, ожидаемом скриптами
+         */
+        List<String> data() {
+            return List.of(items(), order(), price(), name(), names());
+        }
+    }
+}
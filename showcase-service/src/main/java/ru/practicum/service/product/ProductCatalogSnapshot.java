@@ -0,0 +1,35 @@
+package ru.practicum.service.product;
+
+import reactor.core.publisher.Mono;
+import ru.practicum.model.product.Product;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Снимок каталога товаров на локальном диске узла.
+ * Файл отображается в память, поэтому чтение из него не требует ни Redis, ни базы данных.
+ */
+public interface ProductCatalogSnapshot {
+
+    /**
+     * Получить каталог из снимка в кратком представлении
+     *
+     * @return Товары в порядке каталога или пустой результат, если снимка нет
+     */
+    Optional<List<Product>> getCatalog();
+
+    /**
+     * Получить товар из снимка
+     *
+     * @param uuid Идентификатор товара
+     * @return Товар с полным описанием или пустой результат, если снимка или товара в нем нет
+     */
+    Optional<Product> getProduct(UUID uuid);
+
+    /**
+     * Перезаписать снимок по таблице товаров и открыть новый файл
+     */
+    Mono<Void> refresh();
+}
@@ -0,0 +1,365 @@
+package ru.practicum.service.product;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.config.CatalogSeed;
+import ru.practicum.config.cache.product.ProductSnapshotProperties;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимок каталога товаров в двоичном файле, отображаемом в память.
+ * <p>
+ * Файл состоит из заголовка (сигнатура, версия формата, время создания, число товаров, длина и CRC32 тела,
+ * отметка заполнения каталога)
+ * и тела: таблицы идентификаторов, упорядоченной для бинарного поиска, таблицы смещений в порядке каталога
+ * и записей товаров. Снимок с неизвестной версией формата или неверной контрольной суммой не используется.
+ * Новый снимок пишется во временный файл и атомарно заменяет прежний, читатели открытого снимка его не замечают.
+ * Снимок, записанный до пересоздания каталога (с другой отметкой заполнения), не открывается:
+ * его идентификаторы товаров в базе уже не существуют.
+ */
+@Service
+public class ProductCatalogSnapshotImpl implements ProductCatalogSnapshot,
+        ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    /**
+     * Сигнатура файла снимка
+     */
+    static final int MAGIC = 0x59504353;
+
+    /**
+     * Версия формата снимка: увеличивается при любом изменении формата
+     */
+    static final int FORMAT_VERSION = 2;
+
+    /**
+     * Размер заголовка в байтах
+     */
+    static final int HEADER_SIZE = 48;
+
+    /**
+     * Размер элемента таблицы идентификаторов: идентификатор и смещение записи
+     */
+    private static final int ID_ENTRY_SIZE = 20;
+
+    /**
+     * Длина отсутствующей строки в записи
+     */
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * Репозиторий товаров
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Маппер товаров
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Конфигурация снимка
+     */
+    private final ProductSnapshotProperties properties;
+
+    /**
+     * Идентификатор заполнения каталога этого запуска (null, если неизвестен)
+     */
+    private final UUID seedId;
+
+    /**
+     * Открытый снимок (null, если снимка нет)
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Периодическая перезапись снимка
+     */
+    private Disposable writing;
+
+    public ProductCatalogSnapshotImpl(ProductRepository productRepository,
+                                      ProductMapper productMapper,
+                                      ProductSnapshotProperties properties,
+                                      CatalogSeed catalogSeed) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.properties = properties;
+        this.seedId = catalogSeed.id();
+        if (properties.enabled()) {
+            this.snapshot = open(properties.path(), seedId);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        writing = Flux.interval(Duration.ZERO, properties.writeInterval())
+                .concatMap(tick -> refresh().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (writing != null) {
+            writing.dispose();
+        }
+    }
+
+    @Override
+    public Optional<List<Product>> getCatalog() {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.of(current.catalog(Product::summaryDescription));
+    }
+
+    @Override
+    public Optional<Product> getProduct(UUID uuid) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : current.find(uuid);
+    }
+
+    @Override
+    public Mono<Void> refresh() {
+        if (!properties.enabled()) {
+            return Mono.empty();
+        }
+
+        return productRepository.findAll()
+                .map(productMapper::productDaoToProduct)
+                .collectList()
+                .flatMap(products -> Mono.fromRunnable(() -> {
+                            write(properties.path(), products, System.currentTimeMillis(), seedId);
+                            snapshot = open(properties.path(), seedId);
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    /**
+     * Записать снимок во временный файл рядом с целевым и атомарно заменить им прежний
+     */
+    static void write(Path path, List<Product> products, long createdAt, UUID seedId) {
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                writeFile(temporary, products, createdAt, seedId);
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFile(Path file, List<Product> products, long createdAt, UUID seedId) throws IOException {
+        int count = products.size();
+        List<byte[][]> strings = new ArrayList<>(count);
+        int[] offsets = new int[count];
+        int position = count * (ID_ENTRY_SIZE + Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            Product product = products.get(i);
+            byte[][] encoded = {
+                    encode(product.getName()), encode(product.getDescription()), encode(product.getImageUrl())
+            };
+            strings.add(encoded);
+            offsets[i] = position;
+            position += 3 * Long.BYTES;
+            for (byte[] value : encoded) {
+                position += Integer.BYTES + (value == null ? 0 : value.length);
+            }
+        }
+        int bodyLength = position;
+
+        Integer[] byId = new Integer[count];
+        Arrays.setAll(byId, i -> i);
+        Arrays.sort(byId, (left, right) -> products.get(left).getUuid().compareTo(products.get(right).getUuid()));
+
+        CRC32 checksum = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+            for (int index : byId) {
+                UUID uuid = products.get(index).getUuid();
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                out.writeInt(offsets[index]);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int i = 0; i < count; i++) {
+                Product product = products.get(i);
+                out.writeLong(product.getUuid().getMostSignificantBits());
+                out.writeLong(product.getUuid().getLeastSignificantBits());
+                out.writeLong(ProductColumns.toMinorUnits(product.getPrice()));
+                for (byte[] value : strings.get(i)) {
+                    out.writeInt(value == null ? NULL_LENGTH : value.length);
+                    if (value != null) {
+                        out.write(value);
+                    }
+                }
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(createdAt)
+                    .putInt(count)
+                    .putInt(bodyLength)
+                    .putLong(checksum.getValue())
+                    .putLong(seedId == null ? 0 : seedId.getMostSignificantBits())
+                    .putLong(seedId == null ? 0 : seedId.getLeastSignificantBits())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Открыть снимок и проверить его заголовок, контрольную сумму и отметку заполнения каталога
+     *
+     * @param seedId Ожидаемая отметка заполнения (null - принимается любая)
+     * @return Снимок или null, если файла нет или он непригоден
+     */
+    static Snapshot open(Path path, UUID seedId) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(20) != size - HEADER_SIZE) {
+                return null;
+            }
+            if (seedId != null && (buffer.getLong(32) != seedId.getMostSignificantBits()
+                    || buffer.getLong(40) != seedId.getLeastSignificantBits())) {
+                return null;
+            }
+
+            ByteBuffer body = buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE);
+            CRC32 checksum = new CRC32();
+            checksum.update(body.duplicate());
+            if (checksum.getValue() != buffer.getLong(24)) {
+                return null;
+            }
+
+            return new Snapshot(body, buffer.getInt(16), buffer.getLong(8));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Тело открытого снимка. Чтение идет абсолютными операциями над общим буфером и безопасно из нескольких потоков
+     *
+     * @param body      Тело снимка
+     * @param count     Число товаров
+     * @param createdAt Время создания снимка, мс
+     */
+    record Snapshot(ByteBuffer body, int count, long createdAt) {
+
+        Optional<Product> find(UUID uuid) {
+            long most = uuid.getMostSignificantBits();
+            long least = uuid.getLeastSignificantBits();
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int entry = middle * ID_ENTRY_SIZE;
+                int result = Long.compare(body.getLong(entry), most);
+                if (result == 0) {
+                    result = Long.compare(body.getLong(entry + Long.BYTES), least);
+                }
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return Optional.of(read(body.getInt(entry + 2 * Long.BYTES), Function.identity()));
+                }
+            }
+            return Optional.empty();
+        }
+
+        List<Product> catalog(Function<String, String> description) {
+            int table = count * ID_ENTRY_SIZE;
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                products.add(read(body.getInt(table + i * Integer.BYTES), description));
+            }
+            return List.copyOf(products);
+        }
+
+        private Product read(int offset, Function<String, String> description) {
+            int[] position = {offset + 3 * Long.BYTES};
+            return Product.builder()
+                    .uuid(new UUID(body.getLong(offset), body.getLong(offset + Long.BYTES)))
+                    .price(BigDecimal.valueOf(body.getLong(offset + 2 * Long.BYTES), ProductColumns.PRICE_SCALE))
+                    .name(readString(position))
+                    .description(description.apply(readString(position)))
+                    .imageUrl(readString(position))
+                    .build();
+        }
+
+        private String readString(int[] position) {
+            int length = body.getInt(position[0]);
+            position[0] += Integer.BYTES;
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+
+            byte[] bytes = new byte[length];
+            body.get(position[0], bytes);
+            position[0] += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ru.practicum.service.product;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.practicum.config.cache.product.ProductChangeCaptureProperties;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheLockService;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Захват изменений таблицы товаров: триггер отправляет идентификатор измененной строки через NOTIFY,
+ * узел получает уведомления по LISTEN и применяет их к кешу пакетами.
+ * Найденные в таблице товары добавляются или обновляются в кеше, ненайденные удаляются из него,
+ * поэтому изменения в обход приложения (загрузки, ручные правки) не ждут истечения TTL.
+ * Уведомления получают все узлы, но общий кеш в Redis обновляет только узел, удерживающий аренду писателя;
+ * поисковый индекс, отсортированные представления и фильтр идентификаторов обновляет каждый узел.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductChangeListener implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    /**
+     * Канал уведомлений триггера таблицы товаров (product-changes.sql)
+     */
+    private static final String CHANNEL = "product_changes";
+
+    /**
+     * Максимальная задержка переподключения
+     */
+    private static final Duration MAX_RECONNECT_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Блокировка узла, записывающего изменения в общий кеш
+     */
+    private static final String WRITER_LOCK = "product-change-writer";
+
+    /**
+     * Фабрика соединений с базой данных
+     */
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * Репозиторий товаров
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Маппер товаров
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Сервис кеширования товаров
+     */
+    private final ProductCacheService productCacheService;
+
+    /**
+     * Инвертированный индекс товаров в памяти
+     */
+    private final ProductSearchIndex productSearchIndex;
+
+    /**
+     * Отсортированные представления каталога в памяти
+     */
+    private final ProductSortedViews productSortedViews;
+
+    /**
+     * Обновление локальных кешей товаров узла
+     */
+    private final ProductNearCacheInvalidationHandler nearCacheInvalidationHandler;
+
+    /**
+     * Фильтр известных идентификаторов товаров
+     */
+    private final ProductIdFilter productIdFilter;
+
+    /**
+     * Сервис распределенных блокировок
+     */
+    private final CacheLockService cacheLockService;
+
+    /**
+     * Конфигурация захвата изменений
+     */
+    private final ProductChangeCaptureProperties properties;
+
+    /**
+     * Подключался ли узел к каналу раньше: уведомления, отправленные без подписки, потеряны
+     */
+    private final AtomicBoolean connectedBefore = new AtomicBoolean();
+
+    /**
+     * Токен аренды писателя, если писатель этот узел
+     */
+    private volatile String writerToken;
+
+    /**
+     * Подписка на уведомления
+     */
+    private Disposable subscription;
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        subscription = listen()
+                .bufferTimeout(properties.maxBatchSize(), properties.window())
+                .concatMap(batch -> apply(batch).onErrorResume(e -> Mono.empty()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.reconnectBackoff())
+                        .maxBackoff(MAX_RECONNECT_BACKOFF))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Применить пакет уведомлений к кешу. Состояние товара берется из таблицы на момент применения,
+     * поэтому порядок уведомлений внутри пакета не важен
+     *
+     * @param notifications Идентификаторы измененных товаров
+     */
+    Mono<Void> apply(List<String> notifications) {
+        Set<UUID> changedIds = new HashSet<>();
+        for (String notification : notifications) {
+            try {
+                changedIds.add(UUID.fromString(notification));
+            } catch (IllegalArgumentException e) {
+                // Уведомление не от триггера товаров
+            }
+        }
+        if (changedIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return productRepository.findAllById(changedIds)
+                .map(productMapper::productDaoToProduct)
+                .collectList()
+                .flatMap(products -> {
+                    Set<UUID> deletedIds = new HashSet<>(changedIds);
+                    products.forEach(product -> deletedIds.remove(product.getUuid()));
+
+                    return claimWriter()
+                            .flatMap(writer -> writer
+                                    ? cacheProducts(products).then(productCacheService.evictProducts(deletedIds))
+                                    : Mono.empty())
+                            .then(Mono.fromRunnable(() -> {
+                                productIdFilter.add(products.stream().map(Product::getUuid).toList());
+                                productSearchIndex.index(products);
+                                productSortedViews.add(products);
+                                if (!deletedIds.isEmpty()) {
+                                    productSearchIndex.refresh();
+                                    productSortedViews.refresh();
+                                }
+                            }));
+                });
+    }
+
+    /**
+     * Подписаться на канал на отдельном соединении. Уведомления начинают читаться до команды LISTEN,
+     * чтобы не потерять отправленные сразу после нее; закрытие соединения приводит к переподключению
+     */
+    private Flux<String> listen() {
+        return Flux.usingWhen(
+                        Mono.from(dedicatedConnectionFactory().create()).cast(PostgresqlConnection.class),
+                        connection -> Flux.merge(
+                                connection.getNotifications().mapNotNull(Notification::getParameter),
+                                connection.createStatement("LISTEN " + CHANNEL).execute()
+                                        .flatMap(PostgresqlResult::getRowsUpdated)
+                                        .then(Mono.defer(this::onConnected))
+                                        .thenMany(Flux.empty())),
+                        PostgresqlConnection::close)
+                .concatWith(Mono.error(() -> new IllegalStateException("Соединение LISTEN закрыто")));
+    }
+
+    /**
+     * Быть ли узлу писателем общего кеша: писатель продлевает аренду с каждым пакетом,
+     * истекшую аренду захватывает первый узел, применяющий пакет
+     */
+    private Mono<Boolean> claimWriter() {
+        return Mono.defer(() -> {
+                    String token = writerToken;
+                    Mono<String> acquire = Mono.defer(() ->
+                            cacheLockService.tryAcquire(WRITER_LOCK, properties.writerLease()));
+                    return token == null
+                            ? acquire
+                            : cacheLockService.extend(WRITER_LOCK, token, properties.writerLease())
+                                    .flatMap(extended -> extended ? Mono.just(token) : acquire);
+                })
+                .map(token -> {
+                    writerToken = token;
+                    return true;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    writerToken = null;
+                    return false;
+                }))
+                .onErrorResume(e -> {
+                    writerToken = null;
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * После переподключения сбросить локальные кеши узла: изменения, сделанные без подписки, неизвестны.
+     * Писатель уступает аренду узлу, который не терял подписку
+     */
+    Mono<Void> onConnected() {
+        if (!connectedBefore.getAndSet(true)) {
+            return Mono.empty();
+        }
+
+        String token = writerToken;
+        writerToken = null;
+        Mono<Void> resign = token == null
+                ? Mono.empty()
+                : cacheLockService.release(WRITER_LOCK, token).onErrorResume(e -> Mono.empty());
+        return resign.then(nearCacheInvalidationHandler.onResync());
+    }
+
+    private Mono<Void> cacheProducts(List<Product> products) {
+        return products.isEmpty() ? Mono.empty() : productCacheService.cacheProducts(products);
+    }
+
+    /**
+     * Соединение LISTEN занято на все время работы узла, поэтому открывается в обход пула
+     */
+    private ConnectionFactory dedicatedConnectionFactory() {
+        if (connectionFactory instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof ConnectionFactory target) {
+            return target;
+        }
+        return connectionFactory;
+    }
+}
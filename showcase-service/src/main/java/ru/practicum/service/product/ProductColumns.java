@@ -0,0 +1,332 @@
+package ru.practicum.service.product;
+
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Каталог товаров в колоночном виде: каждая строка - номер в примитивных массивах.
+ * Идентификатор хранится двумя long, цена - в копейках, строки - отрезками общего массива символов,
+ * поэтому каталог не держит по объекту Product, UUID, BigDecimal и String на каждый товар.
+ * Строки только добавляются: новая версия товара получает новую строку, а поиск по идентификатору
+ * возвращает последнюю. Класс не потокобезопасен.
+ */
+final class ProductColumns {
+
+    /**
+     * Число знаков после запятой в цене (DECIMAL(10, 2))
+     */
+    static final int PRICE_SCALE = 2;
+
+    /**
+     * Признак отсутствующей строки в массиве длин
+     */
+    private static final int NULL_LENGTH = -1;
+
+    private long[] mostSignificantBits;
+
+    private long[] leastSignificantBits;
+
+    /**
+     * Цены в минимальных единицах валюты
+     */
+    private long[] prices;
+
+    /**
+     * Начало и длина названия, описания и ссылки на изображение в общем массиве символов
+     */
+    private int[] stringOffsets;
+
+    private int[] stringLengths;
+
+    /**
+     * Общий массив символов всех строк каталога
+     */
+    private char[] chars;
+
+    private int charsSize;
+
+    /**
+     * Открытая адресация: номер строки + 1 по хешу идентификатора, 0 - пустая ячейка
+     */
+    private int[] rowsByUuid;
+
+    private int size;
+
+    ProductColumns(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        prices = new long[capacity];
+        stringOffsets = new int[capacity * 3];
+        stringLengths = new int[capacity * 3];
+        chars = new char[capacity * 32];
+        rowsByUuid = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /**
+     * Число строк, включая замененные версии товаров
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Добавить версию товара
+     *
+     * @param product Товар
+     * @return Номер строки
+     */
+    int add(Product product) {
+        if (size == prices.length) {
+            grow();
+        }
+
+        int row = size++;
+        mostSignificantBits[row] = product.getUuid().getMostSignificantBits();
+        leastSignificantBits[row] = product.getUuid().getLeastSignificantBits();
+        prices[row] = toMinorUnits(product.getPrice());
+        putString(row * 3, product.getName());
+        putString(row * 3 + 1, product.getDescription());
+        putString(row * 3 + 2, product.getImageUrl());
+        indexRow(row);
+        return row;
+    }
+
+    /**
+     * Освободить запас массивов после загрузки каталога целиком
+     */
+    void trimToSize() {
+        chars = Arrays.copyOf(chars, charsSize);
+        if (size < prices.length) {
+            int capacity = Math.max(size, 1);
+            mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+            leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            stringOffsets = Arrays.copyOf(stringOffsets, capacity * 3);
+            stringLengths = Arrays.copyOf(stringLengths, capacity * 3);
+        }
+    }
+
+    /**
+     * Номер последней строки товара
+     *
+     * @param uuid Идентификатор
+     * @return Номер строки или -1, если товара нет
+     */
+    int rowOf(UUID uuid) {
+        return rowOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Является ли строка последней версией своего товара
+     */
+    boolean isCurrent(int row) {
+        return rowOf(mostSignificantBits[row], leastSignificantBits[row]) == row;
+    }
+
+    UUID uuid(int row) {
+        return new UUID(mostSignificantBits[row], leastSignificantBits[row]);
+    }
+
+    long priceMinorUnits(int row) {
+        return prices[row];
+    }
+
+    /**
+     * Собрать товар из строки
+     */
+    Product get(int row) {
+        return Product.builder()
+                .uuid(uuid(row))
+                .name(getString(row * 3))
+                .description(getString(row * 3 + 1))
+                .price(BigDecimal.valueOf(prices[row], PRICE_SCALE))
+                .imageUrl(getString(row * 3 + 2))
+                .build();
+    }
+
+    /**
+     * Сравнить строки по ключу сортировки по возрастанию, при равенстве - по идентификатору товара,
+     * как {@link ProductSort#getComparator()} с добавленным идентификатором.
+     * Идентификаторы сравниваются без знака, как product_uuid в базе данных, поэтому курсор,
+     * выданный по базе, продолжает листание по колонкам с той же позиции
+     */
+    int compare(ProductSort sort, int left, int right) {
+        int result = switch (sort.ascending()) {
+            case NAME_ASC -> compareNames(left, right);
+            default -> Long.compare(prices[left], prices[right]);
+        };
+        return result != 0 ? result : compareUuids(left, mostSignificantBits[right], leastSignificantBits[right]);
+    }
+
+    /**
+     * Сравнить строку с позицией курсора в том же порядке, что и {@link #compare(ProductSort, int, int)}
+     *
+     * @return Отрицательное число, если строка раньше курсора, 0 - если это товар курсора, иначе положительное
+     */
+    int compare(ProductSort sort, int row, ProductCursor cursor) {
+        int result = switch (sort.ascending()) {
+            case NAME_ASC -> compareNames(chars, stringOffsets[row * 3], Math.max(stringLengths[row * 3], 0),
+                    cursor.key().toCharArray(), 0, cursor.key().length());
+            default -> Long.compare(prices[row], toMinorUnits(new BigDecimal(cursor.key())));
+        };
+        return result != 0
+                ? result
+                : compareUuids(row, cursor.uuid().getMostSignificantBits(), cursor.uuid().getLeastSignificantBits());
+    }
+
+    /**
+     * Сравнить названия без учета регистра, посимвольно как {@link String#CASE_INSENSITIVE_ORDER}
+     */
+    int compareNames(int left, int right) {
+        return compareNames(chars, stringOffsets[left * 3], Math.max(stringLengths[left * 3], 0),
+                chars, stringOffsets[right * 3], Math.max(stringLengths[right * 3], 0));
+    }
+
+    private static int compareNames(char[] leftChars, int leftOffset, int leftLength,
+                                    char[] rightChars, int rightOffset, int rightLength) {
+        int length = Math.min(leftLength, rightLength);
+        for (int i = 0; i < length; i++) {
+            char leftChar = leftChars[leftOffset + i];
+            char rightChar = rightChars[rightOffset + i];
+            if (leftChar == rightChar) {
+                continue;
+            }
+            leftChar = Character.toUpperCase(leftChar);
+            rightChar = Character.toUpperCase(rightChar);
+            if (leftChar == rightChar) {
+                continue;
+            }
+            leftChar = Character.toLowerCase(leftChar);
+            rightChar = Character.toLowerCase(rightChar);
+            if (leftChar != rightChar) {
+                return leftChar - rightChar;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    private int compareUuids(int row, long most, long least) {
+        int result = Long.compareUnsigned(mostSignificantBits[row], most);
+        return result != 0 ? result : Long.compareUnsigned(leastSignificantBits[row], least);
+    }
+
+    /**
+     * Текущие строки товаров, упорядоченные по ключу сортировки по возрастанию
+     */
+    int[] sortedRows(ProductSort sort) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (isCurrent(row)) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        mergeSort(sort, rows, new int[count], 0, count);
+        return rows;
+    }
+
+    /**
+     * Цена в минимальных единицах валюты
+     */
+    static long toMinorUnits(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private void putString(int slot, String value) {
+        if (value == null) {
+            stringOffsets[slot] = charsSize;
+            stringLengths[slot] = NULL_LENGTH;
+            return;
+        }
+
+        int length = value.length();
+        if (charsSize + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length + (chars.length >> 1), charsSize + length));
+        }
+        value.getChars(0, length, chars, charsSize);
+        stringOffsets[slot] = charsSize;
+        stringLengths[slot] = length;
+        charsSize += length;
+    }
+
+    private String getString(int slot) {
+        int length = stringLengths[slot];
+        return length == NULL_LENGTH ? null : new String(chars, stringOffsets[slot], length);
+    }
+
+    private int rowOf(long most, long least) {
+        int mask = rowsByUuid.length - 1;
+        for (int slot = hash(most, least) & mask; rowsByUuid[slot] != 0; slot = (slot + 1) & mask) {
+            int row = rowsByUuid[slot] - 1;
+            if (mostSignificantBits[row] == most && leastSignificantBits[row] == least) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void indexRow(int row) {
+        int mask = rowsByUuid.length - 1;
+        int slot = hash(mostSignificantBits[row], leastSignificantBits[row]) & mask;
+        while (rowsByUuid[slot] != 0) {
+            int existing = rowsByUuid[slot] - 1;
+            if (mostSignificantBits[existing] == mostSignificantBits[row]
+                    && leastSignificantBits[existing] == leastSignificantBits[row]) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        rowsByUuid[slot] = row + 1;
+    }
+
+    private void mergeSort(ProductSort sort, int[] rows, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(sort, rows, buffer, from, middle);
+        mergeSort(sort, rows, buffer, middle, to);
+        if (compare(sort, rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(sort, buffer[left], buffer[right]) <= 0)) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = prices.length * 2;
+        mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+        leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        stringOffsets = Arrays.copyOf(stringOffsets, capacity * 3);
+        stringLengths = Arrays.copyOf(stringLengths, capacity * 3);
+
+        rowsByUuid = new int[rowsByUuid.length * 2];
+        for (int row = 0; row < size; row++) {
+            indexRow(row);
+        }
+    }
+
+    private static int hash(long most, long least) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.service.product;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Фильтр известных идентификаторов товаров в памяти приложения: отсекает запросы несуществующих товаров
+ * без обращения к кешу и базе данных
+ */
+public interface ProductIdFilter {
+
+    /**
+     * Проверить, может ли существовать товар с таким идентификатором.
+     * Пока фильтр не построен, любой идентификатор считается возможным
+     *
+     * @param uuid Идентификатор товара
+     * @return false, если товара точно нет
+     */
+    boolean mightExist(UUID uuid);
+
+    /**
+     * Добавить идентификаторы созданных товаров
+     *
+     * @param uuids Идентификаторы товаров
+     */
+    void add(Collection<UUID> uuids);
+
+    /**
+     * Запомнить на короткое время, что товара нет в базе данных
+     *
+     * @param uuid Идентификатор товара
+     */
+    void markMissing(UUID uuid);
+
+    /**
+     * Перестроить фильтр по таблице товаров
+     */
+    Mono<Void> rebuild();
+}
@@ -0,0 +1,236 @@
+package ru.practicum.service.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.product.ProductIdFilterProperties;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Фильтр Блума по идентификаторам всех товаров и короткоживущий локальный кеш ненайденных товаров.
+ * Фильтр строится после старта приложения и периодически перестраивается по таблице товаров,
+ * чтобы не накапливать удаленные товары; созданные товары добавляются в него сразу.
+ * Перестроения по таймеру и по сигналу ресинхронизации могут выполняться одновременно: каждое собирает
+ * идентификаторы, добавленные за время его работы, а фильтр по более раннему снимку не заменяет более поздний.
+ */
+@Service
+public class ProductIdFilterImpl implements ProductIdFilter,
+        ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    /**
+     * Репозиторий товаров
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Конфигурация фильтра
+     */
+    private final ProductIdFilterProperties properties;
+
+    /**
+     * Товары, которых недавно не оказалось в базе данных
+     */
+    private final Cache<UUID, Boolean> missing;
+
+    /**
+     * Блокировка фильтра: чтение при проверке, запись при добавлении и замене фильтра
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Текущий фильтр (null, пока не построен)
+     */
+    private BloomFilter filter;
+
+    /**
+     * Идентификаторы, добавленные во время перестроения: отдельный список на каждое выполняющееся перестроение
+     */
+    private final List<List<UUID>> addedDuringRebuilds = new ArrayList<>();
+
+    /**
+     * Номер последнего запущенного перестроения
+     */
+    private long rebuildEpoch;
+
+    /**
+     * Номер перестроения, построившего текущий фильтр: фильтр по более раннему снимку таблицы не публикуется
+     */
+    private long publishedEpoch;
+
+    /**
+     * Периодическое перестроение фильтра
+     */
+    private Disposable rebuilding;
+
+    public ProductIdFilterImpl(ProductRepository productRepository, ProductIdFilterProperties properties) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.negativeMaxSize())
+                .expireAfterWrite(properties.negativeTtl())
+                .build();
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        rebuilding = Flux.interval(Duration.ZERO, properties.rebuildInterval())
+                .concatMap(tick -> rebuild().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilding != null) {
+            rebuilding.dispose();
+        }
+    }
+
+    @Override
+    public boolean mightExist(UUID uuid) {
+        if (missing.getIfPresent(uuid) != null) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return filter == null || filter.mightContain(uuid);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(Collection<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return;
+        }
+
+        missing.invalidateAll(uuids);
+        lock.writeLock().lock();
+        try {
+            addedDuringRebuilds.forEach(added -> added.addAll(uuids));
+            if (filter != null) {
+                uuids.forEach(filter::put);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markMissing(UUID uuid) {
+        missing.put(uuid, Boolean.TRUE);
+    }
+
+    @Override
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            List<UUID> added = new ArrayList<>();
+            long epoch;
+            lock.writeLock().lock();
+            try {
+                epoch = ++rebuildEpoch;
+                addedDuringRebuilds.add(added);
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            return productRepository.findAllIds()
+                    .collectList()
+                    .doOnNext(uuids -> {
+                        BloomFilter built = new BloomFilter(
+                                Math.max(uuids.size(), properties.expectedInsertions()), properties.falsePositiveRate());
+                        uuids.forEach(built::put);
+
+                        lock.writeLock().lock();
+                        try {
+                            if (epoch > publishedEpoch) {
+                                added.forEach(built::put);
+                                filter = built;
+                                publishedEpoch = epoch;
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        lock.writeLock().lock();
+                        try {
+                            addedDuringRebuilds.removeIf(list -> list == added);
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Фильтр Блума по идентификаторам. UUID уже равномерно распределены, поэтому позиции битов
+     * получаются двойным хешированием из перемешанных старшей и младшей половин идентификатора
+     */
+    static final class BloomFilter {
+
+        private final long[] bits;
+
+        private final long size;
+
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            int insertions = Math.max(1, expectedInsertions);
+            long bitCount = Math.max(64, (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            this.bits = new long[(int) ((bitCount + 63) / 64)];
+            this.size = (long) bits.length * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) size / insertions * Math.log(2)));
+        }
+
+        void put(UUID uuid) {
+            long hash1 = mix(uuid.getMostSignificantBits());
+            long hash2 = mix(uuid.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(UUID uuid) {
+            long hash1 = mix(uuid.getMostSignificantBits());
+            long hash2 = mix(uuid.getLeastSignificantBits()) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Финальное перемешивание MurmurHash3
+         */
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb93e2fd7a563L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
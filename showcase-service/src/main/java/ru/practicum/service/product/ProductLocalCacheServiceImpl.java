@@ -0,0 +1,236 @@
+package ru.practicum.service.product;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.product.ProductLocalCacheProperties;
+import ru.practicum.exception.product.ProductNotFoundException;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Сервис кеширования товаров с локальным (in-process) уровнем L1.
+ * Хранит уже смапленные товары в памяти приложения, Redis ({@link ProductCacheServiceImpl}) используется как L2.
+ * При старте каталог сразу берется из снимка на диске ({@link ProductCatalogSnapshot}) и обновляется в фоне;
+ * если ни Redis, ни база данных не отвечают, каталог и товары отдаются из снимка.
+ */
+@Primary
+@Service
+public class ProductLocalCacheServiceImpl implements ProductCacheService, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String ALL_PRODUCTS_KEY = "all_products";
+
+    /**
+     * Сервис кеширования товаров в Redis (L2)
+     */
+    private final ProductCacheServiceImpl redisProductCacheService;
+
+    /**
+     * Маппер товаров
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Снимок каталога на локальном диске
+     */
+    private final ProductCatalogSnapshot catalogSnapshot;
+
+    /**
+     * Локальный кеш всех товаров в кратком представлении
+     */
+    private final AsyncLoadingCache<String, List<Product>> catalogCache;
+
+    /**
+     * Локальный кеш товаров по идентификатору
+     */
+    private final AsyncLoadingCache<UUID, Product> productCache;
+
+    public ProductLocalCacheServiceImpl(ProductCacheServiceImpl redisProductCacheService,
+                                        ProductMapper productMapper,
+                                        ProductCatalogSnapshot catalogSnapshot,
+                                        ProductLocalCacheProperties properties,
+                                        MeterRegistry meterRegistry) {
+        this.redisProductCacheService = redisProductCacheService;
+        this.productMapper = productMapper;
+        this.catalogSnapshot = catalogSnapshot;
+
+        this.catalogCache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxWeight())
+                .weigher((String key, List<Product> products) -> Math.max(1, products.size()))
+                .expireAfterWrite(properties.expireAfterWrite())
+                .refreshAfterWrite(properties.refreshAfterWrite())
+                .recordStats()
+                .buildAsync((key, executor) -> redisProductCacheService.getAllProducts()
+                        .collectList()
+                        .<List<Product>>map(List::copyOf)
+                        .onErrorResume(error -> fromSnapshot(catalogSnapshot.getCatalog(), error))
+                        .toFuture());
+
+        this.productCache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxWeight())
+                .weigher((UUID key, Product product) -> 1)
+                .expireAfterWrite(properties.expireAfterWrite())
+                .refreshAfterWrite(properties.refreshAfterWrite())
+                .recordStats()
+                .buildAsync((uuid, executor) -> redisProductCacheService.getProductById(uuid)
+                        .onErrorResume(error -> !(error instanceof ProductNotFoundException),
+                                error -> fromSnapshot(catalogSnapshot.getProduct(uuid), error))
+                        .toFuture());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, catalogCache, "products.local.catalog");
+        CaffeineCacheMetrics.monitor(meterRegistry, productCache, "products.local.product");
+
+        catalogSnapshot.getCatalog().ifPresent(catalog ->
+                catalogCache.put(ALL_PRODUCTS_KEY, CompletableFuture.completedFuture(catalog)));
+    }
+
+    /**
+     * Догрузить актуальный каталог поверх взятого из снимка; до окончания загрузки отдается снимок
+     */
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        if (catalogCache.getIfPresent(ALL_PRODUCTS_KEY) != null) {
+            catalogCache.synchronous().refresh(ALL_PRODUCTS_KEY);
+        }
+    }
+
+    @Override
+    public Flux<Product> getAllProducts() {
+        return Mono.fromFuture(() -> catalogCache.get(ALL_PRODUCTS_KEY), true)
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Mono<Page<Product>> getProductPage(Pageable pageable) {
+        CompletableFuture<List<Product>> cached = catalogCache.getIfPresent(ALL_PRODUCTS_KEY);
+        if (cached == null) {
+            return redisProductCacheService.getProductPage(pageable)
+                    .onErrorResume(error -> fromSnapshot(catalogSnapshot.getCatalog(), error)
+                            .map(products -> ProductCacheServiceImpl.toPage(products, pageable)));
+        }
+
+        return Mono.fromFuture(cached, true)
+                .map(products -> ProductCacheServiceImpl.toPage(products, pageable));
+    }
+
+    @Override
+    public Mono<Product> getProductById(UUID uuid) {
+        return Mono.fromFuture(() -> productCache.get(uuid), true);
+    }
+
+    @Override
+    public Mono<Map<UUID, Product>> getProductsByIds(Collection<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return Mono.fromFuture(() -> productCache.getAll(uuids, (missingIds, executor) ->
+                        redisProductCacheService.getProductsByIds(List.copyOf(missingIds))
+                                .onErrorResume(error -> Mono.just(fromSnapshot(missingIds))
+                                        .filter(found -> !found.isEmpty())
+                                        .switchIfEmpty(Mono.error(error)))
+                                .toFuture()), true);
+    }
+
+    @Override
+    public Mono<Void> cacheProducts(List<Product> products) {
+        return redisProductCacheService.cacheProducts(products)
+                .then(Mono.fromRunnable(() -> {
+                    if (products != null && !products.isEmpty()) {
+                        products.forEach(product -> productCache.synchronous().invalidate(product.getUuid()));
+                        mergeIntoCatalog(products);
+                    }
+                }));
+    }
+
+    @Override
+    public Mono<Void> evictProducts(Collection<UUID> uuids) {
+        return redisProductCacheService.evictProducts(uuids)
+                .then(Mono.fromRunnable(() -> {
+                    if (uuids != null && !uuids.isEmpty()) {
+                        invalidate(uuids);
+                    }
+                }));
+    }
+
+    @Override
+    public Mono<Void> evictListCache() {
+        return redisProductCacheService.evictListCache()
+                .then(Mono.fromRunnable(() -> catalogCache.synchronous().invalidate(ALL_PRODUCTS_KEY)));
+    }
+
+    /**
+     * Применить изменения к загруженному локальному каталогу так же, как они применяются к каталогу в Redis:
+     * измененные товары заменяются на своих местах, новые добавляются в конец.
+     * Каталог, который еще загружается, сбрасывается и будет прочитан из Redis уже с изменениями
+     */
+    private void mergeIntoCatalog(List<Product> products) {
+        CompletableFuture<List<Product>> cached = catalogCache.getIfPresent(ALL_PRODUCTS_KEY);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            catalogCache.synchronous().invalidate(ALL_PRODUCTS_KEY);
+            return;
+        }
+
+        Map<UUID, Product> changed = new LinkedHashMap<>();
+        products.forEach(product -> changed.put(product.getUuid(), productMapper.productToSummary(product)));
+
+        List<Product> current = cached.join();
+        List<Product> merged = new ArrayList<>(current.size() + changed.size());
+        for (Product product : current) {
+            Product replacement = changed.remove(product.getUuid());
+            merged.add(replacement != null ? replacement : product);
+        }
+        merged.addAll(changed.values());
+
+        catalogCache.put(ALL_PRODUCTS_KEY, CompletableFuture.completedFuture(List.copyOf(merged)));
+    }
+
+    private static <T> Mono<T> fromSnapshot(Optional<T> value, Throwable error) {
+        return value.map(Mono::just).orElseGet(() -> Mono.error(error));
+    }
+
+    private Map<UUID, Product> fromSnapshot(Set<? extends UUID> uuids) {
+        Map<UUID, Product> products = new HashMap<>();
+        uuids.forEach(uuid -> catalogSnapshot.getProduct(uuid).ifPresent(product -> products.put(uuid, product)));
+        return products;
+    }
+
+    /**
+     * Удалить локальные копии товаров и локальный каталог, не затрагивая Redis
+     *
+     * @param productIds Идентификаторы товаров
+     */
+    public void invalidate(Collection<UUID> productIds) {
+        productCache.synchronous().invalidateAll(productIds);
+        catalogCache.synchronous().invalidate(ALL_PRODUCTS_KEY);
+    }
+
+    /**
+     * Очистить локальный кеш целиком, не затрагивая Redis
+     */
+    public void invalidateAll() {
+        productCache.synchronous().invalidateAll();
+        catalogCache.synchronous().invalidateAll();
+    }
+}
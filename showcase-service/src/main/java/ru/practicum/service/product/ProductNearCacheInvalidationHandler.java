@@ -0,0 +1,65 @@
+package ru.practicum.service.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.practicum.model.product.Product;
+import ru.practicum.service.cache.CacheInvalidationHandler;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Обновление локальных кешей товаров узла по сообщениям шины инвалидации:
+ * L1, поискового индекса и отсортированных представлений
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductNearCacheInvalidationHandler implements CacheInvalidationHandler {
+
+    /**
+     * Локальный кеш товаров (L1)
+     */
+    private final ProductLocalCacheServiceImpl productLocalCacheService;
+
+    /**
+     * Инвертированный индекс товаров в памяти
+     */
+    private final ProductSearchIndex productSearchIndex;
+
+    /**
+     * Отсортированные представления каталога в памяти
+     */
+    private final ProductSortedViews productSortedViews;
+
+    /**
+     * Фильтр известных идентификаторов товаров
+     */
+    private final ProductIdFilter productIdFilter;
+
+    @Override
+    public Mono<Void> onProductsChanged(Set<UUID> productIds) {
+        return Mono.defer(() -> {
+                    productIdFilter.add(productIds);
+                    productLocalCacheService.invalidate(productIds);
+                    return productLocalCacheService.getProductsByIds(productIds);
+                })
+                .doOnNext(products -> {
+                    List<Product> changed = List.copyOf(products.values());
+                    productSearchIndex.index(changed);
+                    productSortedViews.add(changed);
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Void> onResync() {
+        return Mono.fromRunnable(() -> {
+                    productLocalCacheService.invalidateAll();
+                    productSearchIndex.refresh();
+                    productSortedViews.refresh();
+                })
+                .then(productIdFilter.rebuild().onErrorResume(e -> Mono.empty()));
+    }
+}
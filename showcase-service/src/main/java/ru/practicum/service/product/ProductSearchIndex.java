@@ -0,0 +1,44 @@
+package ru.practicum.service.product;
+
+import reactor.core.publisher.Mono;
+import ru.practicum.model.product.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Инвертированный индекс товаров в памяти приложения для поиска по каталогу
+ */
+public interface ProductSearchIndex {
+
+    /**
+     * Проверить, обслуживается ли поиск по каталогу этим индексом
+     *
+     * @return true, если выбран движок поиска в памяти
+     */
+    boolean isEnabled();
+
+    /**
+     * Найти товары по поисковому запросу.
+     * Каждое слово запроса ищется по префиксу в названии и описании, товар должен содержать все слова.
+     * При первом обращении индекс строится по полным данным всех товаров из базы данных.
+     *
+     * @param query Поисковый запрос
+     * @return Идентификаторы товаров, упорядоченные по релевантности
+     */
+    Mono<List<UUID>> search(String query);
+
+    /**
+     * Добавить товары в индекс или обновить их, не перестраивая индекс целиком.
+     * Если индекс еще не построен, вызов игнорируется.
+     *
+     * @param products Товары
+     */
+    void index(List<Product> products);
+
+    /**
+     * Перестроить индекс в фоне по актуальному каталогу.
+     * До завершения поиск обслуживается текущим индексом; если он еще не построен, вызов игнорируется.
+     */
+    void refresh();
+}
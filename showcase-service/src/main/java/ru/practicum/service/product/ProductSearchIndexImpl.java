@@ -0,0 +1,377 @@
+package ru.practicum.service.product;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.search.CatalogSearchProperties;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс товаров в памяти приложения.
+ * Термы хранятся в нормализованном виде, списки вхождений - в примитивных массивах номеров документов,
+ * поэтому поиск не перебирает и не нормализует товары на каждый запрос.
+ */
+@Service
+public class ProductSearchIndexImpl implements ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Вес вхождения слова в название
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * Вес вхождения слова в описание
+     */
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * Бессрочное хранение результата построения индекса
+     */
+    private static final Duration BUILT_FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    /**
+     * Репозиторий товаров: каталог в кеше хранит сокращенные описания, индексу нужны полные
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Маппер товаров
+     */
+    private final ProductMapper productMapper;
+
+    /**
+     * Выбран ли движок поиска в памяти
+     */
+    private final boolean enabled;
+
+    /**
+     * Блокировка сегмента индекса: чтение при поиске, запись при добавлении товаров
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Однократное построение индекса; неудачная попытка не запоминается
+     */
+    private final Mono<Void> initialization;
+
+    /**
+     * Текущий сегмент индекса (null, пока индекс не построен)
+     */
+    private Segment segment;
+
+    /**
+     * Товары, добавленные во время построения индекса (null вне построения)
+     */
+    private List<Product> addedDuringRebuild;
+
+    /**
+     * Номер последнего запущенного построения: результат более раннего построения отбрасывается
+     */
+    private long rebuildEpoch;
+
+    public ProductSearchIndexImpl(ProductRepository productRepository,
+                                  ProductMapper productMapper,
+                                  CatalogSearchProperties properties) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.enabled = properties.engine() == CatalogSearchProperties.Engine.MEMORY;
+        this.initialization = Mono.defer(this::rebuild)
+                .cache(ignored -> BUILT_FOREVER, error -> Duration.ZERO, () -> BUILT_FOREVER);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Mono<List<UUID>> search(String query) {
+        List<String> tokens = tokenize(query).distinct().toList();
+        if (tokens.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return initialization.then(Mono.fromSupplier(() -> {
+            lock.readLock().lock();
+            try {
+                return segment.search(tokens);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }));
+    }
+
+    @Override
+    public void index(List<Product> products) {
+        if (products == null || products.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.addAll(products);
+            }
+            if (segment != null) {
+                products.forEach(segment::add);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void refresh() {
+        lock.readLock().lock();
+        try {
+            if (segment == null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        rebuild().subscribe(ignored -> {}, error -> {});
+    }
+
+    private Mono<Void> rebuild() {
+        long epoch;
+        lock.writeLock().lock();
+        try {
+            epoch = ++rebuildEpoch;
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return productRepository.findAll()
+                .map(productMapper::productDaoToProduct)
+                .collectList()
+                .doOnNext(products -> {
+                    Segment built = new Segment();
+                    products.forEach(built::add);
+
+                    lock.writeLock().lock();
+                    try {
+                        if (epoch != rebuildEpoch) {
+                            return;
+                        }
+                        addedDuringRebuild.forEach(built::add);
+                        segment = built;
+                        addedDuringRebuild = null;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                })
+                .doOnError(error -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (epoch == rebuildEpoch) {
+                            addedDuringRebuild = null;
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Разбить текст на нормализованные слова
+     */
+    static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+
+        return TOKEN_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))
+                .filter(token -> !token.isEmpty());
+    }
+
+    /**
+     * Сегмент индекса. Документы нумеруются в порядке добавления, поэтому списки вхождений
+     * всегда отсортированы по номеру документа. Обновленный товар получает новый номер,
+     * старый помечается удаленным до следующего построения индекса.
+     */
+    private static final class Segment {
+
+        /**
+         * Идентификаторы товаров по номеру документа
+         */
+        private final List<UUID> documents = new ArrayList<>();
+
+        /**
+         * Актуальный номер документа товара
+         */
+        private final Map<UUID, Integer> documentNumbers = new HashMap<>();
+
+        /**
+         * Номера документов, замененных более новой версией товара
+         */
+        private final BitSet removed = new BitSet();
+
+        /**
+         * Словарь термов, упорядоченный для поиска по префиксу
+         */
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+
+        void add(Product product) {
+            Integer previous = documentNumbers.get(product.getUuid());
+            if (previous != null) {
+                removed.set(previous);
+            }
+
+            int document = documents.size();
+            documents.add(product.getUuid());
+            documentNumbers.put(product.getUuid(), document);
+
+            Map<String, Integer> weights = new HashMap<>();
+            tokenize(product.getName()).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+            tokenize(product.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+            weights.forEach((term, weight) -> terms.computeIfAbsent(term, key -> new Postings()).add(document, weight));
+        }
+
+        List<UUID> search(List<String> tokens) {
+            Hits result = null;
+            for (String token : tokens) {
+                Hits hits = prefixHits(token);
+                result = result == null ? hits : result.intersect(hits);
+                if (result.size() == 0) {
+                    return List.of();
+                }
+            }
+
+            return rank(result);
+        }
+
+        /**
+         * Объединить списки вхождений всех термов, начинающихся с данного слова
+         */
+        private Hits prefixHits(String token) {
+            SortedMap<String, Postings> matching = terms.subMap(token, token + Character.MAX_VALUE);
+            int total = 0;
+            for (Postings postings : matching.values()) {
+                total += postings.size;
+            }
+
+            long[] packed = new long[total];
+            int position = 0;
+            for (Postings postings : matching.values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    packed[position++] = ((long) postings.documents[i] << 32) | postings.weights[i];
+                }
+            }
+            if (matching.size() > 1) {
+                Arrays.sort(packed);
+            }
+
+            int[] documents = new int[total];
+            int[] scores = new int[total];
+            int size = 0;
+            for (long value : packed) {
+                int document = (int) (value >>> 32);
+                int weight = (int) value;
+                if (size > 0 && documents[size - 1] == document) {
+                    scores[size - 1] += weight;
+                } else {
+                    documents[size] = document;
+                    scores[size] = weight;
+                    size++;
+                }
+            }
+
+            return new Hits(documents, scores, size);
+        }
+
+        /**
+         * Упорядочить найденные документы по убыванию веса, при равенстве - по порядку добавления
+         */
+        private List<UUID> rank(Hits hits) {
+            long[] order = new long[hits.size()];
+            int size = 0;
+            for (int i = 0; i < hits.size(); i++) {
+                int document = hits.documents()[i];
+                if (!removed.get(document)) {
+                    order[size++] = ((long) (Integer.MAX_VALUE - hits.scores()[i]) << 32) | document;
+                }
+            }
+            Arrays.sort(order, 0, size);
+
+            List<UUID> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(documents.get((int) order[i]));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Список вхождений терма: номера документов по возрастанию и веса вхождений
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+
+        private int[] weights = new int[4];
+
+        private int size;
+
+        void add(int document, int weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Найденные документы по возрастанию номера и их суммарный вес
+     */
+    private record Hits(int[] documents, int[] scores, int size) {
+
+        Hits intersect(Hits other) {
+            int[] resultDocuments = new int[Math.min(size, other.size)];
+            int[] resultScores = new int[resultDocuments.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (documents[i] < other.documents[j]) {
+                    i++;
+                } else if (documents[i] > other.documents[j]) {
+                    j++;
+                } else {
+                    resultDocuments[count] = documents[i];
+                    resultScores[count] = scores[i] + other.scores[j];
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return new Hits(resultDocuments, resultScores, count);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductPage;
 
 import java.util.Map;
 import java.util.Set;
@@ -24,16 +25,20 @@ public interface ProductService {
     Mono<Page<Product>> getAll(Pageable pageable);
 
     /**
-     * Получить страницу товаров по названию
+     * Получить страницу товаров по поисковому запросу.
+     * Поиск выполняется по названию и описанию в базе данных (с учетом морфологии, префиксов и опечаток)
+     * либо, если выбран движок поиска в памяти, по инвертированному индексу {@link ProductSearchIndex}.
+     * Результаты упорядочены по релевантности
      *
-     * @param query    Название из запроса
+     * @param query    Поисковый запрос
      * @param pageable Страница
      * @return Страница товаров
      */
     Mono<Page<Product>> search(String query, Pageable pageable);
 
     /**
-     * Получить отсортированную страницу товаров
+     * Получить отсортированную страницу товаров.
+     * Страница берется срезом из предварительно отсортированного представления {@link ProductSortedViews}
      *
      * @param sort     Тип сортировки
      * @param pageable Страница
@@ -65,12 +70,16 @@ public interface ProductService {
     Mono<Map<UUID, Product>> getProductsByUuids(Set<UUID> productIds);
 
     /**
-     * Получить товары по поисковому запросу и фильтрам
+     * Получить товары по поисковому запросу и фильтрам.
+     * Фильтрация, сортировка и пагинация выполняются в базе данных; при наличии курсора
+     * страница выбирается по ключу сортировки (keyset-пагинация), без смещения.
+     * Поиск без сортировки упорядочен по релевантности и курсор не выдает.
      *
-     * @param search   Поисковый запрос по названию
+     * @param search   Поисковый запрос
      * @param sort     Сортировка
+     * @param cursor   Токен курсора из предыдущей страницы (может быть null)
      * @param pageable Страница
-     * @return Страница товаров
+     * @return Страница товаров с курсором следующей страницы
      */
-    Mono<Page<Product>> getProducts(String search, String sort, Pageable pageable);
+    Mono<ProductPage> getProducts(String search, String sort, String cursor, Pageable pageable);
 }
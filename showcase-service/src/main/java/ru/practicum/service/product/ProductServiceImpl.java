@@ -3,32 +3,45 @@ package ru.practicum.service.product;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductPage;
 import ru.practicum.model.product.ProductSort;
 import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheInvalidationBus;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Порядок идентификаторов product_uuid в базе данных: сравнение без знака
+     */
+    private static final Comparator<Product> BY_UUID = Comparator.comparing(Product::getUuid, (left, right) -> {
+        int result = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    });
+
     /**
      * Репозиторий товаров
      */
@@ -44,58 +57,79 @@ public class ProductServiceImpl implements ProductService {
      */
     private final ProductMapper productMapper;
 
+    /**
+     * Инвертированный индекс товаров в памяти
+     */
+    private final ProductSearchIndex productSearchIndex;
+
+    /**
+     * Отсортированные представления каталога в памяти
+     */
+    private final ProductSortedViews productSortedViews;
+
+    /**
+     * Шина инвалидации локальных кешей других узлов
+     */
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * Снимок каталога на диске узла: запасной источник страниц при недоступной базе данных
+     */
+    private final ProductCatalogSnapshot catalogSnapshot;
+
     @Override
     public Mono<Page<Product>> getAll(Pageable pageable) {
-        return getPagedProducts(flux -> flux, pageable);
+        return productCacheService.getProductPage(pageable);
     }
 
     @Override
     public Mono<Page<Product>> search(String query, Pageable pageable) {
-        return getPagedProducts(flux -> flux.filter(product ->
-                        product.getName().toLowerCase().contains(query.toLowerCase())),
-                pageable);
+        if (productSearchIndex.isEnabled()) {
+            return searchInMemory(query, pageable).map(page -> page);
+        }
+
+        return productRepository.findCatalogPage(query, null, null, pageable.getPageSize(), pageable.getOffset())
+                .map(productMapper::productDaoToProduct)
+                .collectList()
+                .zipWith(productRepository.countCatalog(query))
+                .map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()));
     }
 
     @Override
     public Mono<Page<Product>> getSorted(String sort, Pageable pageable) {
-        return getComparator(sort)
-                .map(comparator -> getPagedProducts(flux -> flux.sort(comparator), pageable))
-                .orElse(getPagedProducts(flux -> flux, pageable));
+        return ProductSort.fromString(sort)
+                .map(productSort -> productSortedViews.getPage(productSort, null, pageable)
+                        .<Page<Product>>map(page -> page))
+                .orElseGet(() -> productCacheService.getProductPage(pageable));
     }
 
     @Override
-    public Mono<Page<Product>> getProducts(String search, String sort, Pageable pageable) {
-        Flux<Product> productStream = productCacheService.getAllProducts();
+    public Mono<ProductPage> getProducts(String search, String sort, String cursor, Pageable pageable) {
+        ProductSort productSort = ProductSort.fromString(sort).orElse(null);
+        // Поиск без сортировки упорядочен по релевантности и листается только по смещению
+        boolean ranked = productSort == null && StringUtils.hasText(search);
+        ProductCursor productCursor = ranked ? null : ProductCursor.decode(cursor)
+                .filter(c -> c.sort() == productSort)
+                .orElse(null);
 
-        if (search != null && !search.isEmpty()) {
-            String searchQuery = search.toLowerCase();
-            productStream = productStream.filter(p -> p.getName().toLowerCase().contains(searchQuery));
+        if (ranked && productSearchIndex.isEnabled()) {
+            return searchInMemory(search, pageable);
         }
 
-        Flux<Product> sortedStream = getComparator(sort)
-                .map(productStream::sort)
-                .orElse(productStream);
+        Mono<ProductPage> fromDatabase = Mono.defer(() -> findCatalogPage(search, productSort, productCursor, pageable));
+        if (productSort != null && !StringUtils.hasText(search)) {
+            // Отсортированный каталог без поиска листается по представлениям в памяти, база - запасной путь
+            return productSortedViews.getPage(productSort, productCursor, pageable)
+                    .onErrorResume(e -> fromDatabase);
+        }
+        if (productSort != null && productSearchIndex.isEnabled()) {
+            // Найденные индексом товары отбираются по колонкам представления нужной сортировки
+            return productSearchIndex.search(search)
+                    .flatMap(productIds -> productSortedViews.getPage(productSort, productIds, productCursor, pageable))
+                    .onErrorResume(e -> fromDatabase);
+        }
 
-        return sortedStream
-                .collectList()
-                .flatMap(filteredProducts -> {
-                    long totalCount = filteredProducts.size();
-                    int totalPages = (int) Math.ceil((double) totalCount / pageable.getPageSize());
-                    int pageNumber = Math.min(pageable.getPageNumber(), totalPages - 1);
-
-                    Pageable correctedPageable = PageRequest.of(
-                            Math.max(pageNumber, 0),
-                            pageable.getPageSize(),
-                            pageable.getSort()
-                    );
-
-                    List<Product> pagedProducts = filteredProducts.stream()
-                            .skip(correctedPageable.getOffset())
-                            .limit(correctedPageable.getPageSize())
-                            .collect(Collectors.toList());
-
-                    return Mono.just(new PageImpl<>(pagedProducts, correctedPageable, totalCount));
-                });
+        return fromDatabase;
     }
 
     @Override
@@ -120,7 +154,13 @@ public class ProductServiceImpl implements ProductService {
                                     .map(productMapper::productDaoToProduct)
                                     .collect(Collectors.toList());
                             return productCacheService.cacheProducts(productsToCache)
-                                    .then(productCacheService.evictListCache());
+                                    .then(Mono.fromRunnable(() -> {
+                                        productSearchIndex.index(productsToCache);
+                                        productSortedViews.add(productsToCache);
+                                        cacheInvalidationBus.publishProductsChanged(productsToCache.stream()
+                                                .map(Product::getUuid)
+                                                .toList());
+                                    }));
                         }));
     }
 
@@ -130,49 +170,115 @@ public class ProductServiceImpl implements ProductService {
             return Mono.just(Map.of());
         }
 
-        return productCacheService.getAllProducts()
-                .filter(product -> productIds.contains(product.getUuid()))
-                .collectMap(Product::getUuid)
-                .flatMap(cachedProducts -> {
-                    Set<UUID> missingIds = productIds.stream()
-                            .filter(id -> !cachedProducts.containsKey(id))
-                            .collect(Collectors.toSet());
-
-                    if (missingIds.isEmpty()) {
-                        return Mono.just(cachedProducts);
-                    }
-
-                    return productRepository.findAllById(missingIds)
-                            .map(productMapper::productDaoToProduct)
-                            .collectMap(Product::getUuid)
-                            .map(dbProducts -> {
-                                cachedProducts.putAll(dbProducts);
-                                return cachedProducts;
-                            });
-                });
+        return productCacheService.getProductsByIds(productIds);
     }
 
-    private Mono<Page<Product>> getPagedProducts(
-            Function<Flux<Product>, Flux<Product>> processor,
-            Pageable pageable) {
-        return processor.apply(productCacheService.getAllProducts())
+    private Mono<ProductPage> findCatalogPage(String search, ProductSort productSort, ProductCursor productCursor,
+                                              Pageable pageable) {
+        boolean ranked = productSort == null && StringUtils.hasText(search);
+        int pageSize = pageable.getPageSize();
+
+        return productRepository.findCatalogPage(search, productSort, productCursor, pageSize + 1, pageable.getOffset())
+                .map(productMapper::productDaoToProduct)
                 .collectList()
-                .zipWith(productRepository.count())
-                .map(tuple -> new PageImpl<>(
-                        applyPagination(tuple.getT1(), pageable),
-                        pageable,
-                        tuple.getT2()
-                ));
+                .zipWith(productRepository.countCatalog(search))
+                .map(tuple -> {
+                    List<Product> products = tuple.getT1();
+                    boolean hasNext = products.size() > pageSize;
+                    List<Product> content = hasNext ? products.subList(0, pageSize) : products;
+                    String nextCursor = hasNext && !ranked
+                            ? ProductCursor.of(productSort, content.getLast()).encode()
+                            : null;
+
+                    return new ProductPage(content, pageable, tuple.getT2(), nextCursor);
+                })
+                .onErrorResume(error -> catalogSnapshot.getCatalog()
+                        .map(catalog -> Mono.just(snapshotPage(catalog, search, productSort, productCursor, pageable)))
+                        .orElseGet(() -> Mono.error(error)));
     }
 
-    private Optional<Comparator<Product>> getComparator(String sort) {
-        return ProductSort.fromString(sort)
-                .map(ProductSort::getComparator);
+    /**
+     * Страница каталога по снимку на диске в порядке keyset-запроса к базе данных.
+     * Поиск сопоставляет слова запроса по префиксу с кратким описанием, найденное упорядочено как в каталоге
+     */
+    private ProductPage snapshotPage(List<Product> catalog, String search, ProductSort productSort,
+                                     ProductCursor productCursor, Pageable pageable) {
+        boolean ranked = productSort == null && StringUtils.hasText(search);
+        List<String> tokens = ProductSearchIndexImpl.tokenize(search).toList();
+        Comparator<Product> order = productSort == null
+                ? BY_UUID
+                : productSort.getComparator().thenComparing(productSort.isDescending() ? BY_UUID.reversed() : BY_UUID);
+
+        List<Product> matched = catalog.stream()
+                .filter(product -> tokens.isEmpty() || matches(product, tokens))
+                .toList();
+        if (!ranked) {
+            matched = matched.stream().sorted(order).toList();
+        }
+
+        List<Product> remaining = matched;
+        if (productCursor != null && !ranked) {
+            Product last = cursorProduct(productCursor);
+            remaining = matched.stream()
+                    .filter(product -> order.compare(product, last) > 0)
+                    .toList();
+        }
+
+        int start = productCursor == null || ranked ? (int) Math.min(pageable.getOffset(), remaining.size()) : 0;
+        int end = Math.min(start + pageable.getPageSize(), remaining.size());
+        List<Product> content = remaining.subList(start, end);
+        String nextCursor = end < remaining.size() && !ranked
+                ? ProductCursor.of(productSort, content.getLast()).encode()
+                : null;
+
+        return new ProductPage(content, pageable, matched.size(), nextCursor);
+    }
+
+    /**
+     * Содержит ли товар все слова запроса как начала слов названия или описания
+     */
+    private static boolean matches(Product product, List<String> tokens) {
+        Set<String> words = Stream.concat(
+                        ProductSearchIndexImpl.tokenize(product.getName()),
+                        ProductSearchIndexImpl.tokenize(product.getDescription()))
+                .collect(Collectors.toSet());
+        return tokens.stream().allMatch(token -> words.stream().anyMatch(word -> word.startsWith(token)));
+    }
+
+    /**
+     * Товар на позиции курсора для сравнения в порядке сортировки
+     */
+    private static Product cursorProduct(ProductCursor cursor) {
+        Product product = Product.builder().uuid(cursor.uuid()).build();
+        if (cursor.sort() != null) {
+            switch (cursor.sort()) {
+                case PRICE_ASC, PRICE_DESC -> product.setPrice(new BigDecimal(cursor.key()));
+                case NAME_ASC, NAME_DESC -> product.setName(cursor.key());
+            }
+        }
+        return product;
+    }
+
+    private Mono<ProductPage> searchInMemory(String query, Pageable pageable) {
+        return productSearchIndex.search(query)
+                .flatMap(rankedIds -> {
+                    List<UUID> pageIds = applyPagination(rankedIds, pageable);
+                    return getProductsByUuids(new HashSet<>(pageIds))
+                            .map(products -> new ProductPage(
+                                    pageIds.stream()
+                                            .map(products::get)
+                                            .filter(Objects::nonNull)
+                                            .toList(),
+                                    pageable,
+                                    rankedIds.size(),
+                                    null
+                            ));
+                });
     }
 
-    private List<Product> applyPagination(List<Product> products, Pageable pageable) {
+    private <T> List<T> applyPagination(List<T> items, Pageable pageable) {
         int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), products.size());
-        return start > end ? Collections.emptyList() : products.subList(start, end);
+        int end = Math.min(start + pageable.getPageSize(), items.size());
+        return start > end ? Collections.emptyList() : items.subList(start, end);
     }
 }
\ No newline at end of file
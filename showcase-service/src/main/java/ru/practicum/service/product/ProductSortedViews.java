@@ -0,0 +1,55 @@
+package ru.practicum.service.product;
+
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductPage;
+import ru.practicum.model.product.ProductSort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Предварительно отсортированные представления каталога товаров в памяти приложения
+ */
+public interface ProductSortedViews {
+
+    /**
+     * Получить страницу отсортированного каталога.
+     * При первом обращении представления строятся по всем товарам из кеша.
+     *
+     * @param sort     Сортировка
+     * @param cursor   Курсор последнего товара предыдущей страницы (null - листание по смещению)
+     * @param pageable Страница
+     * @return Страница товаров с курсором на следующую страницу
+     */
+    Mono<ProductPage> getPage(ProductSort sort, ProductCursor cursor, Pageable pageable);
+
+    /**
+     * Получить страницу отсортированного каталога, ограниченного найденными товарами.
+     * Идентификаторы переводятся в номера строк колонок, представление просматривается без пересортировки.
+     *
+     * @param sort       Сортировка
+     * @param productIds Идентификаторы товаров, прошедших фильтр
+     * @param cursor     Курсор последнего товара предыдущей страницы (null - листание по смещению)
+     * @param pageable   Страница
+     * @return Страница товаров с курсором на следующую страницу
+     */
+    Mono<ProductPage> getPage(ProductSort sort, Collection<UUID> productIds, ProductCursor cursor, Pageable pageable);
+
+    /**
+     * Добавить товары в представления или обновить их без пересортировки каталога.
+     * Если представления еще не построены, вызов игнорируется.
+     *
+     * @param products Товары
+     */
+    void add(List<Product> products);
+
+    /**
+     * Перестроить представления в фоне по актуальному каталогу.
+     * До завершения страницы выдаются по текущим представлениям; если они еще не построены, вызов игнорируется.
+     */
+    void refresh();
+}
@@ -0,0 +1,352 @@
+package ru.practicum.service.product;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductPage;
+import ru.practicum.model.product.ProductSort;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Отсортированные представления каталога в памяти приложения.
+ * Товары хранятся в колоночном виде ({@link ProductColumns}), представление - массив номеров строк
+ * по возрастанию на каждый ключ сортировки, сортировка по убыванию читает его с конца.
+ * Новые товары вставляются бинарным поиском позиции, поэтому страница отсортированного каталога -
+ * это срез размером со страницу, без сортировки на каждый запрос; объекты товаров создаются только для среза.
+ * Курсор следующей страницы находится бинарным поиском в том же порядке, что и keyset-запрос к базе данных.
+ * Результат поиска накладывается на представление битовой маской номеров строк.
+ */
+@Service
+public class ProductSortedViewsImpl implements ProductSortedViews {
+
+    /**
+     * Бессрочное хранение результата построения представлений
+     */
+    private static final Duration BUILT_FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    /**
+     * Ключи сортировки, для которых хранятся представления
+     */
+    private static final List<ProductSort> ASCENDING_SORTS = Arrays.stream(ProductSort.values())
+            .filter(sort -> !sort.isDescending())
+            .toList();
+
+    /**
+     * Сервис кеширования товаров
+     */
+    private final ProductCacheService productCacheService;
+
+    /**
+     * Блокировка представлений: чтение при выдаче страниц, запись при добавлении товаров
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Однократное построение представлений; неудачная попытка не запоминается
+     */
+    private final Mono<Void> initialization;
+
+    /**
+     * Представления по возрастанию для каждого ключа сортировки (null, пока не построены)
+     */
+    private Map<ProductSort, View> views;
+
+    /**
+     * Колонки товаров представлений
+     */
+    private ProductColumns columns;
+
+    /**
+     * Товары, добавленные во время построения представлений (null вне построения)
+     */
+    private List<Product> addedDuringRebuild;
+
+    /**
+     * Номер последнего запущенного построения: результат более раннего построения отбрасывается
+     */
+    private long rebuildEpoch;
+
+    public ProductSortedViewsImpl(ProductCacheService productCacheService) {
+        this.productCacheService = productCacheService;
+        this.initialization = Mono.defer(this::rebuild)
+                .cache(ignored -> BUILT_FOREVER, error -> Duration.ZERO, () -> BUILT_FOREVER);
+    }
+
+    @Override
+    public Mono<ProductPage> getPage(ProductSort sort, ProductCursor cursor, Pageable pageable) {
+        return initialization.then(Mono.fromSupplier(() -> {
+            lock.readLock().lock();
+            try {
+                View view = views.get(sort.ascending());
+                int start = cursor == null
+                        ? (int) Math.min(pageable.getOffset(), view.size)
+                        : view.positionAfter(columns, sort, cursor);
+                List<Product> content = slice(columns, view, sort.isDescending(), start, pageable.getPageSize());
+                String nextCursor = start + content.size() < view.size
+                        ? ProductCursor.of(sort, content.getLast()).encode()
+                        : null;
+                return new ProductPage(content, pageable, view.size, nextCursor);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }));
+    }
+
+    @Override
+    public Mono<ProductPage> getPage(ProductSort sort, Collection<UUID> productIds, ProductCursor cursor,
+                                     Pageable pageable) {
+        return initialization.then(Mono.fromSupplier(() -> {
+            lock.readLock().lock();
+            try {
+                BitSet matched = new BitSet(columns.size());
+                for (UUID productId : productIds) {
+                    int row = columns.rowOf(productId);
+                    if (row >= 0) {
+                        matched.set(row);
+                    }
+                }
+
+                View view = views.get(sort.ascending());
+                int position = cursor == null ? 0 : view.positionAfter(columns, sort, cursor);
+                long skip = cursor == null ? pageable.getOffset() : 0;
+                List<Product> content = new ArrayList<>(pageable.getPageSize());
+                boolean hasNext = false;
+                for (; position < view.size; position++) {
+                    int row = view.rowAt(position, sort.isDescending());
+                    if (!matched.get(row)) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                    } else if (content.size() < pageable.getPageSize()) {
+                        content.add(columns.get(row));
+                    } else {
+                        hasNext = true;
+                        break;
+                    }
+                }
+
+                String nextCursor = hasNext ? ProductCursor.of(sort, content.getLast()).encode() : null;
+                return new ProductPage(content, pageable, matched.cardinality(), nextCursor);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }));
+    }
+
+    @Override
+    public void add(List<Product> added) {
+        if (added == null || added.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.addAll(added);
+            }
+            if (views != null) {
+                added.forEach(product -> insert(views, columns, product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void refresh() {
+        lock.readLock().lock();
+        try {
+            if (views == null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        rebuild().subscribe(ignored -> {}, error -> {});
+    }
+
+    private Mono<Void> rebuild() {
+        long epoch;
+        lock.writeLock().lock();
+        try {
+            epoch = ++rebuildEpoch;
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return productCacheService.getAllProducts()
+                .collectList()
+                .doOnNext(catalog -> {
+                    ProductColumns builtColumns = new ProductColumns(catalog.size());
+                    catalog.forEach(builtColumns::add);
+                    builtColumns.trimToSize();
+
+                    Map<ProductSort, View> builtViews = new EnumMap<>(ProductSort.class);
+                    for (ProductSort sort : ASCENDING_SORTS) {
+                        int[] rows = builtColumns.sortedRows(sort);
+                        builtViews.put(sort, new View(rows, rows.length));
+                    }
+
+                    lock.writeLock().lock();
+                    try {
+                        if (epoch != rebuildEpoch) {
+                            return;
+                        }
+                        addedDuringRebuild.forEach(product -> insert(builtViews, builtColumns, product));
+                        views = builtViews;
+                        columns = builtColumns;
+                        addedDuringRebuild = null;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                })
+                .doOnError(error -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (epoch == rebuildEpoch) {
+                            addedDuringRebuild = null;
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Вставить товар в каждое представление на позицию, найденную бинарным поиском.
+     * Предыдущая версия товара остается в колонках и удаляется из представлений с той же точностью,
+     * так как порядок однозначен.
+     */
+    private static void insert(Map<ProductSort, View> views, ProductColumns columns, Product product) {
+        int previous = columns.rowOf(product.getUuid());
+        int row = columns.add(product);
+        views.forEach((sort, view) -> {
+            if (previous >= 0) {
+                int position = view.search(columns, sort, previous);
+                if (position >= 0) {
+                    view.remove(position);
+                }
+            }
+            int position = view.search(columns, sort, row);
+            view.insert(position >= 0 ? position : -position - 1, row);
+        });
+    }
+
+    /**
+     * Товары представления с позиции start в порядке выдачи
+     */
+    private static List<Product> slice(ProductColumns columns, View view, boolean descending, int start, int pageSize) {
+        int size = view.size;
+        if (start >= size) {
+            return List.of();
+        }
+
+        int end = Math.min(start + pageSize, size);
+        List<Product> content = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            content.add(columns.get(view.rowAt(i, descending)));
+        }
+        return content;
+    }
+
+    /**
+     * Номера строк колонок, упорядоченные по возрастанию ключа сортировки
+     */
+    private static final class View {
+
+        private int[] rows;
+
+        private int size;
+
+        View(int[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        /**
+         * Бинарный поиск строки, как {@link java.util.Collections#binarySearch}
+         */
+        int search(ProductColumns columns, ProductSort sort, int row) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int result = columns.compare(sort, rows[middle], row);
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Строка на позиции в порядке выдачи
+         */
+        int rowAt(int position, boolean descending) {
+            return rows[descending ? size - 1 - position : position];
+        }
+
+        /**
+         * Позиция в порядке выдачи, с которой начинаются товары после курсора
+         */
+        int positionAfter(ProductColumns columns, ProductSort sort, ProductCursor cursor) {
+            if (sort.isDescending()) {
+                return size - partition(row -> columns.compare(sort, row, cursor) < 0);
+            }
+            return partition(row -> columns.compare(sort, row, cursor) <= 0);
+        }
+
+        /**
+         * Число первых строк по возрастанию, для которых выполняется условие, монотонное по представлению
+         */
+        private int partition(IntPredicate before) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (before.test(rows[middle])) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        void insert(int position, int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(size * 2, 16));
+            }
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        void remove(int position) {
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            size--;
+        }
+    }
+}
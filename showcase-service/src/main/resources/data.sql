@@ -26,4 +26,6 @@ VALUES ('Уточка ночник', 'Ночник в виде уставшей
         4200.00, '/images/interernyy_konstruktor_robotime.jpg');
 
 INSERT INTO roles (name, description) VALUES
-('USER', 'Обычный пользователь');
\ No newline at end of file
+('USER', 'Обычный пользователь');
+
+INSERT INTO catalog_seed DEFAULT VALUES;
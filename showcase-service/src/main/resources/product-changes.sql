@@ -0,0 +1,15 @@
+-- Уведомление об изменении товара для захвата изменений кешем. Передается только идентификатор:
+-- добавлен, изменен или удален товар, кеш определяет по текущему состоянию таблицы.
+-- Уведомления отправляются при фиксации транзакции, одинаковые уведомления одной транзакции объединяются
+CREATE OR REPLACE FUNCTION notify_product_change() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('product_changes', coalesce(NEW.product_uuid, OLD.product_uuid)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS products_notify_change ON products;
+
+CREATE TRIGGER products_notify_change
+    AFTER INSERT OR UPDATE OR DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION notify_product_change();
@@ -1,6 +1,13 @@
 CREATE EXTENSION IF NOT EXISTS pgcrypto;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
-DROP TABLE IF EXISTS products, users, carts, cart_items, orders, order_items, roles, user_roles CASCADE;
+DROP TABLE IF EXISTS products, users, carts, cart_items, orders, order_items, roles, user_roles, catalog_seed CASCADE;
+
+-- Отметка заполнения каталога: создается заново вместе с товарами, по ней кеш узнает о пересоздании данных
+CREATE TABLE IF NOT EXISTS catalog_seed (
+    seed_uuid UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    seeded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
 
 -- Таблица товаров
 CREATE TABLE IF NOT EXISTS products (
@@ -10,12 +17,20 @@ CREATE TABLE IF NOT EXISTS products (
     price DECIMAL(10, 2) NOT NULL,
     image_url TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('russian', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) STORED
 );
 
 CREATE INDEX IF NOT EXISTS idx_products_product_uuid ON products(product_uuid);
-CREATE INDEX IF NOT EXISTS idx_products_name ON products(name);
-CREATE INDEX IF NOT EXISTS idx_products_price ON products(price);
+-- Индексы keyset-пагинации каталога: ключ сортировки + идентификатор для однозначного порядка
+CREATE INDEX IF NOT EXISTS idx_products_name ON products(lower(name), product_uuid);
+CREATE INDEX IF NOT EXISTS idx_products_price ON products(price, product_uuid);
+-- Индексы поиска по каталогу: полнотекстовый (с префиксами) и триграммный (опечатки) по названию и описанию
+CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_products_search_trgm ON products USING GIN ((lower(name || ' ' || coalesce(description, ''))) gin_trgm_ops);
 
 -- Таблица пользователей
 CREATE TABLE IF NOT EXISTS users (
@@ -58,6 +73,7 @@ CREATE TABLE IF NOT EXISTS carts (
     cart_uuid UUID PRIMARY KEY DEFAULT gen_random_uuid(),
     user_uuid UUID NOT NULL,
     total_price DECIMAL(10, 2) DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (user_uuid) REFERENCES users(user_uuid) ON DELETE CASCADE
@@ -75,6 +91,8 @@ CREATE TABLE IF NOT EXISTS cart_items (
 );
 
 CREATE INDEX IF NOT EXISTS idx_cart_items_product ON cart_items(product_uuid);
+-- Товар входит в корзину одной строкой: ключ upsert товаров корзины и индекс выборки товаров корзины
+CREATE UNIQUE INDEX IF NOT EXISTS idx_cart_items_cart_product ON cart_items(cart_uuid, product_uuid);
 
 -- Таблица заказов
 CREATE TABLE IF NOT EXISTS orders (
@@ -106,4 +106,9 @@ public class TestR2dbcConfiguration {
         initializer.setEnabled(true);
         return initializer;
     }
+
+    @Bean
+    public CatalogSeed catalogSeed() {
+        return new CatalogSeed(null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package ru.practicum.config.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import ru.practicum.dto.product.cache.ProductCacheDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheSerializerFactoryTest {
+
+    private final ObjectMapper redisObjectMapper = new RedisBaseConfig().redisObjectMapper();
+
+    private final List<ProductCacheDto> catalog = IntStream.range(0, 50)
+            .mapToObj(i -> ProductCacheDto.builder()
+                    .uuid(UUID.randomUUID())
+                    .name("Товар " + i)
+                    .description("Описание товара " + i)
+                    .price(BigDecimal.valueOf(100 + i, 2))
+                    .imageUrl("/images/product.png")
+                    .build())
+            .toList();
+
+    @Test
+    void smile_ShouldRoundTripListAndWriteVersionByte() {
+        RedisSerializer<List<ProductCacheDto>> serializer = factory(CacheSerializationProperties.Format.SMILE)
+                .createList(ProductCacheDto.class);
+
+        byte[] bytes = serializer.serialize(catalog);
+
+        assertThat(bytes[0]).isEqualTo(VersionedJacksonRedisSerializer.SMILE_VERSION);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(catalog);
+    }
+
+    @Test
+    void smile_ShouldBeSmallerThanJson() {
+        byte[] json = factory(CacheSerializationProperties.Format.JSON).createList(ProductCacheDto.class).serialize(catalog);
+        byte[] smile = factory(CacheSerializationProperties.Format.SMILE).createList(ProductCacheDto.class).serialize(catalog);
+
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    @Test
+    void deserialize_ShouldReadValuesWrittenInEitherFormat() {
+        ProductCacheDto product = catalog.getFirst();
+        RedisSerializer<ProductCacheDto> json = factory(CacheSerializationProperties.Format.JSON).create(ProductCacheDto.class);
+        RedisSerializer<ProductCacheDto> smile = factory(CacheSerializationProperties.Format.SMILE).create(ProductCacheDto.class);
+
+        assertThat(smile.deserialize(json.serialize(product))).isEqualTo(product);
+        assertThat(json.deserialize(smile.serialize(product))).isEqualTo(product);
+        assertThat(smile.deserialize(new byte[0])).isNull();
+    }
+
+    private CacheSerializerFactory factory(CacheSerializationProperties.Format format) {
+        return new CacheSerializerFactory(redisObjectMapper, new CacheSerializationProperties(format));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.config.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.config.CatalogSeed;
+import ru.practicum.service.cache.CacheInvalidationBus;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReseedCacheCleanerTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    private final UUID seedId = UUID.randomUUID();
+
+    private ReseedCacheCleaner cleaner;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        cleaner = new ReseedCacheCleaner(stringRedisTemplate,
+                new CacheNamespace(new CacheNamespaceProperties(2)), cacheInvalidationBus, new CatalogSeed(seedId));
+    }
+
+    @Test
+    void purge_ShouldUnlinkDataKeysOfCurrentGeneration() {
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenAnswer(invocation -> {
+            String pattern = invocation.<ScanOptions>getArgument(0).getPattern();
+            return switch (pattern) {
+                case "v2:product:*" -> Flux.just("v2:product:1", "v2:product:2");
+                case "v2:cart-hash:*" -> Flux.just("v2:cart-hash:1");
+                default -> Flux.empty();
+            };
+        });
+        when(stringRedisTemplate.unlink(any(String[].class))).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(cleaner.purge())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(stringRedisTemplate).unlink("v2:product:1", "v2:product:2", "v2:cart-hash:1");
+        verify(stringRedisTemplate, never()).scan(argThat((ScanOptions options) ->
+                options.getPattern().startsWith("v2:cache-invalidation")));
+    }
+
+    @Test
+    void onApplicationEvent_WhenSeedIsNew_ShouldPurgeAndResyncEvenIfScanFails() {
+        when(valueOperations.getAndSet("v2:catalog-seed", seedId.toString()))
+                .thenReturn(Mono.just(UUID.randomUUID().toString()));
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.error(new RuntimeException("down")));
+
+        cleaner.onApplicationEvent(null);
+
+        verify(stringRedisTemplate).scan(any(ScanOptions.class));
+        verify(cacheInvalidationBus).publishResync();
+    }
+
+    @Test
+    void onApplicationEvent_WhenSeedAlreadyClaimed_ShouldKeepCache() {
+        when(valueOperations.getAndSet("v2:catalog-seed", seedId.toString())).thenReturn(Mono.just(seedId.toString()));
+
+        cleaner.onApplicationEvent(null);
+
+        verify(stringRedisTemplate, never()).scan(any(ScanOptions.class));
+        verifyNoInteractions(cacheInvalidationBus);
+    }
+
+    @Test
+    void onApplicationEvent_WhenSeedIsUnknown_ShouldNotTouchRedis() {
+        cleaner = new ReseedCacheCleaner(stringRedisTemplate,
+                new CacheNamespace(new CacheNamespaceProperties(2)), cacheInvalidationBus, new CatalogSeed(null));
+
+        cleaner.onApplicationEvent(null);
+
+        verifyNoInteractions(stringRedisTemplate, cacheInvalidationBus);
+    }
+}
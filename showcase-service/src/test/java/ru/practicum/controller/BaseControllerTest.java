@@ -12,8 +12,10 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 import ru.practicum.config.security.SecurityConfig;
 import ru.practicum.dto.cart.CartDto;
+import ru.practicum.dto.cart.CartSummaryDto;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartSummary;
 import ru.practicum.model.user.User;
 import ru.practicum.service.cart.CartService;
 
@@ -59,6 +61,8 @@ public abstract class BaseControllerTest {
         CartDto mockCartDto = new CartDto();
         when(cartService.get(TEST_USER_UUID)).thenReturn(Mono.just(new Cart()));
         when(cartMapper.cartToCartDto(any())).thenReturn(mockCartDto);
+        when(cartService.getSummary(TEST_USER_UUID)).thenReturn(Mono.just(new CartSummary()));
+        when(cartMapper.cartSummaryToCartSummaryDto(any())).thenReturn(new CartSummaryDto());
     }
 
     protected WebTestClient getWebTestClientWithMockUser() {
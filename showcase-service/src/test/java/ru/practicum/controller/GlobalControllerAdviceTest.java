@@ -7,9 +7,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ui.Model;
 import reactor.core.publisher.Mono;
-import ru.practicum.dto.cart.CartDto;
+import ru.practicum.dto.cart.CartSummaryDto;
 import ru.practicum.mapper.cart.CartMapper;
-import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartSummary;
 import ru.practicum.model.user.User;
 import ru.practicum.service.cart.CartService;
 
@@ -42,17 +42,18 @@ class GlobalControllerAdviceTest {
     @Test
     void addCommonAttributes_WhenUserAuthenticated_ShouldAddAttributes() {
         UUID userId = UUID.randomUUID();
-        Cart cart = new Cart();
-        CartDto cartDto = new CartDto();
+        CartSummary cartSummary = new CartSummary();
+        CartSummaryDto cartSummaryDto = new CartSummaryDto();
 
         when(user.getUuid()).thenReturn(userId);
-        when(cartService.get(userId)).thenReturn(Mono.just(cart));
-        when(cartMapper.cartToCartDto(cart)).thenReturn(cartDto);
+        when(cartService.getSummary(userId)).thenReturn(Mono.just(cartSummary));
+        when(cartMapper.cartSummaryToCartSummaryDto(cartSummary)).thenReturn(cartSummaryDto);
 
         globalControllerAdvice.addCommonAttributes(user, model).block();
 
         verify(model).addAttribute(eq("isAuthenticated"), eq(true));
-        verify(model).addAttribute(eq("cart"), eq(cartDto));
+        verify(model).addAttribute(eq("cartSummary"), eq(cartSummaryDto));
+        verify(cartService, never()).get(any());
     }
 
     @Test
@@ -62,7 +63,7 @@ class GlobalControllerAdviceTest {
         globalControllerAdvice.addCommonAttributes(nullUser, model).block();
 
         verify(model).addAttribute(eq("isAuthenticated"), eq(false));
-        verify(cartService, never()).get(any());
-        verify(cartMapper, never()).cartToCartDto(any());
+        verify(cartService, never()).getSummary(any());
+        verify(cartMapper, never()).cartSummaryToCartSummaryDto(any());
     }
 }
\ No newline at end of file
@@ -5,7 +5,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import reactor.core.publisher.Mono;
 import ru.practicum.controller.BaseControllerTest;
@@ -13,6 +12,7 @@ import ru.practicum.dto.product.ProductListInDto;
 import ru.practicum.dto.product.ProductOutDto;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductPage;
 import ru.practicum.service.product.ProductService;
 
 import java.math.BigDecimal;
@@ -47,8 +47,8 @@ class ProductViewControllerTest extends BaseControllerTest {
     @Test
     void showProductList_ShouldReturnCatalogPage() {
         PageRequest pageable = PageRequest.of(0, 10);
-        when(productService.getProducts(any(), any(), any()))
-                .thenReturn(Mono.just(new PageImpl<>(List.of(testProduct), pageable, 1)));
+        when(productService.getProducts(any(), any(), any(), any()))
+                .thenReturn(Mono.just(new ProductPage(List.of(testProduct), pageable, 1, null)));
         when(productMapper.productToProductOutDto(any()))
                 .thenReturn(testProductDto);
 
@@ -62,8 +62,8 @@ class ProductViewControllerTest extends BaseControllerTest {
     void showProductList_WithSearch_ShouldReturnFilteredResults() {
         String searchQuery = "test";
         PageRequest pageable = PageRequest.of(0, 10);
-        when(productService.getProducts(eq(searchQuery), any(), any()))
-                .thenReturn(Mono.just(new PageImpl<>(List.of(testProduct), pageable, 1)));
+        when(productService.getProducts(eq(searchQuery), any(), any(), any()))
+                .thenReturn(Mono.just(new ProductPage(List.of(testProduct), pageable, 1, null)));
         when(productMapper.productToProductOutDto(any()))
                 .thenReturn(testProductDto);
 
@@ -77,8 +77,8 @@ class ProductViewControllerTest extends BaseControllerTest {
     void showProductList_WithSort_ShouldReturnSortedResults() {
         String sort = "price-asc";
         PageRequest pageable = PageRequest.of(0, 10);
-        when(productService.getProducts(any(), eq(sort), any()))
-                .thenReturn(Mono.just(new PageImpl<>(List.of(testProduct), pageable, 1)));
+        when(productService.getProducts(any(), eq(sort), any(), any()))
+                .thenReturn(Mono.just(new ProductPage(List.of(testProduct), pageable, 1, null)));
         when(productMapper.productToProductOutDto(any()))
                 .thenReturn(testProductDto);
 
@@ -8,7 +8,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.dao.cart.CartItemDao;
 import ru.practicum.dto.cart.CartItemDto;
-import ru.practicum.dto.cart.cache.CartItemCacheDto;
 import ru.practicum.dto.product.ProductOutDto;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.cart.CartItem;
@@ -129,59 +128,10 @@ class CartItemMapperTest {
         assertThat(cartItem.getCreatedAt()).isEqualTo(now);
     }
 
-    @Test
-    void shouldMapCartItemToCacheDto() {
-        UUID productId = UUID.randomUUID();
-        UUID itemId = UUID.randomUUID();
-        UUID cartId = UUID.randomUUID();
-
-        Product product = new Product();
-        product.setUuid(productId);
-
-        CartItem cartItem = new CartItem();
-        cartItem.setUuid(itemId);
-        cartItem.setCartUuid(cartId);
-        cartItem.setProduct(product);
-        cartItem.setQuantity(5);
-
-        CartItemCacheDto cacheDto = cartItemMapper.cartItemToCartItemCacheDto(cartItem);
-
-        assertThat(cacheDto).isNotNull();
-        assertThat(cacheDto.getUuid()).isEqualTo(itemId);
-        assertThat(cacheDto.getCartUuid()).isEqualTo(cartId);
-        assertThat(cacheDto.getProductUuid()).isEqualTo(productId);
-        assertThat(cacheDto.getQuantity()).isEqualTo(5);
-    }
-
-    @Test
-    void shouldMapCacheDtoToCartItem() {
-        UUID productId = UUID.randomUUID();
-        UUID itemId = UUID.randomUUID();
-        UUID cartId = UUID.randomUUID();
-
-        CartItemCacheDto cacheDto = new CartItemCacheDto();
-        cacheDto.setUuid(itemId);
-        cacheDto.setCartUuid(cartId);
-        cacheDto.setProductUuid(productId);
-        cacheDto.setQuantity(6);
-
-        CartItem cartItem = cartItemMapper.cartItemCacheDtoToCartItem(cacheDto);
-
-        assertThat(cartItem).isNotNull();
-        assertThat(cartItem.getUuid()).isEqualTo(itemId);
-        assertThat(cartItem.getCartUuid()).isEqualTo(cartId);
-        assertThat(cartItem.getProduct()).isNotNull();
-        assertThat(cartItem.getProduct().getUuid()).isEqualTo(productId);
-        assertThat(cartItem.getQuantity()).isEqualTo(6);
-        assertThat(cartItem.getCreatedAt()).isNull();
-    }
-
     @Test
     void shouldHandleNullInputs() {
         assertThat(cartItemMapper.cartItemToCartItemDto(null)).isNull();
         assertThat(cartItemMapper.cartItemToCartItemDao(null)).isNull();
         assertThat(cartItemMapper.cartItemDaoToCartItem(null)).isNull();
-        assertThat(cartItemMapper.cartItemToCartItemCacheDto(null)).isNull();
-        assertThat(cartItemMapper.cartItemCacheDtoToCartItem(null)).isNull();
     }
 }
\ No newline at end of file
@@ -9,8 +9,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.dao.cart.CartDao;
 import ru.practicum.dto.cart.CartDto;
 import ru.practicum.dto.cart.CartItemDto;
-import ru.practicum.dto.cart.cache.CartCacheDto;
-import ru.practicum.dto.cart.cache.CartItemCacheDto;
 import ru.practicum.model.cart.Cart;
 import ru.practicum.model.cart.CartItem;
 
@@ -142,64 +140,9 @@ class CartMapperTest {
         assertThat(cart.getItems()).isEmpty();
     }
 
-    @Test
-    void shouldMapCartToCacheDto() {
-        UUID cartId = UUID.randomUUID();
-        UUID userId = UUID.randomUUID();
-        UUID itemId = UUID.randomUUID();
-
-        CartItem cartItem = new CartItem();
-        cartItem.setUuid(itemId);
-
-        Cart cart = new Cart();
-        cart.setUuid(cartId);
-        cart.setUserUuid(userId);
-        cart.setItems(List.of(cartItem));
-        cart.setTotalPrice(BigDecimal.valueOf(300.25));
-
-        CartItemDto cartItemDto = new CartItemDto();
-        cartItemDto.setUuid(itemId);
-
-        CartCacheDto cacheDto = cartMapper.toCacheDto(cart);
-
-        assertThat(cacheDto).isNotNull();
-        assertThat(cacheDto.getUuid()).isEqualTo(cartId);
-        assertThat(cacheDto.getUserUuid()).isEqualTo(userId);
-        assertThat(cacheDto.getTotalPrice()).isEqualTo(BigDecimal.valueOf(300.25));
-        assertThat(cacheDto.getItems()).hasSize(1);
-    }
-
-    @Test
-    void shouldMapCacheDtoToCart() {
-        UUID cartId = UUID.randomUUID();
-        UUID userId = UUID.randomUUID();
-        UUID itemId = UUID.randomUUID();
-
-        CartItemCacheDto itemCacheDto = new CartItemCacheDto();
-        itemCacheDto.setUuid(itemId);
-
-        CartCacheDto cacheDto = new CartCacheDto();
-        cacheDto.setUuid(cartId);
-        cacheDto.setUserUuid(userId);
-        cacheDto.setItems(List.of(itemCacheDto));
-        cacheDto.setTotalPrice(BigDecimal.valueOf(400.50));
-
-        Cart cart = cartMapper.fromCacheDto(cacheDto);
-
-        assertThat(cart).isNotNull();
-        assertThat(cart.getUuid()).isEqualTo(cartId);
-        assertThat(cart.getUserUuid()).isEqualTo(userId);
-        assertThat(cart.getTotalPrice()).isEqualTo(BigDecimal.valueOf(400.50));
-        assertThat(cart.getItems()).hasSize(1);
-        assertThat(cart.getCreatedAt()).isNull();
-        assertThat(cart.getUpdatedAt()).isNull();
-    }
-
     @Test
     void shouldHandleNullInputs() {
         assertThat(cartMapper.cartToCartDao(null)).isNull();
         assertThat(cartMapper.cartDaoToCart(null)).isNull();
-        assertThat(cartMapper.toCacheDto(null)).isNull();
-        assertThat(cartMapper.fromCacheDto(null)).isNull();
     }
 }
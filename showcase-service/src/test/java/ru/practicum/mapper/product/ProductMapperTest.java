@@ -131,6 +131,25 @@ class ProductMapperTest {
         assertThat(cacheDto.getImageUrl()).isEqualTo(product.getImageUrl());
     }
 
+    @Test
+    void shouldShortenDescriptionInSummary() {
+        Product product = new Product();
+        product.setUuid(UUID.randomUUID());
+        product.setName("Test Product");
+        product.setDescription("a".repeat(Product.SUMMARY_DESCRIPTION_LENGTH + 40));
+        product.setPrice(BigDecimal.valueOf(99.99));
+
+        ProductCacheDto summaryDto = mapper.productToSummaryCacheDto(product);
+        Product summary = mapper.productToSummary(product);
+
+        assertThat(summaryDto.getUuid()).isEqualTo(product.getUuid());
+        assertThat(summaryDto.getName()).isEqualTo(product.getName());
+        assertThat(summaryDto.getPrice()).isEqualTo(product.getPrice());
+        assertThat(summaryDto.getDescription()).hasSize(Product.SUMMARY_DESCRIPTION_LENGTH);
+        assertThat(summary.getDescription()).isEqualTo(summaryDto.getDescription());
+        assertThat(product.getDescription()).hasSize(Product.SUMMARY_DESCRIPTION_LENGTH + 40);
+    }
+
     @Test
     void shouldMapCacheDtoToProduct() {
         ProductCacheDto cacheDto = new ProductCacheDto();
@@ -158,5 +177,6 @@ class ProductMapperTest {
         assertThat(mapper.productToProductDao(null)).isNull();
         assertThat(mapper.productToCacheDto(null)).isNull();
         assertThat(mapper.productCacheDtoToProduct(null)).isNull();
+        assertThat(mapper.productToSummaryCacheDto(null)).isNull();
     }
 }
\ No newline at end of file
@@ -8,7 +8,12 @@ import org.springframework.context.annotation.Import;
 import org.springframework.r2dbc.core.DatabaseClient;
 import reactor.test.StepVerifier;
 import ru.practicum.config.TestR2dbcConfiguration;
+import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.product.Product;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @DataR2dbcTest
@@ -18,6 +23,9 @@ class CartItemRepositoryTest {
     @Autowired
     private CartItemRepository cartItemRepository;
 
+    @Autowired
+    private CartRepository cartRepository;
+
     @Autowired
     private DatabaseClient databaseClient;
 
@@ -79,4 +87,86 @@ class CartItemRepositoryTest {
                 .expectNextCount(0)
                 .verifyComplete();
     }
+
+    @Test
+    void addItem_ShouldIncrementExistingItemAndRecomputeCartTotal() {
+        StepVerifier.create(cartItemRepository.addItem(cartUuid, productUuid, 2, 0))
+                .expectNextMatches(item -> item.getProductUuid().equals(productUuid) && item.getQuantity() == 3)
+                .verifyComplete();
+
+        StepVerifier.create(cartItemRepository.findByCartUuid(cartUuid))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(cartRepository.findById(cartUuid))
+                .expectNextMatches(cart -> cart.getTotalPrice().compareTo(new BigDecimal("500.00")) == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void removeItem_ShouldDeleteItemAndRecomputeCartTotal() {
+        StepVerifier.create(cartItemRepository.removeItem(cartUuid, productUuid, 0))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findById(cartUuid))
+                .expectNextMatches(cart -> cart.getTotalPrice().compareTo(new BigDecimal("200.00")) == 0
+                        && cart.getVersion() == 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void addItem_WhenVersionIsStale_ShouldNotChangeCart() {
+        StepVerifier.create(cartItemRepository.addItem(cartUuid, productUuid, 2, 1))
+                .verifyComplete();
+
+        StepVerifier.create(cartRepository.findById(cartUuid))
+                .expectNextMatches(cart -> cart.getTotalPrice().compareTo(new BigDecimal("300.00")) == 0
+                        && cart.getVersion() == 0)
+                .verifyComplete();
+    }
+
+    @Test
+    void saveCarts_ShouldUpdateQuantitiesAndRemoveMissingItems() {
+        UUID otherProductUuid = UUID.fromString("33333333-3333-3333-3333-333333333333");
+        Cart cart = Cart.builder()
+                .uuid(cartUuid)
+                .version(1)
+                .totalPrice(new BigDecimal("600.00"))
+                .items(List.of(CartItem.builder()
+                        .cartUuid(cartUuid)
+                        .product(Product.builder().uuid(otherProductUuid).build())
+                        .quantity(3)
+                        .build()))
+                .build();
+
+        StepVerifier.create(cartRepository.saveCarts(List.of(cart)))
+                .verifyComplete();
+
+        StepVerifier.create(cartItemRepository.findByCartUuid(cartUuid))
+                .expectNextMatches(item -> item.getProductUuid().equals(otherProductUuid) && item.getQuantity() == 3)
+                .verifyComplete();
+        StepVerifier.create(cartRepository.findById(cartUuid))
+                .expectNextMatches(saved -> saved.getTotalPrice().compareTo(new BigDecimal("600.00")) == 0
+                        && saved.getVersion() == 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void saveCarts_WhenVersionIsNotNewer_ShouldKeepStoredCart() {
+        Cart cart = Cart.builder()
+                .uuid(cartUuid)
+                .totalPrice(new BigDecimal("600.00"))
+                .items(List.of())
+                .build();
+
+        StepVerifier.create(cartRepository.saveCarts(List.of(cart)))
+                .verifyComplete();
+
+        StepVerifier.create(cartItemRepository.findByCartUuid(cartUuid))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(cartRepository.findById(cartUuid))
+                .expectNextMatches(saved -> saved.getTotalPrice().compareTo(new BigDecimal("300.00")) == 0)
+                .verifyComplete();
+    }
 }
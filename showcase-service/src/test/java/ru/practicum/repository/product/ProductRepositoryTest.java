@@ -0,0 +1,108 @@
+package ru.practicum.repository.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+import ru.practicum.config.TestR2dbcConfiguration;
+import ru.practicum.dao.product.ProductDao;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductSort;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataR2dbcTest
+@Import(TestR2dbcConfiguration.class)
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final UUID cheapUuid = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private final UUID middleUuid = UUID.fromString("22222222-2222-2222-2222-222222222222");
+    private final UUID expensiveUuid = UUID.fromString("33333333-3333-3333-3333-333333333333");
+
+    @BeforeEach
+    void setUp() {
+        String setupSql = """
+            DELETE FROM order_items;
+            DELETE FROM cart_items;
+            DELETE FROM products;
+
+            INSERT INTO products (product_uuid, name, description, price)
+            VALUES
+              ('11111111-1111-1111-1111-111111111111', 'Уточка ночник', 'Светится в темноте, как маяк', 100.00),
+              ('22222222-2222-2222-2222-222222222222', 'Маяк', 'Светильник для детской', 200.00),
+              ('33333333-3333-3333-3333-333333333333', 'уточка резиновая', 'Для ванной', 300.00);
+        """;
+
+        databaseClient.sql(setupSql).then().block();
+    }
+
+    @Test
+    void findCatalogPage_shouldFilterAndSortInDatabase() {
+        StepVerifier.create(productRepository.findCatalogPage("уточка", ProductSort.PRICE_DESC, null, 10, 0))
+                .expectNextMatches(product -> product.getUuid().equals(expensiveUuid))
+                .expectNextMatches(product -> product.getUuid().equals(cheapUuid))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCatalogPage_shouldSeekAfterCursor() {
+        ProductCursor cursor = new ProductCursor(ProductSort.PRICE_ASC, "100.00", cheapUuid);
+
+        StepVerifier.create(productRepository.findCatalogPage(null, ProductSort.PRICE_ASC, cursor, 1, 0))
+                .expectNextMatches(product -> product.getUuid().equals(middleUuid))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCatalogPage_shouldSeekByCaseInsensitiveName() {
+        ProductCursor cursor = new ProductCursor(ProductSort.NAME_ASC, "Маяк", middleUuid);
+
+        StepVerifier.create(productRepository.findCatalogPage(null, ProductSort.NAME_ASC, cursor, 10, 0)
+                        .map(ProductDao::getUuid)
+                        .collectList())
+                .assertNext(uuids -> assertEquals(2, uuids.size()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCatalogPage_shouldSearchDescriptionByWordPrefix() {
+        StepVerifier.create(productRepository.findCatalogPage("детск", null, null, 10, 0))
+                .expectNextMatches(product -> product.getUuid().equals(middleUuid))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCatalogPage_shouldRankNameMatchesAboveDescriptionMatches() {
+        StepVerifier.create(productRepository.findCatalogPage("маяк", null, null, 10, 0)
+                        .map(ProductDao::getUuid)
+                        .collectList())
+                .assertNext(uuids -> assertEquals(List.of(middleUuid, cheapUuid), uuids))
+                .verifyComplete();
+    }
+
+    @Test
+    void findCatalogPage_shouldTolerateTypos() {
+        StepVerifier.create(productRepository.findCatalogPage("резиновя", null, null, 10, 0))
+                .expectNextMatches(product -> product.getUuid().equals(expensiveUuid))
+                .verifyComplete();
+    }
+
+    @Test
+    void countCatalog_shouldCountMatchingProducts() {
+        StepVerifier.create(productRepository.countCatalog("УТОЧКА"))
+                .expectNext(2L)
+                .verifyComplete();
+    }
+}
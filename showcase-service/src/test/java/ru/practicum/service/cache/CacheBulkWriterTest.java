@@ -0,0 +1,71 @@
+package ru.practicum.service.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import ru.practicum.config.cache.CacheBulkWriteProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheBulkWriterTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> template;
+
+    private final CacheBulkWriterImpl cacheBulkWriter = new CacheBulkWriterImpl(new CacheBulkWriteProperties(2));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void setAll_ShouldWriteValuesInChunksWithOneScriptEach() {
+        when(template.getSerializationContext())
+                .thenReturn(RedisSerializationContext.fromSerializer(RedisSerializer.string()));
+        when(template.execute(any(RedisScript.class), anyList(), anyList(),
+                any(RedisElementWriter.class), any(RedisElementReader.class))).thenReturn(Flux.just(2L));
+        Map<String, String> values = new LinkedHashMap<>();
+        IntStream.range(0, 5).forEach(i -> values.put("key" + i, "value" + i));
+
+        StepVerifier.create(cacheBulkWriter.setAll(template, values, Duration.ofMinutes(10)))
+                .verifyComplete();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.captor();
+        ArgumentCaptor<List<byte[]>> args = ArgumentCaptor.captor();
+        verify(template, times(3)).execute(any(RedisScript.class), keys.capture(), args.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        assertEquals(List.of("key0", "key1"), keys.getAllValues().getFirst());
+        assertEquals(List.of("key4"), keys.getAllValues().getLast());
+        assertEquals("600000", new String(args.getAllValues().getFirst().getFirst(), StandardCharsets.UTF_8));
+        assertEquals("value1", new String(args.getAllValues().getFirst().get(2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void setAll_WhenNothingToWrite_ShouldNotCallRedis() {
+        StepVerifier.create(cacheBulkWriter.setAll(template, Map.of(), Duration.ofMinutes(10)))
+                .verifyComplete();
+
+        verifyNoInteractions(template);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.config.cache.CacheInvalidationProperties;
+import ru.practicum.config.cache.CacheNamespace;
+import ru.practicum.config.cache.CacheNamespaceProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @Mock
+    private CacheInvalidationHandler handler;
+
+    private CacheInvalidationBusImpl cacheInvalidationBus;
+
+    private final UUID productId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        cacheInvalidationBus = new CacheInvalidationBusImpl(
+                stringRedisTemplate,
+                List.of(handler),
+                new CacheNamespace(new CacheNamespaceProperties(1)),
+                new CacheInvalidationProperties(Duration.ofMillis(50), 500, Duration.ofSeconds(1))
+        );
+
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(handler.onProductsChanged(any())).thenReturn(Mono.empty());
+        lenient().when(handler.onResync()).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void receive_NextVersion_ShouldUpdateChangedProducts() {
+        synchronizeAt(5);
+
+        StepVerifier.create(cacheInvalidationBus.receive("6|other-node|" + productId))
+                .verifyComplete();
+
+        verify(handler).onProductsChanged(Set.of(productId));
+        verify(handler, never()).onResync();
+    }
+
+    @Test
+    void receive_WhenVersionsMissed_ShouldResync() {
+        synchronizeAt(5);
+
+        StepVerifier.create(cacheInvalidationBus.receive("8|other-node|" + productId))
+                .verifyComplete();
+
+        verify(handler).onResync();
+        verify(handler, never()).onProductsChanged(any());
+    }
+
+    @Test
+    void receive_DuplicateVersion_ShouldBeIgnored() {
+        synchronizeAt(5);
+
+        cacheInvalidationBus.receive("6|other-node|" + productId).block();
+        cacheInvalidationBus.receive("6|other-node|" + productId).block();
+
+        verify(handler, times(1)).onProductsChanged(any());
+    }
+
+    @Test
+    void receive_ResyncMessage_ShouldResync() {
+        synchronizeAt(5);
+
+        cacheInvalidationBus.receive("6|other-node|*").block();
+
+        verify(handler).onResync();
+    }
+
+    @Test
+    void synchronize_AfterReconnectWithMissedVersions_ShouldResync() {
+        synchronizeAt(5);
+        verify(handler, never()).onResync();
+
+        synchronizeAt(9);
+
+        verify(handler).onResync();
+    }
+
+    private void synchronizeAt(long version) {
+        when(valueOperations.get("v1:cache-invalidation:version")).thenReturn(Mono.just(String.valueOf(version)));
+        cacheInvalidationBus.synchronize().block();
+    }
+}
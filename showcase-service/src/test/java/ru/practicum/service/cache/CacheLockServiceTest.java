@@ -0,0 +1,92 @@
+package ru.practicum.service.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheLockServiceTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private CacheLockServiceImpl cacheLockService;
+
+    @Test
+    void tryAcquire_WhenFree_ShouldReturnToken() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("lock:catalog"), anyString(), eq(Duration.ofSeconds(10))))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(cacheLockService.tryAcquire("catalog", Duration.ofSeconds(10)))
+                .expectNextMatches(token -> !token.isBlank())
+                .verifyComplete();
+    }
+
+    @Test
+    void tryAcquire_WhenHeld_ShouldReturnEmpty() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("lock:catalog"), anyString(), any(Duration.class)))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(cacheLockService.tryAcquire("catalog", Duration.ofSeconds(10)))
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void extend_WhenLockIsOwn_ShouldProlongLease() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("lock:catalog")),
+                eq(List.of("token", "10000"))))
+                .thenReturn(Flux.just(1L));
+
+        StepVerifier.create(cacheLockService.extend("catalog", "token", Duration.ofSeconds(10)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void extend_WhenLockIsLost_ShouldReturnFalse() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("lock:catalog")),
+                eq(List.of("token", "10000"))))
+                .thenReturn(Flux.just(0L));
+
+        StepVerifier.create(cacheLockService.extend("catalog", "token", Duration.ofSeconds(10)))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void release_ShouldDeleteOnlyOwnLock() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("lock:catalog")), eq(List.of("token"))))
+                .thenReturn(Flux.just(1L));
+
+        StepVerifier.create(cacheLockService.release("catalog", "token"))
+                .verifyComplete();
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("lock:catalog")), eq(List.of("token")));
+    }
+}
@@ -1,29 +1,43 @@
 package ru.practicum.service.cart;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.CacheNamespace;
+import ru.practicum.config.cache.CacheNamespaceProperties;
+import ru.practicum.config.cache.cart.CartCacheTtlProperties;
+import ru.practicum.config.cache.cart.CartWriteBehindProperties;
 import ru.practicum.dao.cart.CartDao;
 import ru.practicum.dao.cart.CartItemDao;
-import ru.practicum.dto.cart.cache.CartCacheDto;
 import ru.practicum.exception.cart.CartNotFoundException;
 import ru.practicum.mapper.cart.CartItemMapper;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.model.cart.Cart;
 import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.cart.CartSummary;
+import ru.practicum.model.product.Product;
 import ru.practicum.repository.cart.CartItemRepository;
 import ru.practicum.repository.cart.CartRepository;
+import ru.practicum.service.product.ProductCacheService;
 
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +49,9 @@ class CartCacheServiceTest {
     @Mock
     private CartItemRepository cartItemRepository;
 
+    @Mock
+    private ProductCacheService productCacheService;
+
     @Mock
     private CartMapper cartMapper;
 
@@ -42,64 +59,186 @@ class CartCacheServiceTest {
     private CartItemMapper cartItemMapper;
 
     @Mock
-    private ReactiveRedisTemplate<String, CartCacheDto> cartCacheTemplate;
+    private ReactiveStringRedisTemplate stringRedisTemplate;
 
     @Mock
-    private ReactiveValueOperations<String, CartCacheDto> valueOperations;
+    private ReactiveHashOperations<String, String, String> hashOperations;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
 
-    @InjectMocks
     private CartCacheServiceImpl cartCacheService;
 
     private final UUID userId = UUID.randomUUID();
     private final UUID cartId = UUID.randomUUID();
+    private final UUID productId = UUID.randomUUID();
+    private final UUID itemId = UUID.randomUUID();
+    private final String key = "v1:cart-hash:" + userId;
+    private final String summaryKey = "v1:cart-summary:" + userId;
+
+    @BeforeEach
+    void setUp() {
+        cartCacheService = new CartCacheServiceImpl(
+                cartRepository,
+                cartItemRepository,
+                productCacheService,
+                cartMapper,
+                cartItemMapper,
+                stringRedisTemplate,
+                new CartCacheTtlProperties(Duration.ofMinutes(45), Duration.ofHours(1)),
+                new CacheNamespace(new CacheNamespaceProperties(1)),
+                new CartWriteBehindProperties(false, Duration.ofSeconds(1), 100, Duration.ofMinutes(1))
+        );
+
+        lenient().when(stringRedisTemplate.<String, String>opsForHash()).thenReturn(hashOperations);
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(stringRedisTemplate.getExpire(anyString())).thenReturn(Mono.just(Duration.ofMinutes(50)));
+    }
+
+    @Test
+    void getCart_WhenCached_ShouldBuildCartFromHash() {
+        when(hashOperations.entries(key)).thenReturn(cachedHash());
+
+        Cart cart = cartCacheService.getCart(userId).block();
+
+        assertNotNull(cart);
+        assertEquals(cartId, cart.getUuid());
+        assertEquals(userId, cart.getUserUuid());
+        assertEquals(4, cart.getVersion());
+        assertEquals(0, new BigDecimal("21.00").compareTo(cart.getTotalPrice()));
+        assertEquals(1, cart.getItems().size());
+        CartItem item = cart.getItems().getFirst();
+        assertEquals(itemId, item.getUuid());
+        assertEquals(3, item.getQuantity());
+        assertEquals(productId, item.getProduct().getUuid());
+        assertEquals(0, new BigDecimal("7.00").compareTo(item.getProduct().getPrice()));
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void getCart_WhenStale_ShouldReturnCachedAndRefreshInBackground() {
+        CartDao cartDao = new CartDao();
+        cartDao.setUuid(cartId);
+        Cart freshCart = new Cart();
+        freshCart.setUuid(cartId);
+        freshCart.setUserUuid(userId);
+
+        when(hashOperations.entries(key)).thenReturn(cachedHash());
+        when(stringRedisTemplate.getExpire(key)).thenReturn(Mono.just(Duration.ofMinutes(5)));
+        when(cartRepository.findByUserUuid(userId)).thenReturn(Mono.just(cartDao));
+        when(cartMapper.cartDaoToCart(cartDao)).thenReturn(freshCart);
+        when(cartItemRepository.findByCartUuid(cartId)).thenReturn(Flux.empty());
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(1L));
+
+        Cart cart = cartCacheService.getCart(userId).block();
+
+        assertNotNull(cart);
+        assertEquals(1, cart.getItems().size());
+        verify(stringRedisTemplate, timeout(1000)).execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList());
+    }
+
+    @Test
+    void getSummary_WhenCached_ShouldReadSummaryKeyOnly() {
+        when(valueOperations.get(summaryKey)).thenReturn(Mono.just("3:2100"));
+
+        CartSummary summary = cartCacheService.getSummary(userId).block();
+
+        assertNotNull(summary);
+        assertEquals(3, summary.getItemCount());
+        assertEquals(0, new BigDecimal("21.00").compareTo(summary.getTotalPrice()));
+        verifyNoInteractions(hashOperations, cartRepository);
+    }
+
+    @Test
+    void getSummary_WhenNotCached_ShouldBuildSummaryFromCart() {
+        when(valueOperations.get(summaryKey)).thenReturn(Mono.empty());
+        when(hashOperations.entries(key)).thenReturn(cachedHash());
+
+        CartSummary summary = cartCacheService.getSummary(userId).block();
+
+        assertNotNull(summary);
+        assertEquals(3, summary.getItemCount());
+        assertEquals(0, new BigDecimal("21.00").compareTo(summary.getTotalPrice()));
+    }
 
     @Test
-    void getCart_WhenCached_ShouldReturnFromCache() {
-        CartCacheDto cachedDto = new CartCacheDto();
-        Cart expectedCart = new Cart();
+    void getCart_WhenFresh_ShouldNotRefresh() {
+        when(hashOperations.entries(key)).thenReturn(cachedHash());
 
-        when(cartCacheTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("cart:" + userId)).thenReturn(Mono.just(cachedDto));
-        when(cartMapper.fromCacheDto(cachedDto)).thenReturn(expectedCart);
-        when(cartRepository.findByUserUuid(any())).thenReturn(Mono.empty());
+        assertNotNull(cartCacheService.getCart(userId).block());
 
-        Mono<Cart> result = cartCacheService.getCart(userId);
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+    }
 
-        assertEquals(expectedCart, result.block());
+    @Test
+    void getCart_WhenStaleWithWriteBehind_ShouldNotOverwriteFromDatabase() {
+        CartCacheServiceImpl writeBehindCacheService = new CartCacheServiceImpl(
+                cartRepository,
+                cartItemRepository,
+                productCacheService,
+                cartMapper,
+                cartItemMapper,
+                stringRedisTemplate,
+                new CartCacheTtlProperties(Duration.ofMinutes(45), Duration.ofHours(1)),
+                new CacheNamespace(new CacheNamespaceProperties(1)),
+                new CartWriteBehindProperties(true, Duration.ofSeconds(1), 100, Duration.ofMinutes(1))
+        );
+        when(hashOperations.entries(key)).thenReturn(cachedHash());
+        when(stringRedisTemplate.getExpire(key)).thenReturn(Mono.just(Duration.ofMinutes(5)));
+
+        assertNotNull(writeBehindCacheService.getCart(userId).block());
+
+        verifyNoInteractions(cartRepository);
     }
 
     @Test
-    void getCart_WhenNotCached_ShouldFetchAndCache() {
+    void findCached_WhenNotCached_ShouldNotLoadFromDatabase() {
+        when(hashOperations.entries(key)).thenReturn(Flux.empty());
+
+        assertNull(cartCacheService.findCached(userId).block());
+
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void getCart_WhenNotCached_ShouldFetchWithPricesAndCache() {
         CartDao cartDao = new CartDao();
         cartDao.setUuid(cartId);
         CartItemDao cartItemDao = new CartItemDao();
         Cart cart = new Cart();
         cart.setUuid(cartId);
-        CartItem cartItem = new CartItem();
-        CartCacheDto dto = new CartCacheDto();
+        cart.setUserUuid(userId);
+        cart.setTotalPrice(new BigDecimal("14.00"));
+        CartItem cartItem = CartItem.builder()
+                .uuid(itemId)
+                .quantity(2)
+                .product(Product.builder().uuid(productId).build())
+                .build();
 
-        when(cartCacheTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("cart:" + userId)).thenReturn(Mono.empty());
+        when(hashOperations.entries(key)).thenReturn(Flux.empty());
         when(cartRepository.findByUserUuid(userId)).thenReturn(Mono.just(cartDao));
         when(cartMapper.cartDaoToCart(cartDao)).thenReturn(cart);
         when(cartItemRepository.findByCartUuid(cartId)).thenReturn(Flux.just(cartItemDao));
         when(cartItemMapper.cartItemDaoToCartItem(cartItemDao)).thenReturn(cartItem);
-        when(cartMapper.toCacheDto(cart)).thenReturn(dto);
-        when(valueOperations.set(eq("cart:" + userId), eq(dto), any(Duration.class)))
-                .thenReturn(Mono.just(true));
+        when(productCacheService.getProductsByIds(Set.of(productId)))
+                .thenReturn(Mono.just(Map.of(productId, Product.builder().uuid(productId).price(new BigDecimal("7.00")).build())));
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(1L));
 
-        Mono<Cart> result = cartCacheService.getCart(userId);
+        Cart actualCart = cartCacheService.getCart(userId).block();
 
-        Cart actualCart = result.block();
         assertNotNull(actualCart);
         assertEquals(1, actualCart.getItems().size());
-        verify(valueOperations).set(eq("cart:" + userId), eq(dto), any(Duration.class));
+        assertEquals(0, new BigDecimal("7.00").compareTo(actualCart.getItems().getFirst().getProduct().getPrice()));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(key, summaryKey)), ArgumentMatchers.<List<String>>argThat(args ->
+                args.contains("1400") && args.contains("q:" + productId) && args.contains("700")
+                        && args.contains(itemId.toString())));
     }
 
     @Test
     void getCart_WhenNotFound_ShouldThrowException() {
-        when(cartCacheTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("cart:" + userId)).thenReturn(Mono.empty());
+        when(hashOperations.entries(key)).thenReturn(Flux.empty());
         when(cartRepository.findByUserUuid(userId)).thenReturn(Mono.empty());
 
         assertThrows(CartNotFoundException.class, () ->
@@ -108,7 +247,7 @@ class CartCacheServiceTest {
 
     @Test
     void evict_ShouldDeleteFromCache() {
-        when(cartCacheTemplate.delete("cart:" + userId)).thenReturn(Mono.just(1L));
+        when(stringRedisTemplate.delete(key, summaryKey)).thenReturn(Mono.just(1L));
 
         Mono<Void> result = cartCacheService.evict(userId);
 
@@ -120,24 +259,92 @@ class CartCacheServiceTest {
         Mono<Void> result = cartCacheService.cacheCart(null);
 
         assertNull(result.block());
-        verifyNoInteractions(cartCacheTemplate);
+        verifyNoInteractions(stringRedisTemplate);
     }
 
     @Test
-    void cacheCart_ShouldSaveToCache() {
+    void cacheCart_ShouldReplaceHashWithHardTtl() {
         Cart cart = new Cart();
+        cart.setUuid(cartId);
         cart.setUserUuid(userId);
-        CartCacheDto dto = new CartCacheDto();
-        dto.setUserUuid(userId);
 
-        when(cartCacheTemplate.opsForValue()).thenReturn(valueOperations);
-        when(cartMapper.toCacheDto(cart)).thenReturn(dto);
-        when(valueOperations.set("cart:" + userId, dto, Duration.ofHours(1)))
-                .thenReturn(Mono.just(true));
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(1L));
 
-        Mono<Void> result = cartCacheService.cacheCart(cart);
+        assertNull(cartCacheService.cacheCart(cart).block());
 
-        assertNull(result.block());
-        verify(valueOperations).set("cart:" + userId, dto, Duration.ofHours(1));
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(key, summaryKey)),
+                eq(List.of("3600000", "0", "uuid", cartId.toString(), "version", "0", "total", "0")));
+    }
+
+    @Test
+    void addItem_ShouldIncrementQuantityInPlace() {
+        CartItem item = CartItem.builder()
+                .uuid(itemId)
+                .product(Product.builder().uuid(productId).price(new BigDecimal("7")).build())
+                .build();
+
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(1L));
+
+        assertNull(cartCacheService.addItem(userId, item, 2, 4).block());
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(key, summaryKey)),
+                eq(List.of("4", productId.toString(), "2", "700", itemId.toString(), "3600000")));
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void addItem_WhenCachedVersionDiffers_ShouldEvictCart() {
+        CartItem item = CartItem.builder()
+                .uuid(itemId)
+                .product(Product.builder().uuid(productId).price(new BigDecimal("7")).build())
+                .build();
+
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(-1L));
+        when(stringRedisTemplate.delete(key, summaryKey)).thenReturn(Mono.just(1L));
+
+        assertNull(cartCacheService.addItem(userId, item, 2, 4).block());
+
+        verify(stringRedisTemplate).delete(key, summaryKey);
+    }
+
+    @Test
+    void replaceCart_WhenCachedVersionDiffers_ShouldReturnFalse() {
+        Cart cart = new Cart();
+        cart.setUuid(cartId);
+        cart.setUserUuid(userId);
+        cart.setVersion(5);
+
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.just(0L));
+
+        assertFalse(cartCacheService.replaceCart(cart, 4).block());
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(key, summaryKey)),
+                eq(List.of("0", "4", "uuid", cartId.toString(), "version", "5", "total", "0")));
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void removeItem_WhenScriptFails_ShouldEvictCart() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(key, summaryKey)), anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("NOSCRIPT")));
+        when(stringRedisTemplate.delete(key, summaryKey)).thenReturn(Mono.just(1L));
+
+        assertNull(cartCacheService.removeItem(userId, productId, 4).block());
+
+        verify(stringRedisTemplate).delete(key, summaryKey);
+    }
+
+    private Flux<Map.Entry<String, String>> cachedHash() {
+        return Flux.fromIterable(Map.of(
+                "uuid", cartId.toString(),
+                "version", "4",
+                "total", "2100",
+                "q:" + productId, "3",
+                "p:" + productId, "700",
+                "i:" + productId, itemId.toString()).entrySet());
     }
-}
\ No newline at end of file
+}
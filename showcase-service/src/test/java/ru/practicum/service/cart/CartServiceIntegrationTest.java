@@ -5,12 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 import ru.practicum.dao.product.ProductDao;
 import ru.practicum.dao.user.UserDao;
-import ru.practicum.dto.cart.cache.CartCacheDto;
 import ru.practicum.exception.cart.IllegalCartStateException;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.mapper.user.UserMapper;
@@ -70,7 +69,7 @@ public class CartServiceIntegrationTest extends CacheServiceIntegrationTest {
     private CartMapper cartMapper;
 
     @Autowired
-    private ReactiveRedisTemplate<String, CartCacheDto> cartCacheTemplate;
+    private ReactiveStringRedisTemplate stringRedisTemplate;
 
     private UUID userId;
     private Product testProduct;
@@ -83,7 +82,7 @@ public class CartServiceIntegrationTest extends CacheServiceIntegrationTest {
         cartRepository.deleteAll().block();
         productRepository.deleteAll().block();
         userRepository.deleteAll().block();
-        cartCacheTemplate.getConnectionFactory().getReactiveConnection().serverCommands().flushAll().block();
+        stringRedisTemplate.getConnectionFactory().getReactiveConnection().serverCommands().flushAll().block();
 
         UserDao userDao = UserDao.builder()
                 .username("test_user")
@@ -117,7 +116,7 @@ public class CartServiceIntegrationTest extends CacheServiceIntegrationTest {
         cartRepository.deleteAll().block();
         productRepository.deleteAll().block();
         userRepository.deleteAll().block();
-        cartCacheTemplate.getConnectionFactory().getReactiveConnection().serverCommands().flushAll().block();
+        stringRedisTemplate.getConnectionFactory().getReactiveConnection().serverCommands().flushAll().block();
     }
 
     @Test
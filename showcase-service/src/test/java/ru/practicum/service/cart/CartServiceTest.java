@@ -5,12 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import ru.practicum.config.cart.CartConcurrencyProperties;
 import ru.practicum.dao.cart.CartDao;
+import ru.practicum.dao.cart.CartItemDao;
+import ru.practicum.exception.cart.CartVersionConflictException;
 import ru.practicum.exception.cart.IllegalCartStateException;
-import ru.practicum.mapper.cart.CartItemMapper;
+import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.cart.CartMapper;
 import ru.practicum.model.cart.Cart;
 import ru.practicum.model.cart.CartItem;
@@ -20,8 +25,11 @@ import ru.practicum.repository.cart.CartRepository;
 import ru.practicum.service.product.ProductService;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
@@ -45,7 +53,13 @@ class CartServiceTest {
     private CartMapper cartMapper;
 
     @Mock
-    private CartItemMapper cartItemMapper;
+    private CartWriteBehind cartWriteBehind;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Spy
+    private CartConcurrencyProperties concurrencyProperties = new CartConcurrencyProperties(3, Duration.ofMillis(1));
 
     @InjectMocks
     private CartServiceImpl cartService;
@@ -59,6 +73,8 @@ class CartServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
         userId = UUID.randomUUID();
         productId = UUID.randomUUID();
 
@@ -121,6 +137,161 @@ class CartServiceTest {
         verify(cartCacheService).getCart(userId);
     }
 
+    @Test
+    void get_ShouldHydrateAllItemsWithOneBatchLookup() {
+        UUID otherProductId = UUID.randomUUID();
+        Product freshProduct = Product.builder().uuid(productId).name("Test Product").price(BigDecimal.ONE).build();
+        Product otherProduct = Product.builder().uuid(otherProductId).name("Other").price(BigDecimal.TWO).build();
+        cart.getItems().add(cartItem);
+        cart.getItems().add(CartItem.builder()
+                .cartUuid(cart.getUuid())
+                .product(Product.builder().uuid(otherProductId).build())
+                .quantity(2)
+                .build());
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getProductsByUuids(Set.of(productId, otherProductId)))
+                .thenReturn(Mono.just(Map.of(productId, freshProduct, otherProductId, otherProduct)));
+
+        StepVerifier.create(cartService.get(userId))
+                .expectNextMatches(retrievedCart ->
+                        retrievedCart.getItems().get(0).getProduct() == freshProduct &&
+                                retrievedCart.getItems().get(1).getProduct() == otherProduct)
+                .verifyComplete();
+
+        verify(productService, never()).getByUuid(any());
+    }
+
+    @Test
+    void get_WhenProductMissing_ShouldThrowException() {
+        cart.getItems().add(cartItem);
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getProductsByUuids(Set.of(productId))).thenReturn(Mono.just(Map.of()));
+
+        StepVerifier.create(cartService.get(userId))
+                .expectError(ProductNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void addToCart_ShouldUpsertOnlyChangedItemAndUpdateCacheWithSavedItemId() {
+        UUID savedItemId = UUID.randomUUID();
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartItemRepository.addItem(cart.getUuid(), productId, 2, 0))
+                .thenReturn(Mono.just(CartItemDao.builder().uuid(savedItemId).build()));
+        when(cartCacheService.addItem(eq(userId), any(CartItem.class), eq(2), eq(0L)))
+                .thenAnswer(invocation -> {
+                    CartItem item = invocation.getArgument(1);
+                    return savedItemId.equals(item.getUuid()) ? Mono.empty() : Mono.error(new IllegalStateException());
+                });
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectNextMatches(updatedCart -> updatedCart.getTotalPrice().compareTo(BigDecimal.valueOf(20)) == 0
+                        && updatedCart.getVersion() == 1)
+                .verifyComplete();
+
+        verify(cartCacheService).addItem(eq(userId),
+                argThat(item -> savedItemId.equals(item.getUuid()) && item.getProduct() == product), eq(2), eq(0L));
+        verify(cartCacheService, never()).evict(any());
+        verify(cartItemRepository, never()).save(any(CartItemDao.class));
+        verify(cartRepository, never()).save(any(CartDao.class));
+    }
+
+    @Test
+    void addToCart_WhenCommitFails_ShouldNotTouchCache() {
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartItemRepository.addItem(cart.getUuid(), productId, 2, 0))
+                .thenReturn(Mono.just(CartItemDao.builder().uuid(UUID.randomUUID()).build()));
+        when(transactionalOperator.transactional(any(Mono.class)))
+                .thenAnswer(invocation -> invocation.<Mono<?>>getArgument(0)
+                        .then(Mono.error(new IllegalStateException("commit failed"))));
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectError(IllegalCartStateException.class)
+                .verify();
+
+        verify(cartCacheService, never()).addItem(any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void addToCart_WhenCartChangedConcurrently_ShouldRetryWithFreshCart() {
+        Cart freshCart = Cart.builder()
+                .uuid(cart.getUuid())
+                .userUuid(userId)
+                .version(1)
+                .items(new ArrayList<>())
+                .totalPrice(BigDecimal.ZERO)
+                .build();
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart), Mono.just(freshCart));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartItemRepository.addItem(cart.getUuid(), productId, 2, 0)).thenReturn(Mono.empty());
+        when(cartItemRepository.addItem(cart.getUuid(), productId, 2, 1))
+                .thenReturn(Mono.just(CartItemDao.builder().uuid(UUID.randomUUID()).build()));
+        when(cartCacheService.evict(userId)).thenReturn(Mono.empty());
+        when(cartCacheService.addItem(eq(userId), any(CartItem.class), eq(2), eq(1L))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectNextMatches(updatedCart -> updatedCart == freshCart && updatedCart.getVersion() == 2)
+                .verifyComplete();
+
+        verify(cartCacheService).evict(userId);
+        verify(cartCacheService, never()).addItem(eq(userId), any(CartItem.class), eq(2), eq(0L));
+    }
+
+    @Test
+    void addToCart_WhenConflictPersists_ShouldFailWithConflictAfterRetries() {
+        when(cartCacheService.getCart(userId)).thenAnswer(invocation -> Mono.just(Cart.builder()
+                .uuid(cart.getUuid())
+                .userUuid(userId)
+                .items(new ArrayList<>())
+                .totalPrice(BigDecimal.ZERO)
+                .build()));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartItemRepository.addItem(cart.getUuid(), productId, 2, 0)).thenReturn(Mono.empty());
+        when(cartCacheService.evict(userId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectError(CartVersionConflictException.class)
+                .verify();
+
+        verify(cartItemRepository, times(4)).addItem(cart.getUuid(), productId, 2, 0);
+    }
+
+    @Test
+    void addToCart_WithWriteBehind_ShouldStageCartWithoutDatabaseWrites() {
+        when(cartWriteBehind.isEnabled()).thenReturn(true);
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartCacheService.replaceCart(cart, 0)).thenReturn(Mono.just(true));
+        when(cartWriteBehind.enqueue(cart)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectNextMatches(updatedCart -> updatedCart.getTotalPrice().compareTo(BigDecimal.valueOf(20)) == 0
+                        && updatedCart.getVersion() == 1)
+                .verifyComplete();
+
+        verify(cartCacheService).replaceCart(cart, 0);
+        verify(cartWriteBehind).enqueue(cart);
+        verifyNoInteractions(cartRepository, cartItemRepository);
+    }
+
+    @Test
+    void addToCart_WithWriteBehind_WhenEnqueueFails_ShouldEvictStagedCart() {
+        when(cartWriteBehind.isEnabled()).thenReturn(true);
+        when(cartCacheService.getCart(userId)).thenReturn(Mono.just(cart));
+        when(productService.getByUuid(productId)).thenReturn(Mono.just(product));
+        when(cartCacheService.replaceCart(cart, 0)).thenReturn(Mono.just(true));
+        when(cartWriteBehind.enqueue(cart)).thenReturn(Mono.error(new IllegalStateException("redis down")));
+        when(cartCacheService.evict(userId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartService.addToCart(userId, productId, 2))
+                .expectError(IllegalCartStateException.class)
+                .verify();
+
+        verify(cartCacheService).evict(userId);
+    }
+
     @Test
     void addToCart_WithInvalidQuantity_ShouldThrowException() {
         StepVerifier.create(cartService.addToCart(userId, productId, 0))
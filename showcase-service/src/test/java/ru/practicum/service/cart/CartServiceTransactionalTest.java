@@ -32,6 +32,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -101,7 +103,10 @@ class CartServiceTransactionalTest {
                 .price(BigDecimal.valueOf(100))
                 .build();
 
-        when(cartCacheService.evict(any())).thenReturn(Mono.empty());
+        when(cartCacheService.addItem(any(), any(), anyInt(), anyLong())).thenReturn(Mono.empty());
+        when(cartCacheService.updateItem(any(), any(), anyLong())).thenReturn(Mono.empty());
+        when(cartCacheService.removeItem(any(), any(), anyLong())).thenReturn(Mono.empty());
+        when(cartCacheService.clearItems(any(), anyLong())).thenReturn(Mono.empty());
         when(cartCacheService.getCart(userId)).thenReturn(Mono.just(
                 Cart.builder()
                         .uuid(cartId)
@@ -0,0 +1,191 @@
+package ru.practicum.service.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStreamOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.config.cache.cart.CartWriteBehindProperties;
+import ru.practicum.model.cart.Cart;
+import ru.practicum.model.cart.CartItem;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.cart.CartRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartWriteBehindTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ReactiveStreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private CartCacheService cartCacheService;
+
+    @Mock
+    private CartRepository cartRepository;
+
+    private CartWriteBehindImpl cartWriteBehind;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID otherUserId = UUID.randomUUID();
+    private final UUID cartId = UUID.randomUUID();
+    private final UUID productId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        cartWriteBehind = new CartWriteBehindImpl(
+                stringRedisTemplate,
+                cartCacheService,
+                cartRepository,
+                new CartWriteBehindProperties(true, Duration.ofSeconds(1), 3, Duration.ofMinutes(1))
+        );
+
+        lenient().when(stringRedisTemplate.opsForStream()).thenReturn(streamOperations);
+        lenient().when(streamOperations.acknowledge(anyString(), anyString(), any(RecordId[].class)))
+                .thenReturn(Mono.just(1L));
+        lenient().when(streamOperations.delete(anyString(), any(RecordId[].class))).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void enqueue_ShouldAppendCartStateToStream() {
+        Cart cart = Cart.builder()
+                .uuid(cartId)
+                .userUuid(userId)
+                .version(2)
+                .totalPrice(new BigDecimal("21.00"))
+                .items(List.of(CartItem.builder()
+                        .product(Product.builder().uuid(productId).build())
+                        .quantity(3)
+                        .build()))
+                .build();
+        when(streamOperations.add("cart-write-behind", Map.of(
+                "user", userId.toString(),
+                "cart", cartId.toString(),
+                "version", "2",
+                "total", "21.00",
+                "items", productId + "=3")))
+                .thenReturn(Mono.just(RecordId.of("1-0")));
+
+        StepVerifier.create(cartWriteBehind.enqueue(cart))
+                .verifyComplete();
+    }
+
+    @Test
+    void flushAll_ShouldWriteLatestVersionOfEachCartAndAcknowledge() {
+        UUID otherCartId = UUID.randomUUID();
+
+        when(streamOperations.pending(eq("cart-write-behind"), eq("cart-flushers"), any(), eq(3L)))
+                .thenReturn(Mono.just(new PendingMessages("cart-flushers", List.of())));
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(Flux.empty())
+                .thenReturn(Flux.just(record("1-0", userId, cartId, 1, productId + "=1"),
+                        record("2-0", otherUserId, otherCartId, 4, ""),
+                        record("3-0", userId, cartId, 2, productId + "=5")))
+                .thenReturn(Flux.empty());
+        when(cartRepository.saveCarts(anyList())).thenReturn(Mono.empty());
+        when(cartCacheService.expireSaved(any(UUID.class), anyLong())).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartWriteBehind.flushAll())
+                .verifyComplete();
+
+        verify(cartRepository).saveCarts(ArgumentMatchers.<List<Cart>>argThat(carts -> carts.size() == 2
+                && carts.get(0).getUuid().equals(cartId) && carts.get(0).getVersion() == 2
+                && carts.get(0).getItems().getFirst().getQuantity() == 5
+                && carts.get(1).getUuid().equals(otherCartId) && carts.get(1).getItems().isEmpty()));
+        verify(streamOperations).acknowledge("cart-write-behind", "cart-flushers",
+                RecordId.of("1-0"), RecordId.of("2-0"), RecordId.of("3-0"));
+        verify(cartCacheService).expireSaved(userId, 2);
+        verify(cartCacheService).expireSaved(otherUserId, 4);
+        verify(cartCacheService, never()).findCached(any());
+    }
+
+    @Test
+    void flushBatch_WhenRecordIsMalformed_ShouldDeadLetterItAndSaveTheRest() {
+        MapRecord<String, Object, Object> malformed = StreamRecords.<String, Object, Object>mapBacked(Map.of(
+                        "user", userId.toString(),
+                        "cart", "not-a-uuid"))
+                .withStreamKey("cart-write-behind")
+                .withId(RecordId.of("2-0"));
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(Flux.just(record("1-0", userId, cartId, 1, productId + "=1"), malformed));
+        when(cartRepository.saveCarts(anyList())).thenReturn(Mono.empty());
+        when(streamOperations.add("cart-write-behind:dead", malformed.getValue()))
+                .thenReturn(Mono.just(RecordId.of("1-0")));
+        when(cartCacheService.expireSaved(any(UUID.class), anyLong())).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartWriteBehind.flushBatch(ReadOffset.lastConsumed()))
+                .expectNext(2)
+                .verifyComplete();
+
+        verify(cartRepository).saveCarts(ArgumentMatchers.<List<Cart>>argThat(carts -> carts.size() == 1
+                && carts.getFirst().getUuid().equals(cartId)));
+        verify(streamOperations).add("cart-write-behind:dead", malformed.getValue());
+        verify(streamOperations).acknowledge("cart-write-behind", "cart-flushers",
+                RecordId.of("1-0"), RecordId.of("2-0"));
+        verify(streamOperations).delete("cart-write-behind", RecordId.of("1-0"), RecordId.of("2-0"));
+    }
+
+    @Test
+    void flushBatch_WhenDatabaseFails_ShouldLeaveRecordsPending() {
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(Flux.just(record("1-0", userId, cartId, 1, productId + "=1")));
+        when(cartRepository.saveCarts(anyList())).thenReturn(Mono.error(new IllegalStateException("db down")));
+
+        StepVerifier.create(cartWriteBehind.flushBatch(ReadOffset.lastConsumed()))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(streamOperations, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        verify(streamOperations, never()).delete(anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    void flush_ShouldWriteCachedCartImmediately() {
+        Cart cart = Cart.builder().uuid(UUID.randomUUID()).userUuid(userId).build();
+
+        when(cartCacheService.findCached(userId)).thenReturn(Mono.just(cart));
+        when(cartRepository.saveCarts(List.of(cart))).thenReturn(Mono.empty());
+
+        StepVerifier.create(cartWriteBehind.flush(userId))
+                .verifyComplete();
+
+        verify(cartRepository).saveCarts(List.of(cart));
+    }
+
+    private static MapRecord<String, Object, Object> record(String id, UUID userUuid, UUID cartUuid,
+                                                            long version, String items) {
+        return StreamRecords.<String, Object, Object>mapBacked(Map.of(
+                        "user", userUuid.toString(),
+                        "cart", cartUuid.toString(),
+                        "version", String.valueOf(version),
+                        "total", "0",
+                        "items", items))
+                .withStreamKey("cart-write-behind")
+                .withId(RecordId.of(id));
+    }
+}
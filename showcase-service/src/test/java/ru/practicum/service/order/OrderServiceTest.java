@@ -62,12 +62,14 @@ class OrderServiceTest {
                 .items(Collections.emptyList())
                 .build();
 
+        when(cartService.flush(userUuid)).thenReturn(Mono.empty());
         when(cartService.get(userUuid)).thenReturn(Mono.just(emptyCart));
 
         StepVerifier.create(orderService.create(userUuid))
                 .expectError(IllegalCartStateException.class)
                 .verify();
 
+        verify(cartService).flush(userUuid);
         verify(cartService).get(userUuid);
         verifyNoMoreInteractions(cartService, orderRepository, orderItemRepository);
     }
@@ -128,6 +130,7 @@ class OrderServiceTest {
                 .items(List.of(orderItem))
                 .build();
 
+        when(cartService.flush(userUuid)).thenReturn(Mono.empty());
         when(cartService.get(userUuid)).thenReturn(Mono.just(cart));
         when(orderRepository.save(any(OrderDao.class))).thenReturn(Mono.just(savedOrderDao));
         when(orderMapper.orderToOrderDao(any(Order.class))).thenReturn(savedOrderDao);
@@ -262,6 +265,56 @@ class OrderServiceTest {
         verify(orderRepository).findByUuidAndUserUuid(orderUuid, userUuid);
     }
 
+    @Test
+    void getByUuid_ShouldResolveItemProductsWithOneBatchLookup() {
+        UUID userUuid = UUID.randomUUID();
+        UUID orderUuid = UUID.randomUUID();
+        UUID firstProductUuid = UUID.randomUUID();
+        UUID secondProductUuid = UUID.randomUUID();
+
+        OrderDao orderDao = OrderDao.builder()
+                .uuid(orderUuid)
+                .userUuid(userUuid)
+                .build();
+        Order order = Order.builder()
+                .uuid(orderUuid)
+                .userUuid(userUuid)
+                .build();
+        OrderItemDao firstItem = OrderItemDao.builder()
+                .uuid(UUID.randomUUID())
+                .orderUuid(orderUuid)
+                .productUuid(firstProductUuid)
+                .quantity(1)
+                .priceAtOrder(BigDecimal.ONE)
+                .build();
+        OrderItemDao secondItem = OrderItemDao.builder()
+                .uuid(UUID.randomUUID())
+                .orderUuid(orderUuid)
+                .productUuid(secondProductUuid)
+                .quantity(3)
+                .priceAtOrder(BigDecimal.TEN)
+                .build();
+
+        when(orderRepository.findByUuidAndUserUuid(orderUuid, userUuid)).thenReturn(Mono.just(orderDao));
+        when(orderMapper.orderDaoToOrder(orderDao)).thenReturn(order);
+        when(orderItemRepository.findByOrderUuid(orderUuid)).thenReturn(Flux.just(firstItem, secondItem));
+        when(productService.getProductsByUuids(Set.of(firstProductUuid, secondProductUuid)))
+                .thenReturn(Mono.just(Map.of(
+                        firstProductUuid, Product.builder().uuid(firstProductUuid).build(),
+                        secondProductUuid, Product.builder().uuid(secondProductUuid).build())));
+
+        StepVerifier.create(orderService.getByUuid(userUuid, orderUuid))
+                .assertNext(result -> {
+                    assertThat(result.getItems()).extracting(OrderItem::getProductUuid)
+                            .containsExactly(firstProductUuid, secondProductUuid);
+                    assertThat(result.getItems()).extracting(OrderItem::getQuantity)
+                            .containsExactly(1, 3);
+                })
+                .verifyComplete();
+
+        verify(productService, never()).getByUuid(any());
+    }
+
     @Test
     void getByUuid_WhenOrderNotExists_ShouldThrowException() {
         UUID userUuid = UUID.randomUUID();
@@ -40,7 +40,7 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
     private ReactiveRedisTemplate<String, ProductCacheDto> productCacheTemplate;
 
     @Autowired
-    private ReactiveRedisTemplate<String, List<ProductCacheDto>> listCacheTemplate;
+    private ProductCatalogCacheStore catalogCacheStore;
 
     private ProductDao testProductDao;
     private Product testProduct;
@@ -85,7 +85,7 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
     @Test
     void getProductById_WhenCached_ShouldReturnFromCache() {
         productCacheTemplate.opsForValue()
-                .set("product:" + testProductDao.getUuid(), testProductCacheDto, Duration.ofMinutes(2))
+                .set("v1:product:" + testProductDao.getUuid(), testProductCacheDto, Duration.ofMinutes(2))
                 .block();
 
         StepVerifier.create(productCacheService.getProductById(testProductDao.getUuid()))
@@ -119,7 +119,7 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
                 })
                 .verifyComplete();
 
-        StepVerifier.create(listCacheTemplate.opsForValue().get("all_products"))
+        StepVerifier.create(catalogCacheStore.getAll("v1:all_products"))
                 .assertNext(dtos -> {
                     assertEquals(1, dtos.size());
                     ProductCacheDto dto = dtos.getFirst();
@@ -132,8 +132,7 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
 
     @Test
     void getAllProducts_WhenCached_ShouldReturnFromCache() {
-        listCacheTemplate.opsForValue()
-                .set("all_products", List.of(testProductCacheDto), Duration.ofMinutes(2))
+        catalogCacheStore.put("v1:all_products", List.of(testProductCacheDto), Duration.ofMinutes(2))
                 .block();
 
         StepVerifier.create(productCacheService.getAllProducts().collectList())
@@ -151,14 +150,16 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
 
     @Test
     void cacheProducts_ShouldSaveToRedis() {
+        catalogCacheStore.put("v1:all_products", List.of(), Duration.ofMinutes(2)).block();
+
         StepVerifier.create(productCacheService.cacheProducts(List.of(testProduct)))
                 .verifyComplete();
 
-        StepVerifier.create(productCacheTemplate.opsForValue().get("product:" + testProductDao.getUuid()))
+        StepVerifier.create(productCacheTemplate.opsForValue().get("v1:product:" + testProductDao.getUuid()))
                 .assertNext(dto -> assertEquals(testProductDao.getUuid(), dto.getUuid()))
                 .verifyComplete();
 
-        StepVerifier.create(listCacheTemplate.opsForValue().get("all_products"))
+        StepVerifier.create(catalogCacheStore.getAll("v1:all_products"))
                 .assertNext(dtos -> {
                     assertEquals(1, dtos.size());
                     assertEquals(testProductDao.getUuid(), dtos.getFirst().getUuid());
@@ -168,14 +169,13 @@ class ProductCacheServiceIntegrationTest extends CacheServiceIntegrationTest {
 
     @Test
     void evictListCache_ShouldRemoveAllProductsKey() {
-        listCacheTemplate.opsForValue()
-                .set("all_products", List.of(testProductCacheDto), Duration.ofMinutes(2))
+        catalogCacheStore.put("v1:all_products", List.of(testProductCacheDto), Duration.ofMinutes(2))
                 .block();
 
         StepVerifier.create(productCacheService.evictListCache())
                 .verifyComplete();
 
-        StepVerifier.create(listCacheTemplate.opsForValue().get("all_products"))
+        StepVerifier.create(catalogCacheStore.getAll("v1:all_products"))
                 .expectNextCount(0)
                 .verifyComplete();
     }
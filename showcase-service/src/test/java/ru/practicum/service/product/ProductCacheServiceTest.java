@@ -3,22 +3,37 @@ package ru.practicum.service.product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveValueOperations;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.CacheNamespace;
+import ru.practicum.config.cache.CacheNamespaceProperties;
+import ru.practicum.config.cache.product.ProductCacheRebuildProperties;
+import ru.practicum.config.cache.product.ProductCacheTtlProperties;
 import ru.practicum.dao.product.ProductDao;
 import ru.practicum.dto.product.cache.ProductCacheDto;
 import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.product.Product;
 import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheBulkWriter;
+import ru.practicum.service.cache.CacheLockService;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -26,10 +41,14 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -47,16 +66,21 @@ class ProductCacheServiceTest {
     private ReactiveRedisTemplate<String, ProductCacheDto> productCacheTemplate;
 
     @Mock
-    private ReactiveRedisTemplate<String, List<ProductCacheDto>> listCacheTemplate;
+    private ProductCatalogCacheStore catalogCacheStore;
 
     @Mock
     private ReactiveValueOperations<String, ProductCacheDto> productValueOps;
 
     @Mock
-    private ReactiveValueOperations<String, List<ProductCacheDto>> listValueOps;
+    private CacheLockService cacheLockService;
 
-    // @InjectMocks какой-то конфликт с внедрением productValueOps и listValueOps
-    // вместо listValueOps внедряется productValueOps
+    @Mock
+    private CacheBulkWriter cacheBulkWriter;
+
+    @Mock
+    private ProductIdFilter productIdFilter;
+
+    // @InjectMocks не передает значения конфигурации в конструктор,
     // поэтому внедряем зависимости руками в setUp
     private ProductCacheServiceImpl productCacheService;
 
@@ -65,38 +89,57 @@ class ProductCacheServiceTest {
     private final ProductDao productDao = new ProductDao();
     private ProductCacheDto productCacheDto = new ProductCacheDto();
 
+    private ProductCacheDto summaryDto = new ProductCacheDto();
+
     @BeforeEach
     void setUp() {
         productCacheService = new ProductCacheServiceImpl(
                 productRepository,
                 productMapper,
                 productCacheTemplate,
-                listCacheTemplate
+                catalogCacheStore,
+                cacheBulkWriter,
+                productIdFilter,
+                cacheLockService,
+                new ProductCacheRebuildProperties(Duration.ofSeconds(10), Duration.ofMillis(30),
+                        Duration.ofMillis(10), Duration.ofMinutes(30)),
+                new ProductCacheTtlProperties(Duration.ofMinutes(2), Duration.ofMinutes(10)),
+                new CacheNamespace(new CacheNamespaceProperties(1))
         );
 
         product.setUuid(productId);
         productCacheDto.setUuid(productId);
+        summaryDto.setUuid(productId);
         productDao.setUuid(productId);
 
-        lenient().when(listCacheTemplate.opsForValue()).thenReturn(listValueOps);
         lenient().when(productCacheTemplate.opsForValue()).thenReturn(productValueOps);
+        lenient().when(productIdFilter.mightExist(any(UUID.class))).thenReturn(true);
 
         lenient().when(productValueOps.get(anyString())).thenReturn(Mono.empty());
-        lenient().when(listValueOps.get(anyString())).thenReturn(Mono.empty());
+        lenient().when(catalogCacheStore.getAll(anyString())).thenReturn(Mono.empty());
         lenient().when(productRepository.findById(any(UUID.class))).thenReturn(Mono.empty());
         lenient().when(productRepository.findAll()).thenReturn(Flux.empty());
 
         lenient().when(productValueOps.set(anyString(), any(ProductCacheDto.class), any(Duration.class)))
                 .thenReturn(Mono.just(true));
-        lenient().when(listValueOps.set(anyString(), anyList(), any(Duration.class)))
-                .thenReturn(Mono.just(true));
+        lenient().when(catalogCacheStore.put(anyString(), anyList(), any(Duration.class)))
+                .thenReturn(Mono.empty());
 
-        lenient().when(listCacheTemplate.delete(anyString())).thenReturn(Mono.just(1L));
+        lenient().when(cacheBulkWriter.setAll(any(), anyMap(), any(Duration.class))).thenReturn(Mono.empty());
+        lenient().when(catalogCacheStore.upsert(anyString(), anyList())).thenReturn(Mono.empty());
+        lenient().when(catalogCacheStore.delete(anyString())).thenReturn(Mono.empty());
+        lenient().when(productCacheTemplate.getExpire(anyString())).thenReturn(Mono.just(Duration.ofMinutes(9)));
+        lenient().when(catalogCacheStore.getRemainingTtl(anyString())).thenReturn(Mono.just(Duration.ofMinutes(9)));
+
+        lenient().when(productMapper.productToSummaryCacheDto(any(Product.class))).thenReturn(summaryDto);
+
+        lenient().when(cacheLockService.tryAcquire(anyString(), any(Duration.class))).thenReturn(Mono.just("token"));
+        lenient().when(cacheLockService.release(anyString(), anyString())).thenReturn(Mono.empty());
     }
 
     @Test
     void getProductById_WhenCached_ShouldReturnFromCache() {
-        when(productValueOps.get("product:" + productId)).thenReturn(Mono.just(productCacheDto));
+        when(productValueOps.get("v1:product:" + productId)).thenReturn(Mono.just(productCacheDto));
         when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
 
         Mono<Product> result = productCacheService.getProductById(productId);
@@ -104,6 +147,21 @@ class ProductCacheServiceTest {
         assertEquals(product, result.block());
     }
 
+    @Test
+    void getProductById_WhenStale_ShouldReturnCachedAndRefreshInBackground() {
+        ProductCacheDto freshDto = new ProductCacheDto();
+        when(productValueOps.get("v1:product:" + productId)).thenReturn(Mono.just(productCacheDto));
+        when(productCacheTemplate.getExpire("v1:product:" + productId)).thenReturn(Mono.just(Duration.ofMinutes(3)));
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+        when(productRepository.findById(productId)).thenReturn(Mono.just(productDao));
+        when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
+        when(productMapper.productToCacheDto(product)).thenReturn(freshDto);
+
+        assertEquals(product, productCacheService.getProductById(productId).block());
+
+        verify(productValueOps, timeout(1000)).set("v1:product:" + productId, freshDto, Duration.ofMinutes(10));
+    }
+
     @Test
     void getProductById_WhenNotCached_ShouldFetchAndCache() {
         when(productRepository.findById(productId)).thenReturn(Mono.just(productDao));
@@ -115,7 +173,20 @@ class ProductCacheServiceTest {
         Product actualProduct = result.block();
         assertNotNull(actualProduct);
         assertEquals(productId, actualProduct.getUuid());
-        verify(productValueOps).set(eq("product:" + productId), eq(productCacheDto), any(Duration.class));
+        verify(productValueOps).set(eq("v1:product:" + productId), eq(productCacheDto), any(Duration.class));
+    }
+
+    @Test
+    void getProductById_WhenNotCached_ShouldUpsertIntoCatalogWithoutRewritingIt() {
+        when(productRepository.findById(productId)).thenReturn(Mono.just(productDao));
+        when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
+        when(productMapper.productToCacheDto(product)).thenReturn(productCacheDto);
+
+        productCacheService.getProductById(productId).block();
+
+        verify(catalogCacheStore).upsert("v1:all_products", List.of(summaryDto));
+        verify(catalogCacheStore, never()).getAll(anyString());
+        verify(catalogCacheStore, never()).put(anyString(), anyList(), any(Duration.class));
     }
 
     @Test
@@ -124,12 +195,65 @@ class ProductCacheServiceTest {
 
         assertThrows(ProductNotFoundException.class, () ->
                 productCacheService.getProductById(productId).block());
+        verify(productRepository, times(1)).findById(productId);
+        verify(productIdFilter).markMissing(productId);
+    }
+
+    @Test
+    void getProductById_WhenRejectedByFilter_ShouldFailWithoutIo() {
+        when(productIdFilter.mightExist(productId)).thenReturn(false);
+
+        assertThrows(ProductNotFoundException.class, () ->
+                productCacheService.getProductById(productId).block());
+        verifyNoInteractions(productCacheTemplate, productRepository);
+    }
+
+    @Test
+    void getProductsByIds_WhenAllCached_ShouldNotQueryDatabase() {
+        when(productValueOps.multiGet(List.of("v1:product:" + productId))).thenReturn(Mono.just(List.of(productCacheDto)));
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+
+        Map<UUID, Product> result = productCacheService.getProductsByIds(List.of(productId, productId)).block();
+
+        assertEquals(Map.of(productId, product), result);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsByIds_WhenPartiallyCached_ShouldLoadMissesInOneQueryAndBackfill() {
+        UUID missingId = UUID.randomUUID();
+        ProductDao missingDao = ProductDao.builder().uuid(missingId).build();
+        Product missingProduct = Product.builder().uuid(missingId).build();
+        ProductCacheDto missingDto = new ProductCacheDto();
+        missingDto.setUuid(missingId);
+
+        when(productValueOps.multiGet(List.of("v1:product:" + productId, "v1:product:" + missingId)))
+                .thenReturn(Mono.just(Arrays.asList(productCacheDto, null)));
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+        when(productRepository.findAllById(List.of(missingId))).thenReturn(Flux.just(missingDao));
+        when(productMapper.productDaoToProduct(missingDao)).thenReturn(missingProduct);
+        when(productMapper.productToCacheDto(missingProduct)).thenReturn(missingDto);
+
+        Map<UUID, Product> result = productCacheService.getProductsByIds(List.of(productId, missingId)).block();
+
+        assertEquals(Map.of(productId, product, missingId, missingProduct), result);
+        verify(cacheBulkWriter).setAll(productCacheTemplate, Map.of("v1:product:" + missingId, missingDto),
+                Duration.ofMinutes(10));
+        verify(productValueOps, never()).get(anyString());
+    }
+
+    @Test
+    void getProductsByIds_WhenEmpty_ShouldDoNothing() {
+        assertEquals(Map.of(), productCacheService.getProductsByIds(List.of()).block());
+
+        verifyNoInteractions(productValueOps);
+        verifyNoInteractions(productRepository);
     }
 
     @Test
     void getAllProducts_WhenCached_ShouldReturnFromCache() {
         List<ProductCacheDto> cachedList = List.of(productCacheDto);
-        when(listValueOps.get("all_products")).thenReturn(Mono.just(cachedList));
+        when(catalogCacheStore.getAll("v1:all_products")).thenReturn(Mono.just(cachedList));
         when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
 
         Flux<Product> result = productCacheService.getAllProducts();
@@ -141,18 +265,105 @@ class ProductCacheServiceTest {
         verify(productRepository, never()).findAll();
     }
 
+    @Test
+    void getAllProducts_WhenStale_ShouldReturnCachedAndRebuildInBackground() {
+        when(catalogCacheStore.getAll("v1:all_products")).thenReturn(Mono.just(List.of(productCacheDto)));
+        when(catalogCacheStore.getRemainingTtl("v1:all_products")).thenReturn(Mono.just(Duration.ofMinutes(1)));
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+        when(productRepository.findAll()).thenReturn(Flux.just(productDao));
+        when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
+        when(productMapper.productCacheDtoToProduct(summaryDto)).thenReturn(product);
+
+        assertEquals(List.of(product), productCacheService.getAllProducts().collectList().block());
+
+        verify(catalogCacheStore, timeout(1000)).put(eq("v1:all_products"), anyList(), eq(Duration.ofMinutes(10)));
+        verify(cacheLockService, timeout(1000)).release("v1:all_products", "token");
+    }
+
     @Test
     void getAllProducts_WhenNotCached_ShouldFetchAndCache() {
         when(productRepository.findAll()).thenReturn(Flux.just(productDao));
         when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
-        when(productMapper.productToCacheDto(product)).thenReturn(productCacheDto);
+        when(productMapper.productCacheDtoToProduct(summaryDto)).thenReturn(product);
 
         Flux<Product> result = productCacheService.getAllProducts();
 
         List<Product> products = result.collectList().block();
         assertNotNull(products);
         assertEquals(1, products.size());
-        verify(listValueOps).set(eq("all_products"), anyList(), any(Duration.class));
+        verify(catalogCacheStore).put(eq("v1:all_products"), anyList(), any(Duration.class));
+        verify(catalogCacheStore).put(eq("v1:all_products:stale"), anyList(), eq(Duration.ofMinutes(30)));
+        verify(cacheLockService).release("v1:all_products", "token");
+    }
+
+    @Test
+    void getAllProducts_WhenConcurrentMisses_ShouldRebuildOnce() {
+        when(productRepository.findAll()).thenReturn(Flux.just(productDao).delayElements(Duration.ofMillis(50)));
+        when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
+        when(productMapper.productCacheDtoToProduct(summaryDto)).thenReturn(product);
+
+        List<List<Product>> results = Flux.range(0, 5)
+                .flatMap(i -> productCacheService.getAllProducts().collectList())
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertEquals(5, results.size());
+        results.forEach(products -> assertEquals(List.of(product), products));
+        verify(productRepository, times(1)).findAll();
+        verify(cacheLockService, times(1)).tryAcquire(eq("v1:all_products"), any(Duration.class));
+    }
+
+    @Test
+    void getAllProducts_WhenAnotherNodeRebuilds_ShouldWaitForItsResult() {
+        AtomicInteger reads = new AtomicInteger();
+        when(catalogCacheStore.getAll("v1:all_products")).thenReturn(Mono.defer(() -> reads.incrementAndGet() < 3
+                ? Mono.empty()
+                : Mono.just(List.of(productCacheDto))));
+        when(cacheLockService.tryAcquire(eq("v1:all_products"), any(Duration.class))).thenReturn(Mono.empty());
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+
+        assertEquals(List.of(product), productCacheService.getAllProducts().collectList().block());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllProducts_WhenRebuildIsSlow_ShouldServeStaleCopy() {
+        when(catalogCacheStore.getAll("v1:all_products:stale")).thenReturn(Mono.just(List.of(productCacheDto)));
+        when(cacheLockService.tryAcquire(eq("v1:all_products"), any(Duration.class))).thenReturn(Mono.empty());
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+
+        assertEquals(List.of(product), productCacheService.getAllProducts().collectList().block());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getProductPage_WhenCached_ShouldReadOnlyThePage() {
+        Pageable pageable = PageRequest.of(1, 1);
+        when(catalogCacheStore.getPage("v1:all_products", null, pageable))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(productCacheDto), pageable, 5)));
+        when(productMapper.productCacheDtoToProduct(productCacheDto)).thenReturn(product);
+
+        Page<Product> page = productCacheService.getProductPage(pageable).block();
+
+        assertNotNull(page);
+        assertEquals(List.of(product), page.getContent());
+        assertEquals(5, page.getTotalElements());
+        verify(catalogCacheStore, never()).getAll(anyString());
+    }
+
+    @Test
+    void getProductPage_WhenNotCached_ShouldRebuildCatalog() {
+        when(catalogCacheStore.getPage(eq("v1:all_products"), isNull(), any(Pageable.class))).thenReturn(Mono.empty());
+        when(productRepository.findAll()).thenReturn(Flux.just(productDao));
+        when(productMapper.productDaoToProduct(productDao)).thenReturn(product);
+        when(productMapper.productCacheDtoToProduct(summaryDto)).thenReturn(product);
+
+        Page<Product> page = productCacheService.getProductPage(PageRequest.of(0, 10)).block();
+
+        assertNotNull(page);
+        assertEquals(List.of(product), page.getContent());
+        verify(catalogCacheStore).put(eq("v1:all_products"), anyList(), any(Duration.class));
     }
 
     @Test
@@ -161,21 +372,35 @@ class ProductCacheServiceTest {
 
         assertNull(result.block());
         verifyNoInteractions(productValueOps);
-        verifyNoInteractions(listValueOps);
+        verifyNoInteractions(catalogCacheStore);
+        verifyNoInteractions(cacheBulkWriter);
     }
 
     @Test
     void cacheProducts_ShouldSaveToCache() {
         List<Product> products = List.of(product);
-        List<ProductCacheDto> dtos = List.of(productCacheDto);
-
         when(productMapper.productToCacheDto(product)).thenReturn(productCacheDto);
 
         Mono<Void> result = productCacheService.cacheProducts(products);
 
         assertNull(result.block());
-        verify(productValueOps).set(eq("product:" + productId), eq(productCacheDto), any(Duration.class));
-        verify(listValueOps).set(eq("all_products"), eq(dtos), any(Duration.class));
+        verify(cacheBulkWriter).setAll(productCacheTemplate, Map.of("v1:product:" + productId, productCacheDto),
+                Duration.ofMinutes(10));
+        verify(catalogCacheStore).upsert("v1:all_products", List.of(summaryDto));
+        verify(catalogCacheStore).upsert("v1:all_products:stale", List.of(summaryDto));
+        verify(catalogCacheStore, never()).put(anyString(), anyList(), any(Duration.class));
+    }
+
+    @Test
+    void evictProducts_ShouldRemoveFromFreshAndStaleLists() {
+        when(productCacheTemplate.delete(ArgumentMatchers.<Publisher<String>>any())).thenReturn(Mono.just(1L));
+        when(catalogCacheStore.remove(anyString(), eq(List.of(productId)))).thenReturn(Mono.empty());
+
+        Mono<Void> result = productCacheService.evictProducts(List.of(productId));
+
+        assertNull(result.block());
+        verify(catalogCacheStore).remove("v1:all_products", List.of(productId));
+        verify(catalogCacheStore).remove("v1:all_products:stale", List.of(productId));
     }
 
     @Test
@@ -183,6 +408,6 @@ class ProductCacheServiceTest {
         Mono<Void> result = productCacheService.evictListCache();
 
         assertNull(result.block());
-        verify(listCacheTemplate).delete("all_products");
+        verify(catalogCacheStore).delete("v1:all_products");
     }
 }
\ No newline at end of file
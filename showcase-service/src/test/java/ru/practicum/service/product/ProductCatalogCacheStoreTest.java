@@ -0,0 +1,187 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.cache.CacheSerializationProperties;
+import ru.practicum.config.cache.CacheSerializerFactory;
+import ru.practicum.config.cache.RedisBaseConfig;
+import ru.practicum.config.cache.product.ProductCatalogCacheProperties;
+import ru.practicum.dto.product.cache.ProductCacheDto;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogCacheStoreTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> stringValueOps;
+
+    @Mock
+    private ReactiveZSetOperations<String, String> zSetOps;
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> catalogTemplate;
+
+    @Mock
+    private ReactiveHashOperations<String, String, byte[]> hashOps;
+
+    private ProductCatalogCacheStoreImpl catalogCacheStore;
+
+    private final RedisSerializer<ProductCacheDto> serializer = serializerFactory().create(ProductCacheDto.class);
+
+    private final List<ProductCacheDto> catalog = IntStream.range(0, 10)
+            .mapToObj(i -> ProductCacheDto.builder()
+                    .uuid(UUID.randomUUID())
+                    .name("Товар " + i)
+                    .price(BigDecimal.valueOf(i))
+                    .build())
+            .toList();
+
+    @BeforeEach
+    void setUp() {
+        catalogCacheStore = new ProductCatalogCacheStoreImpl(
+                stringRedisTemplate,
+                catalogTemplate,
+                serializerFactory(),
+                new ProductCatalogCacheProperties(3)
+        );
+
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(stringValueOps);
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOps);
+        lenient().when(catalogTemplate.<String, byte[]>opsForHash()).thenReturn(hashOps);
+        lenient().when(stringValueOps.get("all_products")).thenReturn(Mono.just("v1"));
+        lenient().when(catalogTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+    }
+
+    @Test
+    void put_ShouldLoadNewVersionInBatchesAndRetirePreviousVersion() {
+        when(catalogTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(call ->
+                call.<List<String>>getArgument(1).size() == 1
+                        ? Flux.just("v0".getBytes(StandardCharsets.UTF_8))
+                        : Flux.just(1L));
+
+        catalogCacheStore.put("all_products", catalog, Duration.ofMinutes(10)).block();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.captor();
+        verify(catalogTemplate, times(5)).execute(any(RedisScript.class), keys.capture(), anyList());
+        assertEquals(4, keys.getAllValues().stream().filter(batchKeys -> batchKeys.size() == 5).count());
+        assertEquals(List.of("all_products"), keys.getAllValues().getLast());
+        verify(catalogTemplate).expire("all_products:v0:items", Duration.ofSeconds(10));
+        verify(catalogTemplate).expire("all_products:v0:name", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void getPage_ShouldReadOnlyPageMembersFromIndex() {
+        List<ProductCacheDto> expected = List.of(catalog.get(5), catalog.get(4));
+        when(zSetOps.reverseRange("all_products:v1:price", Range.closed(2L, 3L)))
+                .thenReturn(Flux.fromStream(expected.stream().map(dto -> dto.getUuid().toString())));
+        when(zSetOps.size("all_products:v1:price")).thenReturn(Mono.just(10L));
+        when(hashOps.multiGet(eq("all_products:v1:items"), anyList()))
+                .thenReturn(Mono.just(expected.stream().map(serializer::serialize).toList()));
+
+        Page<ProductCacheDto> page = catalogCacheStore
+                .getPage("all_products", ProductSort.PRICE_DESC, PageRequest.of(1, 2))
+                .block();
+
+        assertNotNull(page);
+        assertEquals(expected, page.getContent());
+        assertEquals(10, page.getTotalElements());
+    }
+
+    @Test
+    void getPage_ByName_ShouldResolveIdentifiersFromIndexMembers() {
+        ProductCacheDto product = catalog.getFirst();
+        when(zSetOps.range("all_products:v1:name", Range.closed(0L, 0L)))
+                .thenReturn(Flux.just("товар 0\0" + product.getUuid()));
+        when(zSetOps.size("all_products:v1:name")).thenReturn(Mono.just(10L));
+        when(hashOps.multiGet("all_products:v1:items", List.of(product.getUuid().toString())))
+                .thenReturn(Mono.just(List.of(serializer.serialize(product))));
+
+        Page<ProductCacheDto> page = catalogCacheStore
+                .getPage("all_products", ProductSort.NAME_ASC, PageRequest.of(0, 1))
+                .block();
+
+        assertNotNull(page);
+        assertEquals(List.of(product), page.getContent());
+    }
+
+    @Test
+    void upsert_ShouldRunScriptAgainstPublishedVersion() {
+        when(catalogTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        catalogCacheStore.upsert("all_products", List.of(catalog.getFirst())).block();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.captor();
+        ArgumentCaptor<List<Object>> args = ArgumentCaptor.captor();
+        verify(catalogTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals("all_products", keys.getValue().getFirst());
+        assertEquals("all_products:v1:items", keys.getValue().get(1));
+        assertEquals("v1", new String((byte[]) args.getValue().getFirst(), StandardCharsets.UTF_8));
+        assertEquals(5, args.getValue().size());
+    }
+
+    @Test
+    void upsert_WhenCatalogNotCached_ShouldDoNothing() {
+        when(stringValueOps.get("all_products")).thenReturn(Mono.empty());
+
+        catalogCacheStore.upsert("all_products", List.of(catalog.getFirst())).block();
+
+        verify(catalogTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    void remove_ShouldRunScriptAgainstPublishedVersion() {
+        when(catalogTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+        UUID productId = catalog.getFirst().getUuid();
+
+        catalogCacheStore.remove("all_products", List.of(productId)).block();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.captor();
+        ArgumentCaptor<List<Object>> args = ArgumentCaptor.captor();
+        verify(catalogTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals("all_products:v1:names", keys.getValue().getLast());
+        assertEquals(productId.toString(), new String((byte[]) args.getValue().get(1), StandardCharsets.UTF_8));
+    }
+
+    private static CacheSerializerFactory serializerFactory() {
+        return new CacheSerializerFactory(new RedisBaseConfig().redisObjectMapper(),
+                new CacheSerializationProperties(CacheSerializationProperties.Format.SMILE));
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import ru.practicum.config.CatalogSeed;
+import ru.practicum.config.cache.product.ProductSnapshotProperties;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogSnapshotTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
+    @TempDir
+    private Path directory;
+
+    private final UUID seedId = UUID.randomUUID();
+
+    private final Product duck = Product.builder()
+            .uuid(UUID.randomUUID())
+            .name("Уточка")
+            .description("Резиновая уточка для ванной. ".repeat(10))
+            .price(new BigDecimal("199.90"))
+            .imageUrl("/images/duck.png")
+            .build();
+
+    private final Product lamp = Product.builder()
+            .uuid(UUID.randomUUID())
+            .name("Ночник")
+            .price(new BigDecimal("300.00"))
+            .build();
+
+    @Test
+    void refresh_ShouldWriteSnapshotReadableAfterRestart() {
+        when(productRepository.findAll()).thenReturn(Flux.just(duck, lamp).map(productMapper::productToProductDao));
+        snapshot(true).refresh().block();
+
+        ProductCatalogSnapshot restarted = snapshot(true);
+
+        assertEquals(Optional.of(duck), restarted.getProduct(duck.getUuid()));
+        assertEquals(Optional.of(lamp), restarted.getProduct(lamp.getUuid()));
+        assertEquals(Optional.empty(), restarted.getProduct(UUID.randomUUID()));
+        assertEquals(Optional.of(List.of(productMapper.productToSummary(duck), lamp)), restarted.getCatalog());
+    }
+
+    @Test
+    void open_WhenSnapshotIsCorrupted_ShouldIgnoreIt() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        ProductCatalogSnapshotImpl.write(file, List.of(duck, lamp), 1L, seedId);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertTrue(snapshot(true).getCatalog().isEmpty());
+    }
+
+    @Test
+    void open_WhenFormatVersionIsUnknown_ShouldIgnoreIt() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        ProductCatalogSnapshotImpl.write(file, List.of(duck), 1L, seedId);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7] = (byte) (ProductCatalogSnapshotImpl.FORMAT_VERSION + 1);
+        Files.write(file, bytes);
+
+        assertFalse(snapshot(true).getProduct(duck.getUuid()).isPresent());
+    }
+
+    @Test
+    void open_WhenCatalogWasReseeded_ShouldIgnoreSnapshotOfPreviousSeed() {
+        ProductCatalogSnapshotImpl.write(directory.resolve("catalog.snapshot"), List.of(duck, lamp), 1L, UUID.randomUUID());
+
+        ProductCatalogSnapshot reseeded = snapshot(true);
+
+        assertTrue(reseeded.getCatalog().isEmpty());
+        assertFalse(reseeded.getProduct(duck.getUuid()).isPresent());
+    }
+
+    @Test
+    void refresh_WhenDisabled_ShouldDoNothing() {
+        ProductCatalogSnapshot disabled = snapshot(false);
+
+        disabled.refresh().block();
+
+        assertTrue(disabled.getCatalog().isEmpty());
+        assertFalse(Files.exists(directory.resolve("catalog.snapshot")));
+        verifyNoInteractions(productRepository);
+    }
+
+    private ProductCatalogSnapshot snapshot(boolean enabled) {
+        return new ProductCatalogSnapshotImpl(productRepository, productMapper,
+                new ProductSnapshotProperties(enabled, directory.resolve("catalog.snapshot"), Duration.ofMinutes(5)),
+                new CatalogSeed(seedId));
+    }
+}
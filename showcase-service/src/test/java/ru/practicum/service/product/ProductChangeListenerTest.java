@@ -0,0 +1,188 @@
+package ru.practicum.service.product;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.config.cache.product.ProductChangeCaptureProperties;
+import ru.practicum.dao.product.ProductDao;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheLockService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangeListenerTest {
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private ProductCacheService productCacheService;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductSortedViews productSortedViews;
+
+    @Mock
+    private ProductNearCacheInvalidationHandler nearCacheInvalidationHandler;
+
+    @Mock
+    private ProductIdFilter productIdFilter;
+
+    @Mock
+    private CacheLockService cacheLockService;
+
+    private ProductChangeListener productChangeListener;
+
+    private final UUID updatedId = UUID.randomUUID();
+    private final UUID deletedId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        productChangeListener = new ProductChangeListener(
+                connectionFactory,
+                productRepository,
+                productMapper,
+                productCacheService,
+                productSearchIndex,
+                productSortedViews,
+                nearCacheInvalidationHandler,
+                productIdFilter,
+                cacheLockService,
+                new ProductChangeCaptureProperties(true, Duration.ofMillis(200), 500, Duration.ofSeconds(1),
+                        Duration.ofSeconds(10))
+        );
+        lenient().when(cacheLockService.tryAcquire("product-change-writer", Duration.ofSeconds(10)))
+                .thenReturn(Mono.just("token"));
+    }
+
+    @Test
+    void apply_ShouldUpsertFoundProductsAndEvictMissingOnes() {
+        ProductDao dao = new ProductDao();
+        Product updated = Product.builder()
+                .uuid(updatedId)
+                .name("Маяк")
+                .price(BigDecimal.TEN)
+                .build();
+        when(productRepository.findAllById(Set.of(updatedId, deletedId))).thenReturn(Flux.just(dao));
+        when(productMapper.productDaoToProduct(dao)).thenReturn(updated);
+        when(productCacheService.cacheProducts(List.of(updated))).thenReturn(Mono.empty());
+        when(productCacheService.evictProducts(Set.of(deletedId))).thenReturn(Mono.empty());
+
+        StepVerifier.create(productChangeListener.apply(List.of(
+                        updatedId.toString(), deletedId.toString(), updatedId.toString())))
+                .verifyComplete();
+
+        verify(productIdFilter).add(List.of(updatedId));
+        verify(productSearchIndex).index(List.of(updated));
+        verify(productSortedViews).add(List.of(updated));
+        verify(productSearchIndex).refresh();
+        verify(productSortedViews).refresh();
+    }
+
+    @Test
+    void apply_WhenAnotherNodeIsWriter_ShouldUpdateOnlyLocalCaches() {
+        ProductDao dao = new ProductDao();
+        Product updated = Product.builder().uuid(updatedId).build();
+        when(cacheLockService.tryAcquire("product-change-writer", Duration.ofSeconds(10))).thenReturn(Mono.empty());
+        when(productRepository.findAllById(Set.of(updatedId, deletedId))).thenReturn(Flux.just(dao));
+        when(productMapper.productDaoToProduct(dao)).thenReturn(updated);
+
+        StepVerifier.create(productChangeListener.apply(List.of(updatedId.toString(), deletedId.toString())))
+                .verifyComplete();
+
+        verifyNoInteractions(productCacheService);
+        verify(productIdFilter).add(List.of(updatedId));
+        verify(productSearchIndex).index(List.of(updated));
+        verify(productSortedViews).refresh();
+    }
+
+    @Test
+    void apply_WhenNodeIsWriter_ShouldExtendLeaseOnNextBatch() {
+        ProductDao dao = new ProductDao();
+        Product updated = Product.builder().uuid(updatedId).build();
+        when(productRepository.findAllById(Set.of(updatedId))).thenReturn(Flux.just(dao));
+        when(productMapper.productDaoToProduct(dao)).thenReturn(updated);
+        when(productCacheService.cacheProducts(List.of(updated))).thenReturn(Mono.empty());
+        when(productCacheService.evictProducts(Set.of())).thenReturn(Mono.empty());
+        when(cacheLockService.extend("product-change-writer", "token", Duration.ofSeconds(10)))
+                .thenReturn(Mono.just(true));
+
+        productChangeListener.apply(List.of(updatedId.toString())).block();
+        productChangeListener.apply(List.of(updatedId.toString())).block();
+
+        verify(cacheLockService, times(1)).tryAcquire("product-change-writer", Duration.ofSeconds(10));
+        verify(cacheLockService).extend("product-change-writer", "token", Duration.ofSeconds(10));
+        verify(productCacheService, times(2)).cacheProducts(List.of(updated));
+    }
+
+    @Test
+    void onConnected_AfterReconnect_ShouldResetOnlyLocalCachesAndResignWriter() {
+        ProductDao dao = new ProductDao();
+        when(productRepository.findAllById(Set.of(updatedId))).thenReturn(Flux.just(dao));
+        when(productMapper.productDaoToProduct(dao)).thenReturn(Product.builder().uuid(updatedId).build());
+        when(productCacheService.cacheProducts(any())).thenReturn(Mono.empty());
+        when(productCacheService.evictProducts(Set.of())).thenReturn(Mono.empty());
+        when(cacheLockService.release("product-change-writer", "token")).thenReturn(Mono.empty());
+        when(nearCacheInvalidationHandler.onResync()).thenReturn(Mono.empty());
+
+        productChangeListener.onConnected().block();
+        productChangeListener.apply(List.of(updatedId.toString())).block();
+        productChangeListener.onConnected().block();
+
+        verify(nearCacheInvalidationHandler).onResync();
+        verify(cacheLockService).release("product-change-writer", "token");
+        verify(productCacheService, never()).evictListCache();
+    }
+
+    @Test
+    void apply_OnlyUpdates_ShouldNotRebuildViews() {
+        ProductDao dao = new ProductDao();
+        Product updated = Product.builder().uuid(updatedId).build();
+        when(productRepository.findAllById(Set.of(updatedId))).thenReturn(Flux.just(dao));
+        when(productMapper.productDaoToProduct(dao)).thenReturn(updated);
+        when(productCacheService.cacheProducts(any())).thenReturn(Mono.empty());
+        when(productCacheService.evictProducts(Set.of())).thenReturn(Mono.empty());
+
+        productChangeListener.apply(List.of(updatedId.toString())).block();
+
+        verify(productSearchIndex, never()).refresh();
+        verify(productSortedViews, never()).refresh();
+    }
+
+    @Test
+    void apply_WithoutProductIds_ShouldDoNothing() {
+        StepVerifier.create(productChangeListener.apply(List.of("not-a-product")))
+                .verifyComplete();
+
+        verifyNoInteractions(productRepository, productCacheService);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductColumnsTest {
+
+    @Test
+    void get_ShouldRestoreProductFromColumns() {
+        ProductColumns columns = new ProductColumns(1);
+        Product product = Product.builder()
+                .uuid(UUID.randomUUID())
+                .name("Уточка")
+                .description("Для ванной")
+                .price(new BigDecimal("199.90"))
+                .build();
+
+        int row = columns.add(product);
+
+        assertEquals(product, columns.get(row));
+        assertNull(columns.get(row).getImageUrl());
+        assertEquals(19990, columns.priceMinorUnits(row));
+    }
+
+    @Test
+    void add_WhenProductAlreadyPresent_ShouldSupersedePreviousRow() {
+        ProductColumns columns = new ProductColumns(1);
+        UUID uuid = UUID.randomUUID();
+
+        int first = columns.add(product(uuid, "Ночник", "300.00"));
+        int second = columns.add(product(uuid, "Ночник", "50.00"));
+
+        assertEquals(second, columns.rowOf(uuid));
+        assertFalse(columns.isCurrent(first));
+        assertTrue(columns.isCurrent(second));
+        assertEquals(-1, columns.rowOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void sortedRows_ShouldMatchProductSortComparators() {
+        List<String> names = List.of("уточка", "Маяк", "ночник", "Ёлка", "маяк", "Ball", "apple", "Zebra");
+        List<Product> products = IntStream.range(0, 200)
+                .mapToObj(i -> product(UUID.randomUUID(), names.get(i % names.size()), (i * 37 % 50) + ".00"))
+                .toList();
+        ProductColumns columns = new ProductColumns(4);
+        products.forEach(columns::add);
+
+        for (ProductSort sort : List.of(ProductSort.PRICE_ASC, ProductSort.NAME_ASC)) {
+            List<UUID> expected = products.stream()
+                    .sorted(sort.getComparator().thenComparing(Product::getUuid, ProductColumnsTest::compareUnsigned))
+                    .map(Product::getUuid)
+                    .toList();
+            List<UUID> actual = Arrays.stream(columns.sortedRows(sort))
+                    .mapToObj(columns::uuid)
+                    .toList();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void compare_WithCursor_ShouldLocateRowsAroundCursorProduct() {
+        ProductColumns columns = new ProductColumns(2);
+        UUID lower = new UUID(1, 0);
+        UUID upper = new UUID(-1, 0);
+        int first = columns.add(product(lower, "Маяк", "200.00"));
+        int second = columns.add(product(upper, "маяк", "200.00"));
+        ProductCursor byPrice = new ProductCursor(ProductSort.PRICE_DESC, "200", lower);
+        ProductCursor byName = new ProductCursor(ProductSort.NAME_ASC, "МАЯК", lower);
+
+        assertEquals(0, columns.compare(ProductSort.PRICE_DESC, first, byPrice));
+        assertTrue(columns.compare(ProductSort.PRICE_DESC, second, byPrice) > 0);
+        assertEquals(0, columns.compare(ProductSort.NAME_ASC, first, byName));
+        assertTrue(columns.compare(ProductSort.NAME_ASC, second, byName) > 0);
+        assertTrue(columns.compare(ProductSort.NAME_ASC, first, new ProductCursor(ProductSort.NAME_ASC, "ночник", lower)) < 0);
+    }
+
+    /**
+     * Порядок идентификаторов product_uuid в базе данных
+     */
+    private static int compareUnsigned(UUID left, UUID right) {
+        int result = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    }
+
+    private static Product product(UUID uuid, String name, String price) {
+        return Product.builder()
+                .uuid(uuid)
+                .name(name)
+                .price(new BigDecimal(price))
+                .build();
+    }
+}
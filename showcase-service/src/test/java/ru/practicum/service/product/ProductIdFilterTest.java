@@ -0,0 +1,104 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import ru.practicum.config.cache.product.ProductIdFilterProperties;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIdFilterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductIdFilterImpl productIdFilter;
+
+    private final List<UUID> knownIds = IntStream.range(0, 1000)
+            .mapToObj(i -> UUID.randomUUID())
+            .toList();
+
+    @BeforeEach
+    void setUp() {
+        productIdFilter = new ProductIdFilterImpl(productRepository,
+                new ProductIdFilterProperties(100, 0.01, Duration.ofMinutes(10), Duration.ofSeconds(30), 1000));
+    }
+
+    @Test
+    void mightExist_BeforeRebuild_ShouldAllowAnyId() {
+        assertTrue(productIdFilter.mightExist(UUID.randomUUID()));
+    }
+
+    @Test
+    void mightExist_AfterRebuild_ShouldKeepKnownIdsAndRejectMostUnknownOnes() {
+        when(productRepository.findAllIds()).thenReturn(Flux.fromIterable(knownIds));
+
+        productIdFilter.rebuild().block();
+
+        assertTrue(knownIds.stream().allMatch(productIdFilter::mightExist));
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> productIdFilter.mightExist(UUID.randomUUID()))
+                .count();
+        assertTrue(falsePositives < 300, "Ложноположительных ответов: " + falsePositives);
+    }
+
+    @Test
+    void add_ShouldMakeNewIdKnownAndClearMissingMark() {
+        when(productRepository.findAllIds()).thenReturn(Flux.fromIterable(knownIds));
+        productIdFilter.rebuild().block();
+        UUID created = UUID.randomUUID();
+        productIdFilter.markMissing(created);
+
+        productIdFilter.add(List.of(created));
+
+        assertTrue(productIdFilter.mightExist(created));
+    }
+
+    @Test
+    void rebuild_WhenRebuildsOverlap_ShouldKeepIdsAddedDuringEitherOfThem() {
+        Sinks.Many<UUID> first = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.Many<UUID> second = Sinks.many().unicast().onBackpressureBuffer();
+        when(productRepository.findAllIds()).thenReturn(first.asFlux(), second.asFlux());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        UUID createdDuringBoth = UUID.randomUUID();
+
+        productIdFilter.rebuild().subscribe(ignored -> {}, failure::set);
+        productIdFilter.rebuild().subscribe(ignored -> {}, failure::set);
+        productIdFilter.add(List.of(createdDuringBoth));
+        knownIds.forEach(second::tryEmitNext);
+        second.tryEmitComplete();
+        UUID createdDuringFirst = UUID.randomUUID();
+        productIdFilter.add(List.of(createdDuringFirst));
+        knownIds.forEach(first::tryEmitNext);
+        first.tryEmitComplete();
+
+        assertNull(failure.get());
+        assertTrue(productIdFilter.mightExist(createdDuringBoth));
+        assertTrue(productIdFilter.mightExist(createdDuringFirst));
+        assertTrue(knownIds.stream().allMatch(productIdFilter::mightExist));
+    }
+
+    @Test
+    void markMissing_ShouldRejectIdEvenIfFilterMightContainIt() {
+        UUID deleted = knownIds.getFirst();
+
+        productIdFilter.markMissing(deleted);
+
+        assertFalse(productIdFilter.mightExist(deleted));
+    }
+}
@@ -0,0 +1,226 @@
+package ru.practicum.service.product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.practicum.config.cache.product.ProductLocalCacheProperties;
+import ru.practicum.exception.product.ProductNotFoundException;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductLocalCacheServiceTest {
+
+    @Mock
+    private ProductCacheServiceImpl redisProductCacheService;
+
+    @Mock
+    private ProductCatalogSnapshot catalogSnapshot;
+
+    private ProductLocalCacheServiceImpl productLocalCacheService;
+
+    private final UUID productId = UUID.randomUUID();
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productLocalCacheService = new ProductLocalCacheServiceImpl(
+                redisProductCacheService,
+                Mappers.getMapper(ProductMapper.class),
+                catalogSnapshot,
+                new ProductLocalCacheProperties(1000, Duration.ofMinutes(2), Duration.ofSeconds(30)),
+                new SimpleMeterRegistry()
+        );
+
+        product = Product.builder()
+                .uuid(productId)
+                .name("Test Product")
+                .price(BigDecimal.TEN)
+                .build();
+    }
+
+    @Test
+    void getAllProducts_ShouldLoadFromRedisOnlyOnce() {
+        when(redisProductCacheService.getAllProducts()).thenReturn(Flux.just(product));
+
+        StepVerifier.create(productLocalCacheService.getAllProducts())
+                .expectNext(product)
+                .verifyComplete();
+        StepVerifier.create(productLocalCacheService.getAllProducts())
+                .expectNext(product)
+                .verifyComplete();
+
+        verify(redisProductCacheService, times(1)).getAllProducts();
+    }
+
+    @Test
+    void getAllProducts_WhenSnapshotExists_ShouldServeItWithoutRedis() {
+        when(catalogSnapshot.getCatalog()).thenReturn(Optional.of(List.of(product)));
+        ProductLocalCacheServiceImpl warmService = new ProductLocalCacheServiceImpl(
+                redisProductCacheService,
+                Mappers.getMapper(ProductMapper.class),
+                catalogSnapshot,
+                new ProductLocalCacheProperties(1000, Duration.ofMinutes(2), Duration.ofSeconds(30)),
+                new SimpleMeterRegistry()
+        );
+
+        StepVerifier.create(warmService.getAllProducts())
+                .expectNext(product)
+                .verifyComplete();
+
+        verify(redisProductCacheService, never()).getAllProducts();
+    }
+
+    @Test
+    void getAllProducts_WhenRedisAndDatabaseFail_ShouldFallBackToSnapshot() {
+        when(redisProductCacheService.getAllProducts()).thenReturn(Flux.error(new IllegalStateException("down")));
+        when(catalogSnapshot.getCatalog()).thenReturn(Optional.of(List.of(product)));
+
+        StepVerifier.create(productLocalCacheService.getAllProducts())
+                .expectNext(product)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductById_WhenRedisAndDatabaseFail_ShouldFallBackToSnapshot() {
+        when(redisProductCacheService.getProductById(productId)).thenReturn(Mono.error(new IllegalStateException("down")));
+        when(catalogSnapshot.getProduct(productId)).thenReturn(Optional.of(product));
+
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectNext(product)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductById_WhenProductNotFound_ShouldNotUseSnapshot() {
+        when(redisProductCacheService.getProductById(productId))
+                .thenReturn(Mono.error(new ProductNotFoundException(productId.toString())));
+
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectError(ProductNotFoundException.class)
+                .verify();
+
+        verify(catalogSnapshot, never()).getProduct(any());
+    }
+
+    @Test
+    void getProductPage_WhenCatalogIsLoaded_ShouldSliceLocally() {
+        when(redisProductCacheService.getAllProducts()).thenReturn(Flux.just(product));
+        productLocalCacheService.getAllProducts().blockLast();
+
+        StepVerifier.create(productLocalCacheService.getProductPage(PageRequest.of(0, 10)))
+                .expectNextMatches(page -> page.getContent().equals(List.of(product)) && page.getTotalElements() == 1)
+                .verifyComplete();
+
+        verify(redisProductCacheService, never()).getProductPage(any());
+    }
+
+    @Test
+    void evictListCache_ShouldReloadCatalogFromRedis() {
+        when(redisProductCacheService.getAllProducts()).thenReturn(Flux.just(product));
+        when(redisProductCacheService.evictListCache()).thenReturn(Mono.empty());
+
+        productLocalCacheService.getAllProducts().blockLast();
+        productLocalCacheService.evictListCache().block();
+        productLocalCacheService.getAllProducts().blockLast();
+
+        verify(redisProductCacheService, times(2)).getAllProducts();
+    }
+
+    @Test
+    void cacheProducts_ShouldInvalidateLocalEntries() {
+        when(redisProductCacheService.getProductById(productId)).thenReturn(Mono.just(product));
+        when(redisProductCacheService.cacheProducts(List.of(product))).thenReturn(Mono.empty());
+
+        productLocalCacheService.getProductById(productId).block();
+        productLocalCacheService.cacheProducts(List.of(product)).block();
+        productLocalCacheService.getProductById(productId).block();
+
+        verify(redisProductCacheService, times(2)).getProductById(productId);
+    }
+
+    @Test
+    void cacheProducts_ShouldApplyChangesToLoadedCatalogWithoutReload() {
+        Product cheaper = Product.builder().uuid(productId).name("Test Product").price(BigDecimal.ONE).build();
+        Product added = Product.builder().uuid(UUID.randomUUID()).name("New Product").price(BigDecimal.TWO).build();
+        when(redisProductCacheService.getAllProducts()).thenReturn(Flux.just(product));
+        when(redisProductCacheService.cacheProducts(List.of(cheaper, added))).thenReturn(Mono.empty());
+
+        productLocalCacheService.getAllProducts().blockLast();
+        productLocalCacheService.cacheProducts(List.of(cheaper, added)).block();
+
+        StepVerifier.create(productLocalCacheService.getAllProducts())
+                .expectNext(cheaper, added)
+                .verifyComplete();
+        verify(redisProductCacheService, times(1)).getAllProducts();
+    }
+
+    @Test
+    void getProductById_ShouldReturnFromLocalCache() {
+        when(redisProductCacheService.getProductById(productId)).thenReturn(Mono.just(product));
+
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectNext(product)
+                .verifyComplete();
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectNext(product)
+                .verifyComplete();
+
+        verify(redisProductCacheService, times(1)).getProductById(productId);
+    }
+
+    @Test
+    void getProductsByIds_ShouldLoadOnlyMissingIdsFromRedisInOneBatch() {
+        UUID otherId = UUID.randomUUID();
+        Product other = Product.builder().uuid(otherId).name("Other").price(BigDecimal.ONE).build();
+        when(redisProductCacheService.getProductById(productId)).thenReturn(Mono.just(product));
+        when(redisProductCacheService.getProductsByIds(List.of(otherId))).thenReturn(Mono.just(Map.of(otherId, other)));
+
+        productLocalCacheService.getProductById(productId).block();
+
+        StepVerifier.create(productLocalCacheService.getProductsByIds(List.of(productId, otherId)))
+                .expectNext(Map.of(productId, product, otherId, other))
+                .verifyComplete();
+        StepVerifier.create(productLocalCacheService.getProductById(otherId))
+                .expectNext(other)
+                .verifyComplete();
+
+        verify(redisProductCacheService, times(1)).getProductsByIds(List.of(otherId));
+    }
+
+    @Test
+    void getProductById_WhenNotFound_ShouldNotCacheError() {
+        when(redisProductCacheService.getProductById(productId))
+                .thenReturn(Mono.error(new ProductNotFoundException("Product not found")));
+
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectError(ProductNotFoundException.class)
+                .verify();
+        StepVerifier.create(productLocalCacheService.getProductById(productId))
+                .expectError(ProductNotFoundException.class)
+                .verify();
+
+        verify(redisProductCacheService, times(2)).getProductById(productId);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mapstruct.factory.Mappers;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import ru.practicum.config.search.CatalogSearchProperties;
+import ru.practicum.dao.product.ProductDao;
+import ru.practicum.mapper.product.ProductMapper;
+import ru.practicum.model.product.Product;
+import ru.practicum.repository.product.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
+    private ProductSearchIndexImpl productSearchIndex;
+
+    private final Product duckLamp = product("Уточка ночник", "Светится в темноте, как маяк");
+    private final Product lighthouse = product("Маяк", "Светильник для детской");
+    private final Product rubberDuck = product("уточка резиновая", "Для ванной");
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndexImpl(productRepository, productMapper,
+                new CatalogSearchProperties(CatalogSearchProperties.Engine.MEMORY));
+    }
+
+    @Test
+    void search_ShouldBuildIndexOnceFromDatabase() {
+        when(productRepository.findAll()).thenReturn(rows(duckLamp, lighthouse, rubberDuck));
+
+        StepVerifier.create(productSearchIndex.search("УТОЧКА"))
+                .expectNext(List.of(duckLamp.getUuid(), rubberDuck.getUuid()))
+                .verifyComplete();
+        StepVerifier.create(productSearchIndex.search("маяк"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        when(productRepository.findAll()).thenReturn(rows(duckLamp, lighthouse, rubberDuck));
+
+        StepVerifier.create(productSearchIndex.search("маяк"))
+                .expectNext(List.of(lighthouse.getUuid(), duckLamp.getUuid()))
+                .verifyComplete();
+    }
+
+    @Test
+    void search_ShouldIntersectWordPrefixes() {
+        when(productRepository.findAll()).thenReturn(rows(duckLamp, lighthouse, rubberDuck));
+
+        StepVerifier.create(productSearchIndex.search("уточ рез"))
+                .expectNext(List.of(rubberDuck.getUuid()))
+                .verifyComplete();
+        StepVerifier.create(productSearchIndex.search("уточка светильник"))
+                .expectNext(List.of())
+                .verifyComplete();
+    }
+
+    @Test
+    void search_WhenQueryHasNoWords_ShouldNotBuildIndex() {
+        StepVerifier.create(productSearchIndex.search(" ,.- "))
+                .expectNext(List.of())
+                .verifyComplete();
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void index_ShouldAddAndReplaceProductsIncrementally() {
+        when(productRepository.findAll()).thenReturn(rows(duckLamp, lighthouse));
+        productSearchIndex.search("маяк").block();
+
+        Product renamedLighthouse = Product.builder()
+                .uuid(lighthouse.getUuid())
+                .name("Фонарь")
+                .price(BigDecimal.TEN)
+                .build();
+        productSearchIndex.index(List.of(rubberDuck, renamedLighthouse));
+
+        StepVerifier.create(productSearchIndex.search("резиновая"))
+                .expectNext(List.of(rubberDuck.getUuid()))
+                .verifyComplete();
+        StepVerifier.create(productSearchIndex.search("маяк"))
+                .expectNext(List.of(duckLamp.getUuid()))
+                .verifyComplete();
+        StepVerifier.create(productSearchIndex.search("фонарь"))
+                .expectNext(List.of(lighthouse.getUuid()))
+                .verifyComplete();
+
+        verify(productRepository, times(1)).findAll();
+    }
+
+    private Flux<ProductDao> rows(Product... products) {
+        return Flux.just(products).map(productMapper::productToProductDao);
+    }
+
+    private static Product product(String name, String description) {
+        return Product.builder()
+                .uuid(UUID.randomUUID())
+                .name(name)
+                .description(description)
+                .price(BigDecimal.TEN)
+                .build();
+    }
+}
@@ -7,6 +7,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
@@ -16,11 +17,19 @@ import ru.practicum.dao.product.ProductDao;
 import ru.practicum.exception.product.ProductNotFoundException;
 import ru.practicum.mapper.product.ProductMapper;
 import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductPage;
+import ru.practicum.model.product.ProductSort;
 import ru.practicum.repository.product.ProductRepository;
+import ru.practicum.service.cache.CacheInvalidationBus;
 
 import java.math.BigDecimal;
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +44,18 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductSortedViews productSortedViews;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private ProductCatalogSnapshot catalogSnapshot;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -55,8 +76,8 @@ class ProductServiceTest {
 
     @Test
     void getAll_shouldReturnPageOfProducts() {
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
-        when(productRepository.count()).thenReturn(Mono.just(1L));
+        when(productCacheService.getProductPage(pageable))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(testProduct), pageable, 1)));
 
         Mono<Page<Product>> result = productService.getAll(pageable);
 
@@ -68,25 +89,29 @@ class ProductServiceTest {
     }
 
     @Test
-    void search_shouldFilterProductsByName() {
+    void search_shouldQueryRepositoryByRelevance() {
         String query = "test";
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
-        when(productRepository.count()).thenReturn(Mono.just(1L));
+        ProductDao testProductDao = ProductDao.builder().uuid(testUuid).build();
+        when(productRepository.findCatalogPage(query, null, null, 10, 0))
+                .thenReturn(Flux.just(testProductDao));
+        when(productRepository.countCatalog(query)).thenReturn(Mono.just(1L));
+        when(productMapper.productDaoToProduct(testProductDao)).thenReturn(testProduct);
 
         Mono<Page<Product>> result = productService.search(query, pageable);
 
         StepVerifier.create(result)
                 .expectNextMatches(page ->
                         page.getContent().size() == 1 &&
-                                page.getContent().getFirst().equals(testProduct))
+                                page.getContent().getFirst().equals(testProduct) &&
+                                page.getTotalElements() == 1)
                 .verifyComplete();
     }
 
     @Test
     void search_shouldReturnEmptyPageWhenNoMatches() {
         String query = "nonexistent";
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
-        when(productRepository.count()).thenReturn(Mono.just(1L));
+        when(productRepository.findCatalogPage(query, null, null, 10, 0)).thenReturn(Flux.empty());
+        when(productRepository.countCatalog(query)).thenReturn(Mono.just(0L));
 
         Mono<Page<Product>> result = productService.search(query, pageable);
 
@@ -95,11 +120,28 @@ class ProductServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void search_shouldUseInMemoryIndexWhenEnabled() {
+        Product secondProduct = Product.builder().uuid(UUID.randomUUID()).name("Second").build();
+        when(productSearchIndex.isEnabled()).thenReturn(true);
+        when(productSearchIndex.search("test"))
+                .thenReturn(Mono.just(List.of(secondProduct.getUuid(), testUuid)));
+        when(productCacheService.getProductsByIds(Set.of(secondProduct.getUuid(), testUuid)))
+                .thenReturn(Mono.just(Map.of(testUuid, testProduct, secondProduct.getUuid(), secondProduct)));
+
+        StepVerifier.create(productService.search("test", pageable))
+                .expectNextMatches(page -> page.getContent().equals(List.of(secondProduct, testProduct))
+                        && page.getTotalElements() == 2)
+                .verifyComplete();
+
+        verify(productRepository, never()).findCatalogPage(any(), any(), any(), anyInt(), anyLong());
+    }
+
     @Test
     void getSorted_shouldSortProducts() {
         String sort = "price_asc";
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
-        when(productRepository.count()).thenReturn(Mono.just(1L));
+        when(productCacheService.getProductPage(pageable))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(testProduct), pageable, 1)));
 
         Mono<Page<Product>> result = productService.getSorted(sort, pageable);
 
@@ -110,21 +152,192 @@ class ProductServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getSorted_shouldSliceSortedView() {
+        ProductPage sortedPage = new ProductPage(List.of(testProduct), pageable, 1, null);
+        when(productSortedViews.getPage(ProductSort.PRICE_DESC, null, pageable)).thenReturn(Mono.just(sortedPage));
+
+        StepVerifier.create(productService.getSorted("price-desc", pageable))
+                .expectNext(sortedPage)
+                .verifyComplete();
+
+        verify(productCacheService, never()).getAllProducts();
+    }
+
     @Test
     void getProducts_shouldCombineSearchAndSort() {
         String search = "test";
-        String sort = "price_asc";
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
+        String sort = "price-asc";
+        ProductDao testProductDao = new ProductDao();
+        when(productRepository.findCatalogPage(search, ProductSort.PRICE_ASC, null, 11, 0))
+                .thenReturn(Flux.just(testProductDao));
+        when(productRepository.countCatalog(search)).thenReturn(Mono.just(1L));
+        when(productMapper.productDaoToProduct(testProductDao)).thenReturn(testProduct);
 
-        Mono<Page<Product>> result = productService.getProducts(search, sort, pageable);
+        Mono<ProductPage> result = productService.getProducts(search, sort, null, pageable);
 
         StepVerifier.create(result)
                 .expectNextMatches(page ->
                         page.getContent().size() == 1 &&
-                                page.getContent().getFirst().equals(testProduct))
+                                page.getContent().getFirst().equals(testProduct) &&
+                                page.getNextCursor() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProducts_shouldReturnNextCursorWhenMoreProductsExist() {
+        Pageable singleItemPage = PageRequest.of(0, 1);
+        Product nextProduct = Product.builder()
+                .uuid(UUID.randomUUID())
+                .name("Next Product")
+                .price(BigDecimal.valueOf(200.0))
+                .build();
+        ProductDao firstDao = ProductDao.builder().uuid(testUuid).build();
+        ProductDao secondDao = ProductDao.builder().uuid(nextProduct.getUuid()).build();
+        when(productRepository.findCatalogPage("product", ProductSort.PRICE_ASC, null, 2, 0))
+                .thenReturn(Flux.just(firstDao, secondDao));
+        when(productRepository.countCatalog("product")).thenReturn(Mono.just(2L));
+        when(productMapper.productDaoToProduct(firstDao)).thenReturn(testProduct);
+        when(productMapper.productDaoToProduct(secondDao)).thenReturn(nextProduct);
+
+        ProductPage page = productService.getProducts("product", "price-asc", null, singleItemPage).block();
+
+        assertNotNull(page);
+        assertEquals(List.of(testProduct), page.getContent());
+        assertTrue(page.hasNext());
+        ProductCursor cursor = ProductCursor.decode(page.getNextCursor()).orElseThrow();
+        assertEquals(ProductSort.PRICE_ASC, cursor.sort());
+        assertEquals(testUuid, cursor.uuid());
+        assertEquals(0, testProduct.getPrice().compareTo(new BigDecimal(cursor.key())));
+    }
+
+    @Test
+    void getProducts_shouldSeekByCursorInsteadOfOffset() {
+        Pageable deepPage = PageRequest.of(1000, 10);
+        String cursor = ProductCursor.of(ProductSort.NAME_DESC, testProduct).encode();
+        when(productRepository.findCatalogPage(eq("product"), eq(ProductSort.NAME_DESC), any(ProductCursor.class), eq(11), eq(10000L)))
+                .thenReturn(Flux.empty());
+        when(productRepository.countCatalog("product")).thenReturn(Mono.just(10001L));
+
+        StepVerifier.create(productService.getProducts("product", "name-desc", cursor, deepPage))
+                .expectNextMatches(page -> page.getContent().isEmpty() && page.getNextCursor() == null)
+                .verifyComplete();
+
+        verify(productRepository).findCatalogPage(eq("product"), eq(ProductSort.NAME_DESC),
+                eq(new ProductCursor(ProductSort.NAME_DESC, "Test Product", testUuid)), eq(11), eq(10000L));
+    }
+
+    @Test
+    void getProducts_shouldIgnoreCursorIssuedForAnotherSort() {
+        String cursor = ProductCursor.of(ProductSort.PRICE_ASC, testProduct).encode();
+        ProductPage sortedPage = new ProductPage(List.of(), pageable, 0, null);
+        when(productSortedViews.getPage(ProductSort.NAME_ASC, null, pageable)).thenReturn(Mono.just(sortedPage));
+
+        StepVerifier.create(productService.getProducts(null, "name-asc", cursor, pageable))
+                .expectNext(sortedPage)
                 .verifyComplete();
     }
 
+    @Test
+    void getProducts_shouldServeSortedCatalogFromViewsByCursor() {
+        String cursor = ProductCursor.of(ProductSort.PRICE_DESC, testProduct).encode();
+        ProductPage sortedPage = new ProductPage(List.of(testProduct), pageable, 1, null);
+        when(productSortedViews.getPage(ProductSort.PRICE_DESC, ProductCursor.decode(cursor).orElseThrow(), pageable))
+                .thenReturn(Mono.just(sortedPage));
+
+        StepVerifier.create(productService.getProducts(null, "price-desc", cursor, pageable))
+                .expectNext(sortedPage)
+                .verifyComplete();
+
+        verify(productRepository, never()).findCatalogPage(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void getProducts_shouldFilterSortedViewsBySearchIndexWhenEnabled() {
+        ProductPage sortedPage = new ProductPage(List.of(testProduct), pageable, 1, null);
+        when(productSearchIndex.isEnabled()).thenReturn(true);
+        when(productSearchIndex.search("test")).thenReturn(Mono.just(List.of(testUuid)));
+        when(productSortedViews.getPage(ProductSort.PRICE_ASC, List.of(testUuid), null, pageable))
+                .thenReturn(Mono.just(sortedPage));
+
+        StepVerifier.create(productService.getProducts("test", "price-asc", null, pageable))
+                .expectNext(sortedPage)
+                .verifyComplete();
+
+        verify(productRepository, never()).findCatalogPage(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void getProducts_shouldFallBackToDatabaseWhenSortedViewsFail() {
+        ProductDao testProductDao = new ProductDao();
+        when(productSortedViews.getPage(ProductSort.NAME_ASC, null, pageable))
+                .thenReturn(Mono.error(new RuntimeException("Redis недоступен")));
+        when(productRepository.findCatalogPage(null, ProductSort.NAME_ASC, null, 11, 0))
+                .thenReturn(Flux.just(testProductDao));
+        when(productRepository.countCatalog(null)).thenReturn(Mono.just(1L));
+        when(productMapper.productDaoToProduct(testProductDao)).thenReturn(testProduct);
+
+        StepVerifier.create(productService.getProducts(null, "name-asc", null, pageable))
+                .expectNextMatches(page -> page.getContent().equals(List.of(testProduct)))
+                .verifyComplete();
+    }
+
+    @Test
+    void getProducts_shouldPageRankedSearchByOffsetWithoutCursor() {
+        Pageable singleItemPage = PageRequest.of(2, 1);
+        String cursor = ProductCursor.of(null, testProduct).encode();
+        ProductDao firstDao = ProductDao.builder().uuid(testUuid).build();
+        ProductDao secondDao = ProductDao.builder().uuid(UUID.randomUUID()).build();
+        when(productRepository.findCatalogPage("уточка", null, null, 2, 2))
+                .thenReturn(Flux.just(firstDao, secondDao));
+        when(productRepository.countCatalog("уточка")).thenReturn(Mono.just(5L));
+        when(productMapper.productDaoToProduct(firstDao)).thenReturn(testProduct);
+        when(productMapper.productDaoToProduct(secondDao)).thenReturn(new Product());
+
+        StepVerifier.create(productService.getProducts("уточка", null, cursor, singleItemPage))
+                .expectNextMatches(page -> page.getContent().equals(List.of(testProduct))
+                        && page.hasNext()
+                        && page.getNextCursor() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProducts_shouldPageSnapshotWhenDatabaseFails() {
+        Product cheap = Product.builder().uuid(UUID.randomUUID()).name("Уточка").description("Для ванной")
+                .price(new BigDecimal("100.00")).build();
+        Product expensive = Product.builder().uuid(UUID.randomUUID()).name("Уточка резиновая").description("Желтая")
+                .price(new BigDecimal("300.00")).build();
+        Product other = Product.builder().uuid(UUID.randomUUID()).name("Маяк").description("Ночник")
+                .price(new BigDecimal("200.00")).build();
+        Pageable singleItemPage = PageRequest.of(0, 1);
+        when(productRepository.findCatalogPage(eq("уточ"), eq(ProductSort.PRICE_DESC), any(), eq(2), anyLong()))
+                .thenReturn(Flux.error(new RuntimeException("База данных недоступна")));
+        when(productRepository.countCatalog("уточ")).thenReturn(Mono.just(0L));
+        when(catalogSnapshot.getCatalog()).thenReturn(Optional.of(List.of(cheap, other, expensive)));
+
+        ProductPage first = productService.getProducts("уточ", "price-desc", null, singleItemPage).block();
+
+        assertNotNull(first);
+        assertEquals(List.of(expensive), first.getContent());
+        assertEquals(2, first.getTotalElements());
+        ProductPage second = productService.getProducts("уточ", "price-desc", first.getNextCursor(), singleItemPage).block();
+        assertNotNull(second);
+        assertEquals(List.of(cheap), second.getContent());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getProducts_shouldPropagateDatabaseErrorWithoutSnapshot() {
+        when(productRepository.findCatalogPage(null, null, null, 11, 0))
+                .thenReturn(Flux.error(new RuntimeException("База данных недоступна")));
+        when(productRepository.countCatalog(null)).thenReturn(Mono.just(0L));
+        when(catalogSnapshot.getCatalog()).thenReturn(Optional.empty());
+
+        StepVerifier.create(productService.getProducts(null, null, null, pageable))
+                .expectErrorMessage("База данных недоступна")
+                .verify();
+    }
+
     @Test
     void getByUuid_shouldReturnProductWhenFound() {
         when(productCacheService.getProductById(testUuid)).thenReturn(Mono.just(testProduct));
@@ -153,7 +366,6 @@ class ProductServiceTest {
         when(productMapper.productToProductDao(any())).thenReturn(new ProductDao());
         when(productRepository.saveAll(any(List.class))).thenReturn(Flux.empty());
         when(productCacheService.cacheProducts(any())).thenReturn(Mono.empty());
-        when(productCacheService.evictListCache()).thenReturn(Mono.empty());
 
         Mono<Void> result = productService.batchAdd(Flux.just(productToSave));
 
@@ -162,13 +374,16 @@ class ProductServiceTest {
 
         verify(productRepository).saveAll(any(List.class));
         verify(productCacheService).cacheProducts(any());
-        verify(productCacheService).evictListCache();
+        verify(productCacheService, never()).evictListCache();
+        verify(productSearchIndex).index(any());
+        verify(productSortedViews).add(any());
+        verify(cacheInvalidationBus).publishProductsChanged(any());
     }
 
     @Test
-    void getProductsByIds_shouldReturnCachedProducts() {
+    void getProductsByIds_shouldResolveIdsInOneBatch() {
         Set<UUID> ids = Collections.singleton(testUuid);
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
+        when(productCacheService.getProductsByIds(ids)).thenReturn(Mono.just(Map.of(testUuid, testProduct)));
 
         Mono<Map<UUID, Product>> result = productService.getProductsByUuids(ids);
 
@@ -177,48 +392,8 @@ class ProductServiceTest {
                         map.size() == 1 &&
                                 map.get(testUuid).equals(testProduct))
                 .verifyComplete();
-    }
 
-    @Test
-    void getProductsByIds_shouldFetchMissingProductsFromRepository() {
-        UUID missingUuid = UUID.randomUUID();
-        Set<UUID> ids = Set.of(testUuid, missingUuid);
-
-        Product missingProduct = new Product();
-        missingProduct.setUuid(missingUuid);
-        missingProduct.setName("Missing Product");
-        missingProduct.setPrice(BigDecimal.valueOf(200.0));
-
-        when(productCacheService.getAllProducts()).thenReturn(Flux.just(testProduct));
-
-        ProductDao missingProductDao = new ProductDao();
-        when(productRepository.findAllById(Set.of(missingUuid))).thenReturn(Flux.just(missingProductDao));
-        when(productMapper.productDaoToProduct(missingProductDao)).thenReturn(missingProduct);
-
-        Mono<Map<UUID, Product>> result = productService.getProductsByUuids(ids);
-
-        StepVerifier.create(result)
-                .expectNextMatches(map -> {
-                    if (map.size() != 2) {
-                        System.out.println("Expected 2 products but got: " + map.size());
-                        return false;
-                    }
-
-                    boolean hasTestProduct = map.containsKey(testUuid) &&
-                            map.get(testUuid).equals(testProduct);
-                    boolean hasMissingProduct = map.containsKey(missingUuid) &&
-                            map.get(missingUuid).equals(missingProduct);
-
-                    if (!hasTestProduct) {
-                        System.out.println("Test product missing or not matching");
-                    }
-                    if (!hasMissingProduct) {
-                        System.out.println("Missing product missing or not matching");
-                    }
-
-                    return hasTestProduct && hasMissingProduct;
-                })
-                .verifyComplete();
+        verify(productCacheService, never()).getAllProducts();
     }
 
     @Test
@@ -0,0 +1,170 @@
+package ru.practicum.service.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import ru.practicum.model.product.Product;
+import ru.practicum.model.product.ProductCursor;
+import ru.practicum.model.product.ProductPage;
+import ru.practicum.model.product.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSortedViewsTest {
+
+    @Mock
+    private ProductCacheService productCacheService;
+
+    private ProductSortedViewsImpl productSortedViews;
+
+    private final Product lamp = product("Ночник", 300);
+    private final Product duck = product("уточка", 100);
+    private final Product lighthouse = product("Маяк", 200);
+
+    @BeforeEach
+    void setUp() {
+        productSortedViews = new ProductSortedViewsImpl(productCacheService);
+    }
+
+    @Test
+    void getPage_ShouldReturnAscendingAndDescendingSlices() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck, lighthouse));
+
+        assertEquals(List.of(duck, lighthouse, lamp), content(ProductSort.PRICE_ASC, 0, 10));
+        assertEquals(List.of(lamp, lighthouse), content(ProductSort.PRICE_DESC, 0, 2));
+        assertEquals(List.of(duck), content(ProductSort.PRICE_DESC, 1, 2));
+        assertEquals(List.of(lighthouse, lamp, duck), content(ProductSort.NAME_ASC, 0, 10));
+        assertEquals(List.of(duck, lamp, lighthouse), content(ProductSort.NAME_DESC, 0, 10));
+
+        verify(productCacheService, times(1)).getAllProducts();
+    }
+
+    @Test
+    void getPage_WhenOffsetBeyondCatalog_ShouldReturnEmptyContentWithTotal() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck));
+
+        ProductPage page = productSortedViews.getPage(ProductSort.NAME_ASC, null, PageRequest.of(5, 10)).block();
+
+        assertNotNull(page);
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(2, page.getTotalElements());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getPage_ShouldContinueFromCursorInBothDirections() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck, lighthouse));
+
+        ProductPage first = productSortedViews.getPage(ProductSort.PRICE_DESC, null, PageRequest.of(0, 2)).block();
+        assertNotNull(first);
+        assertEquals(List.of(lamp, lighthouse), first.getContent());
+        ProductCursor cursor = ProductCursor.decode(first.getNextCursor()).orElseThrow();
+
+        ProductPage second = productSortedViews.getPage(ProductSort.PRICE_DESC, cursor, PageRequest.of(1, 2)).block();
+        assertNotNull(second);
+        assertEquals(List.of(duck), second.getContent());
+        assertNull(second.getNextCursor());
+
+        ProductCursor afterDuck = ProductCursor.of(ProductSort.NAME_DESC, duck);
+        assertEquals(List.of(lamp, lighthouse),
+                productSortedViews.getPage(ProductSort.NAME_DESC, afterDuck, PageRequest.of(0, 10)).block().getContent());
+        ProductCursor afterLighthouse = ProductCursor.of(ProductSort.NAME_ASC, lighthouse);
+        assertEquals(List.of(lamp, duck),
+                productSortedViews.getPage(ProductSort.NAME_ASC, afterLighthouse, PageRequest.of(0, 10)).block().getContent());
+    }
+
+    @Test
+    void getPage_WithProductIds_ShouldPageOnlyMatchedProductsInSortOrder() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck, lighthouse));
+        List<UUID> matched = List.of(lamp.getUuid(), duck.getUuid(), UUID.randomUUID());
+
+        ProductPage first = productSortedViews.getPage(ProductSort.NAME_ASC, matched, null, PageRequest.of(0, 1)).block();
+        assertNotNull(first);
+        assertEquals(List.of(lamp), first.getContent());
+        assertEquals(2, first.getTotalElements());
+
+        ProductCursor cursor = ProductCursor.decode(first.getNextCursor()).orElseThrow();
+        ProductPage second = productSortedViews.getPage(ProductSort.NAME_ASC, matched, cursor, PageRequest.of(1, 1)).block();
+        assertNotNull(second);
+        assertEquals(List.of(duck), second.getContent());
+        assertNull(second.getNextCursor());
+
+        ProductPage byPrice = productSortedViews.getPage(ProductSort.PRICE_DESC, matched, null, PageRequest.of(0, 10)).block();
+        assertNotNull(byPrice);
+        assertEquals(List.of(lamp, duck), byPrice.getContent());
+    }
+
+    @Test
+    void add_ShouldInsertAndRepositionProductsWithoutRebuild() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck));
+        content(ProductSort.PRICE_ASC, 0, 10);
+
+        Product cheaperLamp = product(lamp.getUuid(), "Ночник", 50);
+        productSortedViews.add(List.of(lighthouse, cheaperLamp));
+
+        assertEquals(List.of(cheaperLamp, duck, lighthouse), content(ProductSort.PRICE_ASC, 0, 10));
+        assertEquals(List.of(duck, cheaperLamp, lighthouse), content(ProductSort.NAME_DESC, 0, 10));
+        verify(productCacheService, times(1)).getAllProducts();
+    }
+
+    @Test
+    void add_BeforeViewsAreBuilt_ShouldBeIgnored() {
+        productSortedViews.add(List.of(lighthouse));
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp));
+
+        assertEquals(List.of(lamp), content(ProductSort.PRICE_ASC, 0, 10));
+    }
+
+    @Test
+    void refresh_ShouldReplaceViewsWithCurrentCatalog() {
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(lamp, duck));
+        content(ProductSort.PRICE_ASC, 0, 10);
+
+        Product cheaperLamp = product(lamp.getUuid(), "Ночник", 50);
+        when(productCacheService.getAllProducts()).thenReturn(Flux.just(cheaperLamp, lighthouse));
+        productSortedViews.refresh();
+
+        assertEquals(List.of(cheaperLamp, lighthouse), content(ProductSort.PRICE_ASC, 0, 10));
+    }
+
+    @Test
+    void refresh_BeforeViewsAreBuilt_ShouldBeIgnored() {
+        productSortedViews.refresh();
+
+        verify(productCacheService, never()).getAllProducts();
+    }
+
+    private List<Product> content(ProductSort sort, int page, int size) {
+        ProductPage result = productSortedViews.getPage(sort, null, PageRequest.of(page, size)).block();
+        assertNotNull(result);
+        return result.getContent();
+    }
+
+    private static Product product(String name, int price) {
+        return product(UUID.randomUUID(), name, price);
+    }
+
+    private static Product product(UUID uuid, String name, int price) {
+        return Product.builder()
+                .uuid(uuid)
+                .name(name)
+                .price(BigDecimal.valueOf(price * 100L, 2))
+                .build();
+    }
+}